@@ -0,0 +1,89 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.dto.ClientSearchDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Latency of the typeahead search ({@link ClientService#search}) over a large client table.
+ * <p>
+ * Seeds {@code bench.clients} clients with generated names, then runs random name prefixes
+ * (2 to 4 letters, first page of 10) and full-text word searches.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ClientSearchBenchmark -Dbench.clients=5000000}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ClientSearchBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 100_000);
+    private static final int QUERIES = Integer.getInteger("bench.queries", 2_000);
+    private static final String[] SYLLABLES = {"ba", "be", "ca", "da", "du", "el", "fa", "ga", "jo", "la",
+            "le", "ma", "mo", "na", "pa", "ri", "ro", "sa", "ta", "vi"};
+
+    @Test
+    void typeaheadLatency() {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-search;DB_CLOSE_DELAY=-1",
+                        "app.client-purge.poll-interval=1h")
+                .run()) {
+            ClientService clients = ctx.getBean(ClientService.class);
+            Random random = new Random(42);
+            long seedStart = System.nanoTime();
+            List<ClientCreateDto> chunk = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                chunk.add(new ClientCreateDto(ClientType.PERSON, name(random) + " " + name(random),
+                        "c" + i + "@example.com", "+41 21 000 00 00", LocalDate.of(1980, 1, 1), null));
+                if (chunk.size() == 5_000 || i == CLIENTS - 1) {
+                    clients.createMany(chunk);
+                    chunk.clear();
+                }
+            }
+            log.info("seeded {} clients in {} s", CLIENTS, String.format("%.1f", (System.nanoTime() - seedStart) / 1e9));
+
+            report("name prefix", QUERIES, () -> new ClientSearchDto(
+                    prefix(random), null, null, null, null, null), clients);
+            report("full-text", QUERIES / 10, () -> new ClientSearchDto(
+                    null, null, null, null, null, name(random)), clients);
+        }
+    }
+
+    private static void report(String label, int queries, java.util.function.Supplier<ClientSearchDto> criteria,
+                               ClientService clients) {
+        for (int i = 0; i < queries / 10; i++) clients.search(criteria.get(), null, 10); // warm-up
+        long[] nanos = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            clients.search(criteria.get(), null, 10);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        log.info("{} over {} clients: {}", label, CLIENTS, String.format("p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                nanos[queries / 2] / 1e6, nanos[(int) (queries * 0.99)] / 1e6, nanos[queries - 1] / 1e6));
+    }
+
+    private static String name(Random random) {
+        var sb = new StringBuilder();
+        for (int i = 0, n = 2 + random.nextInt(2); i < n; i++) sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        return Character.toUpperCase(sb.charAt(0)) + sb.substring(1);
+    }
+
+    private static String prefix(Random random) {
+        return name(random).substring(0, 2 + random.nextInt(3));
+    }
+}
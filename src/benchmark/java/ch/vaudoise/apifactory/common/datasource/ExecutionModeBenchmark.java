@@ -0,0 +1,147 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Platform threads (Tomcat pool, default) vs virtual threads, behind the same DataSource limiter
+ * (enabled here, it is off by default).
+ * <p>
+ * For each level of concurrency, that many connections each send {@code GET /api/clients/{id}/contracts}
+ * in a closed loop for {@code bench.duration}; throughput, 503 rate and latency percentiles are logged.
+ * The virtual-thread run needs Java 21+ and is skipped on older runtimes.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ExecutionModeBenchmark -Dbench.connections=1000,5000,10000}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ExecutionModeBenchmark {
+
+    private static final int[] CONNECTIONS = Arrays.stream(System.getProperty("bench.connections", "1000,5000,10000")
+            .split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("bench.duration", "20s"));
+    private static final int CLIENTS = 100;
+
+    @Test
+    void platformVsVirtualThreads() throws Exception {
+        run("platform", false);
+        if (Runtime.version().feature() >= 21) {
+            run("virtual", true);
+        } else {
+            log.info("virtual: skipped, Java 21+ required (running {})", Runtime.version());
+        }
+    }
+
+    private void run(String mode, boolean virtualThreads) throws Exception {
+        int maxConnections = Arrays.stream(CONNECTIONS).max().orElse(0) + 100;
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "app.datasource.concurrency.enabled=true",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.max-connections=" + maxConnections,
+                        "server.tomcat.accept-count=" + maxConnections)
+                .run()) {
+            List<Long> clientIds = seed(ctx);
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            for (int connections : CONNECTIONS) {
+                log.info("{} {}", mode, drive(port, clientIds, connections));
+            }
+        }
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext ctx) {
+        ClientService clients = ctx.getBean(ClientService.class);
+        ContractService contracts = ctx.getBean(ContractService.class);
+        List<ContractCreateDto> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new ContractCreateDto(LocalDate.now(), null, BigDecimal.valueOf(100 + i)));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            Long id = clients.create(new ClientCreateDto(ClientType.PERSON, "Bench " + c,
+                    "bench-" + c + "@example.com", "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null));
+            contracts.createBatch(id, items);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /** Closed loop: each of the {@code connections} virtual users sends its next request when the previous one completes. */
+    private static String drive(int port, List<Long> clientIds, int connections) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30)).build();
+        long end = System.nanoTime() + DURATION.toNanos();
+        long[] latencies = new long[4_000_000];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong unavailable = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(connections);
+
+        for (int i = 0; i < connections; i++) {
+            new Object() {
+                void next() {
+                    if (System.nanoTime() >= end) {
+                        done.countDown();
+                        return;
+                    }
+                    Long id = clientIds.get(ThreadLocalRandom.current().nextInt(clientIds.size()));
+                    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/clients/" + id + "/contracts?size=20"))
+                            .timeout(Duration.ofSeconds(60)).build();
+                    long start = System.nanoTime();
+                    http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                        int slot = recorded.getAndIncrement();
+                        if (slot < latencies.length) latencies[slot] = System.nanoTime() - start;
+                        if (error != null) failed.incrementAndGet();
+                        else if (response.statusCode() == 503) unavailable.incrementAndGet();
+                        else if (response.statusCode() < 400) ok.incrementAndGet();
+                        else failed.incrementAndGet();
+                        next();
+                    });
+                }
+            }.next();
+        }
+        done.await(DURATION.toSeconds() + 120, TimeUnit.SECONDS);
+
+        long[] sorted = Arrays.copyOf(latencies, Math.min(recorded.get(), latencies.length));
+        Arrays.sort(sorted);
+        double seconds = DURATION.toNanos() / 1e9;
+        return String.format("connections=%d: %.0f req/s ok, 503=%d, errors=%d, p50=%.1f ms, p99=%.1f ms, p99.9=%.1f ms",
+                connections, ok.get() / seconds, unavailable.get(), failed.get(),
+                percentile(sorted, 50), percentile(sorted, 99), percentile(sorted, 99.9));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
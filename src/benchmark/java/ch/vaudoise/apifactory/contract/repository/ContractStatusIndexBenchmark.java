@@ -0,0 +1,145 @@
+package ch.vaudoise.apifactory.contract.repository;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Per-client active aggregate with and without the materialized {@code status}.
+ * <p>
+ * Seeds {@code bench.contracts} contracts over {@code bench.clients} clients in a file database
+ * ({@code target/bench-status}, a command-line argument so that it wins over the test profile),
+ * 80% of them ended. "before" is the date-only predicate on {@code idx_contract_client_enddate},
+ * which reads every contract of the client; "after" is the query of {@link ContractRepository}
+ * seeking on {@code idx_contract_client_status}. Logs the {@code EXPLAIN ANALYZE} plans, the
+ * latencies, and the duration of the expiry job for one week.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ContractStatusIndexBenchmark -Dbench.contracts=10000000}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ContractStatusIndexBenchmark {
+
+    private static final int CONTRACTS = Integer.getInteger("bench.contracts", 10_000_000);
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 1_000);
+    private static final int QUERIES = Integer.getInteger("bench.queries", 200);
+    private static final int SEED_CHUNK = 250_000;
+
+    private static final String BEFORE = """
+            SELECT COALESCE(SUM(cost_amount), 0), COUNT(*)
+            FROM contract USE INDEX (idx_contract_client_enddate)
+            WHERE client_id = ? AND (end_date IS NULL OR ? < end_date)""";
+    private static final String AFTER = """
+            SELECT COALESCE(SUM(cost_amount), 0), COUNT(*)
+            FROM contract
+            WHERE client_id = ? AND status = 'ACTIVE' AND (end_date IS NULL OR ? < end_date)""";
+
+    @Test
+    void activeAggregateLatency() {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("app.client-purge.poll-interval=1h")
+                .run("--spring.datasource.url=jdbc:h2:file:./target/bench-status/db;OPTIMIZE_REUSE_RESULTS=FALSE")) {
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            List<Long> clientIds = seed(ctx.getBean(ClientService.class), jdbc);
+            LocalDate today = LocalDate.now();
+            Long probe = clientIds.get(0);
+
+            // Même résultat, plans différents
+            assertEquals(jdbc.queryForMap(BEFORE, probe, today), jdbc.queryForMap(AFTER, probe, today));
+            explain("before", BEFORE, jdbc, probe, today);
+            explain("after", AFTER, jdbc, probe, today);
+            double before = latency("before", BEFORE, jdbc, clientIds, today);
+            double after = latency("after", AFTER, jdbc, clientIds, today);
+            log.info("active sum per client, {} contracts: {}", CONTRACTS, String.format("x%.1f", before / after));
+
+            ContractService contracts = ctx.getBean(ContractService.class);
+            LocalDate nextWeek = today.plusDays(7);
+            long start = System.nanoTime();
+            int ended = 0;
+            int marked;
+            do {
+                marked = contracts.expireStatuses(nextWeek, 500);
+                ended += marked;
+            } while (marked > 0);
+            log.info("expiry job for {}: {} contract(s) ended in {}", nextWeek, ended,
+                    String.format("%.2f s", (System.nanoTime() - start) / 1e9));
+        }
+    }
+
+    private static List<Long> seed(ClientService clients, JdbcTemplate jdbc) {
+        long start = System.nanoTime();
+        List<ClientCreateDto> chunk = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            chunk.add(new ClientCreateDto(ClientType.PERSON, "Bench " + i, "bench" + i + "@example.com",
+                    "+41 21 000 00 00", LocalDate.of(1980, 1, 1), null));
+            if (chunk.size() == 1_000 || i == CLIENTS - 1) {
+                clients.createMany(chunk);
+                chunk.clear();
+            }
+        }
+        jdbc.execute("DROP TABLE IF EXISTS bench_client");
+        jdbc.execute("CREATE TABLE bench_client (rn INT PRIMARY KEY, id BIGINT NOT NULL)");
+        jdbc.execute("INSERT INTO bench_client SELECT ROW_NUMBER() OVER (ORDER BY id) - 1, id FROM client");
+
+        // 80 % terminés, 10 % sans fin, 10 % se terminant dans l'année ; statut cohérent avec la date
+        for (int from = 1; from <= CONTRACTS; from += SEED_CHUNK) {
+            jdbc.update("""
+                    INSERT INTO contract (id, client_id, start_date, end_date, cost_amount, last_updated_at, version, status)
+                    SELECT r.X, b.id, CURRENT_DATE - 2000,
+                           CASE WHEN MOD(r.X, 10) < 8 THEN CURRENT_DATE - 1 - MOD(r.X, 1500)
+                                WHEN MOD(r.X, 10) = 8 THEN NULL
+                                ELSE CURRENT_DATE + 1 + MOD(r.X, 365) END,
+                           100 + MOD(r.X, 900), LOCALTIMESTAMP, 0,
+                           CASE WHEN MOD(r.X, 10) < 8 THEN 'ENDED' ELSE 'ACTIVE' END
+                    FROM SYSTEM_RANGE(?, ?) r
+                    JOIN bench_client b ON b.rn = MOD(r.X, ?)""",
+                    from, Math.min(from + SEED_CHUNK - 1, CONTRACTS), CLIENTS);
+        }
+        jdbc.execute("ANALYZE");
+        log.info("seeded {} contracts over {} clients in {}", CONTRACTS, CLIENTS,
+                String.format("%.1f s", (System.nanoTime() - start) / 1e9));
+        return jdbc.queryForList("SELECT id FROM bench_client ORDER BY rn", Long.class);
+    }
+
+    private static void explain(String label, String sql, JdbcTemplate jdbc, Long clientId, LocalDate today) {
+        String plan = jdbc.queryForObject("EXPLAIN ANALYZE " + sql, String.class, clientId, today);
+        log.info("{} plan:\n{}", label, plan);
+    }
+
+    private static double latency(String label, String sql, JdbcTemplate jdbc, List<Long> clientIds, LocalDate today) {
+        Random random = new Random(42);
+        for (int i = 0; i < QUERIES / 10; i++) {
+            jdbc.queryForMap(sql, clientIds.get(random.nextInt(clientIds.size())), today); // warm-up
+        }
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            Long clientId = clientIds.get(random.nextInt(clientIds.size()));
+            long start = System.nanoTime();
+            jdbc.queryForMap(sql, clientId, today);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1e6;
+        log.info("{}: {}", label, String.format("p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                p50, nanos[(int) (QUERIES * 0.99)] / 1e6, nanos[QUERIES - 1] / 1e6));
+        return p50;
+    }
+}
@@ -0,0 +1,78 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of {@link ContractService#createBatch} with and without JDBC batching.
+ * <p>
+ * "before" maps the contract id as {@code IDENTITY} again ({@code benchmark/contract-identity-orm.xml}),
+ * so every INSERT runs on its own to read the generated id back; "after" uses the pooled sequence,
+ * the configured batch size and chunked flush/clear. Settings are passed as command-line arguments
+ * so that they win over the test profile.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ContractBatchInsertBenchmark -Dbench.rows=5000}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ContractBatchInsertBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 5_000);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+
+    @Test
+    void createBatchRowsPerSecond() {
+        double before = run("before", true, "--spring.jpa.mapping-resources=benchmark/contract-identity-orm.xml");
+        double after = run("after", false, "--spring.jpa.properties.hibernate.jdbc.batch_size=50");
+        log.info("createBatch {} rows: before (IDENTITY)={} rows/s, after (sequence + JDBC batch)={} rows/s (x{})",
+                ROWS, Math.round(before), Math.round(after), String.format("%.1f", after / before));
+    }
+
+    private double run(String label, boolean identity, String setting) {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("app.client-purge.poll-interval=1h")
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + label + ";DB_CLOSE_DELAY=-1", setting)) {
+            // La référence mesure bien un identifiant IDENTITY, et la version actuelle une séquence
+            assertEquals(identity ? "YES" : "NO", ctx.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT IS_IDENTITY FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'CONTRACT' AND COLUMN_NAME = 'ID'",
+                    String.class));
+            ClientService clients = ctx.getBean(ClientService.class);
+            ContractService contracts = ctx.getBean(ContractService.class);
+            Long clientId = clients.create(new ClientCreateDto(ClientType.COMPANY, "Bench SA",
+                    "bench-" + label + "@example.com", "+41 21 000 00 00", null, "BCH-001"));
+
+            List<ContractCreateDto> items = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                items.add(new ContractCreateDto(LocalDate.now(), null, BigDecimal.valueOf(100 + i % 900)));
+            }
+
+            contracts.createBatch(clientId, items); // warm-up
+            long best = Long.MAX_VALUE;
+            for (int it = 0; it < ITERATIONS; it++) {
+                long start = System.nanoTime();
+                List<Long> ids = contracts.createBatch(clientId, items);
+                best = Math.min(best, System.nanoTime() - start);
+                assertEquals(ROWS, ids.size());
+            }
+            return ROWS / (best / 1e9);
+        }
+    }
+}
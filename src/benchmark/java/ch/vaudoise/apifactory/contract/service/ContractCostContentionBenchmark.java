@@ -0,0 +1,108 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.exception.PreconditionFailedException;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many writers updating the cost of one single contract.
+ * <p>
+ * "last-writer-wins" sends unconditional updates; "if-match" reads the version, sends a conditional
+ * update and, on {@code PreconditionFailedException} (412), re-reads and retries, as an HTTP client would.
+ * Reports committed updates per second, conflicts per committed update and the latency of a committed
+ * update (retries included), and checks that no update was lost (version == number of commits).
+ * Run with {@code mvn test -Pbenchmark -Dtest=ContractCostContentionBenchmark -Dbench.writers=32 -Dbench.seconds=10}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ContractCostContentionBenchmark {
+
+    private static final int WRITERS = Integer.getInteger("bench.writers", 16);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 5);
+
+    @Test
+    void writersOnOneContract() throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:bench-contention;DB_CLOSE_DELAY=-1")
+                .run()) {
+            ClientService clients = ctx.getBean(ClientService.class);
+            ContractService contracts = ctx.getBean(ContractService.class);
+            Long clientId = clients.create(new ClientCreateDto(ClientType.COMPANY, "Contention SA",
+                    "contention@example.com", "+41 21 000 00 00", null, "CNT-001"));
+            Long contractId = contracts.create(clientId, new ContractCreateDto(LocalDate.now(), null, BigDecimal.TEN));
+
+            run("last-writer-wins", contracts, contractId, false);
+            run("if-match", contracts, contractId, true);
+        }
+    }
+
+    private void run(String label, ContractService contracts, Long contractId, boolean conditional) throws Exception {
+        long startVersion = contracts.get(contractId).version();
+        AtomicLong commits = new AtomicLong();
+        AtomicLong conflicts = new AtomicLong();
+        List<long[]> latencies = new CopyOnWriteArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(pool.submit(() -> {
+                long[] mine = new long[1 << 16];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    // Coût distinct à chaque écriture : une mise à jour sans changement ne crée pas de version
+                    BigDecimal cost = BigDecimal.valueOf(100 + writer * 100_000L + n).movePointLeft(2);
+                    long start = System.nanoTime();
+                    while (true) {
+                        Long expected = conditional ? contracts.get(contractId).version() : null;
+                        try {
+                            contracts.updateCost(contractId, cost, expected);
+                            break;
+                        } catch (PreconditionFailedException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    if (n < mine.length) mine[n++] = System.nanoTime() - start;
+                    commits.incrementAndGet();
+                }
+                latencies.add(Arrays.copyOf(mine, n));
+                return null;
+            }));
+        }
+        for (Future<?> f : writers) f.get();
+        pool.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        log.info("{}, {} writers: {}", label, WRITERS, String.format("%.0f commits/s, %.2f conflicts/commit, p50=%.1f ms, p99=%.1f ms",
+                commits.get() / (double) SECONDS, conflicts.get() / (double) commits.get(),
+                percentile(all, 0.50), percentile(all, 0.99)));
+        assertEquals(startVersion + commits.get(), contracts.get(contractId).version(), "lost update");
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.vaudoise.apifactory.jmh;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.dto.ContractKeysetView;
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import ch.vaudoise.apifactory.contract.dto.ContractTotals;
+import ch.vaudoise.apifactory.contract.repository.ContractRepository;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ContractRepository} read queries against an embedded H2 seeded with
+ * {@code clients × contractsPerClient} contracts (one in four already ended).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractRepositoryBenchmark {
+
+    @Param("100")
+    public int clients;
+
+    @Param("1000")
+    public int contractsPerClient;
+
+    private ConfigurableApplicationContext context;
+    private ContractRepository repository;
+    private List<Long> clientIds;
+    private Long clientId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1")
+                .run();
+        repository = context.getBean(ContractRepository.class);
+        ClientService clientService = context.getBean(ClientService.class);
+        ContractService contractService = context.getBean(ContractService.class);
+
+        today = LocalDate.now();
+        List<ContractCreateDto> items = new ArrayList<>(contractsPerClient);
+        for (int i = 0; i < contractsPerClient; i++) {
+            LocalDate end = i % 4 == 0 ? today.minusDays(1 + i % 30) : null;
+            items.add(new ContractCreateDto(today.minusYears(2), end, BigDecimal.valueOf(100 + i % 900)));
+        }
+        clientIds = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            Long id = clientService.create(new ClientCreateDto(ClientType.COMPANY, "Client " + c,
+                    "client-" + c + "@example.com", "+41 21 000 00 00", null, String.format("JMH-%03d", c)));
+            contractService.createBatch(id, items);
+            clientIds.add(id);
+        }
+        clientId = clientIds.get(clients / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ContractResponseDto> findViewsByClientFirstPage() {
+        return repository.findViewsByClient(clientId, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<ContractResponseDto> findActiveViewsByClientDeepPage() {
+        return repository.findActiveViewsByClient(clientId, today, PageRequest.of(30, 20));
+    }
+
+    @Benchmark
+    public List<ContractKeysetView> findFirstActiveKeysetPage() {
+        return repository.findFirstActiveKeysetPage(clientId, today, Limit.of(21));
+    }
+
+    @Benchmark
+    public List<ContractTotals> totalsActiveByClients() {
+        return repository.totalsActiveByClients(clientIds, today);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.vaudoise.apifactory.jmh;
+
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.common.error.GlobalExceptionHandler;
+import ch.vaudoise.apifactory.common.exception.ConflictException;
+import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error response building of {@link GlobalExceptionHandler} (exceptions are created once,
+ * only the handler is measured).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+
+    private NotFoundException notFound;
+    private ConflictException conflict;
+    private DataIntegrityViolationException duplicateEmail;
+    private MethodArgumentNotValidException batchValidation;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        notFound = new NotFoundException("Client 42 not found");
+        conflict = new ConflictException("[3] email already exists");
+        duplicateEmail = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UK_EMAIL ON PUBLIC.CLIENT(EMAIL)\"", "23505"));
+
+        // Erreurs d'un lot de 3 clients, telles que produites par @Valid sur une List
+        var result = new BeanPropertyBindingResult(List.of(), "clientCreateDtoList");
+        result.addError(new FieldError("clientCreateDtoList", "[0].email", "nope", false, null, null, "must be a well-formed email address"));
+        result.addError(new FieldError("clientCreateDtoList", "[1].phone", "call me", false, null, null, "must match \"^\\+?[0-9 .\\-]{7,20}$\""));
+        result.addError(new FieldError("clientCreateDtoList", "[2].birthdate", null, false, null, null, "birthdate is required for PERSON"));
+        result.addError(new ObjectError("clientCreateDto[2]", "Invalid client payload"));
+        var parameter = new MethodParameter(ExceptionHandlerBenchmark.class.getDeclaredMethod("target", List.class), 0);
+        batchValidation = new MethodArgumentNotValidException(parameter, result);
+    }
+
+    @SuppressWarnings("unused")
+    private void target(List<ClientCreateDto> body) { }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> notFound() {
+        return handler.notFound(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> conflict() {
+        return handler.conflict(conflict);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> dataIntegrity() {
+        return handler.dataIntegrity(duplicateEmail);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> batchValidation() {
+        return handler.validation(batchValidation);
+    }
+}
@@ -0,0 +1,76 @@
+package ch.vaudoise.apifactory.jmh;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.domain.CompanyClient;
+import ch.vaudoise.apifactory.client.domain.PersonClient;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.client.mapper.ClientMapper;
+import ch.vaudoise.apifactory.client.mapper.ClientMapperImpl;
+import ch.vaudoise.apifactory.contract.domain.Contract;
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import ch.vaudoise.apifactory.contract.mapper.ContractMapper;
+import ch.vaudoise.apifactory.contract.mapper.ContractMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity → DTO mapping, executed for every row returned by the read endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private final ClientMapper clientMapper = new ClientMapperImpl();
+    private final ContractMapper contractMapper = new ContractMapperImpl();
+
+    private PersonClient person;
+    private CompanyClient company;
+    private Contract contract;
+
+    @Setup
+    public void setUp() {
+        person = new PersonClient();
+        person.setId(1L);
+        person.setType(ClientType.PERSON);
+        person.setName("Jane Doe");
+        person.setEmail("jane.doe@example.com");
+        person.setPhone("+41 21 000 00 00");
+        person.setBirthdate(LocalDate.of(1990, 1, 1));
+
+        company = new CompanyClient();
+        company.setId(2L);
+        company.setType(ClientType.COMPANY);
+        company.setName("Acme SA");
+        company.setEmail("contact@acme.example");
+        company.setPhone("+41 21 000 00 01");
+        company.setCompanyIdentifier("ACM-001");
+
+        contract = new Contract();
+        contract.setId(10L);
+        contract.setClient(company);
+        contract.setEndDate(LocalDate.now().plusYears(1));
+        contract.setCostAmount(new BigDecimal("1234.50"));
+    }
+
+    @Benchmark
+    public ClientResponseDto personToDto() {
+        return clientMapper.toDto(person);
+    }
+
+    @Benchmark
+    public ClientResponseDto companyToDto() {
+        return clientMapper.toDto(company);
+    }
+
+    @Benchmark
+    public ContractResponseDto contractToDto() {
+        return contractMapper.toDto(contract);
+    }
+}
@@ -0,0 +1,92 @@
+package ch.vaudoise.apifactory.jmh;
+
+import ch.vaudoise.apifactory.ClientContractApiApplication;
+import ch.vaudoise.apifactory.common.pagination.PageResponse;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the largest bodies (a contract page, a contract batch) in JSON, CBOR and
+ * Smile, with the mappers of the application's message converters.
+ * <p>
+ * The time per operation is the CPU cost of one request body; the encoded size of each payload is
+ * printed at setup ({@code bytes on the wire}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    private static final TypeReference<List<ContractCreateDto>> BATCH = new TypeReference<>() { };
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param("500")
+    public int items;
+
+    private ObjectMapper mapper;
+    private PageResponse<ContractResponseDto> page;
+    private byte[] encodedBatch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ClientContractApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:jmh-formats;DB_CLOSE_DELAY=-1")
+                .run()) {
+            mapper = switch (format) {
+                case "json" -> context.getBean(ObjectMapper.class);
+                case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+                case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+                default -> throw new IllegalArgumentException(format);
+            };
+        }
+
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        List<ContractResponseDto> content = new ArrayList<>(items);
+        List<ContractCreateDto> batch = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            BigDecimal cost = BigDecimal.valueOf(10_000 + i * 37L, 2);
+            LocalDate end = i % 4 == 0 ? start.plusYears(1) : null;
+            content.add(new ContractResponseDto(1_000L + i, 42L, start.plusDays(i % 365), end, cost, i % 3));
+            batch.add(new ContractCreateDto(start.plusDays(i % 365), end, cost));
+        }
+        // Corps réellement envoyé par le listing : la page passe par PageResponse
+        page = PageResponse.of(new PageImpl<>(content, PageRequest.of(0, items), 10L * items));
+        encodedBatch = mapper.writeValueAsBytes(batch);
+        System.out.printf("%n%s: page of %d contracts = %d bytes, batch of %d contracts = %d bytes%n",
+                format, items, mapper.writeValueAsBytes(page).length, items, encodedBatch.length);
+    }
+
+    @Benchmark
+    public byte[] writeContractPage() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<ContractCreateDto> readContractBatch() throws IOException {
+        return mapper.readValue(encodedBatch, BATCH);
+    }
+}
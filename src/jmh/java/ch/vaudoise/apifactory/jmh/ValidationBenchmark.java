@@ -0,0 +1,79 @@
+package ch.vaudoise.apifactory.jmh;
+
+import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.domain.CompanyClient;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of client payloads: the class-level {@code ValidClientPayloadValidator}
+ * and the {@code @Pattern}/{@code @Email} constraints of {@code Client}/{@code CompanyClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory factory;
+    private Validator validator;
+
+    private ClientCreateDto validPerson;
+    private ClientCreateDto invalidCompany;
+    private CompanyClient companyEntity;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+
+        validPerson = new ClientCreateDto(ClientType.PERSON, "Jane Doe", "jane.doe@example.com",
+                "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null);
+        // Identifiant manquant (validateur de classe) + téléphone invalide (regex)
+        invalidCompany = new ClientCreateDto(ClientType.COMPANY, "Acme SA", "contact@acme.example",
+                "call me", null, null);
+
+        companyEntity = new CompanyClient();
+        companyEntity.setType(ClientType.COMPANY);
+        companyEntity.setName("Acme SA");
+        companyEntity.setEmail("contact@acme.example");
+        companyEntity.setPhone("+41 21 000 00 01");
+        companyEntity.setCompanyIdentifier("ACM-001");
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ClientCreateDto>> validPersonPayload() {
+        return validator.validate(validPerson);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ClientCreateDto>> invalidCompanyPayload() {
+        return validator.validate(invalidCompany);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CompanyClient>> companyEntity() {
+        return validator.validate(companyEntity);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Client>> phonePattern() {
+        return validator.validateValue(Client.class, "phone", "+41 21 000 00 00");
+    }
+}
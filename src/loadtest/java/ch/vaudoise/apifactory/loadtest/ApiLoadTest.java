@@ -0,0 +1,182 @@
+package ch.vaudoise.apifactory.loadtest;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test of the client and contract endpoints.
+ * <p>
+ * Boots the application on a random port with an in-memory H2 seeded with
+ * {@code loadtest.clients × loadtest.contracts} contracts, then drives the operation mix
+ * open-loop (see {@link OpenLoopDriver}). Everything runs locally, no network access needed.
+ * <p>
+ * Run with {@code mvn test -Ploadtest}; tune with
+ * {@code -Dloadtest.rate=500 -Dloadtest.duration=60s -Dloadtest.mix=get=40,list=20,...}.
+ * Reports are written to {@code target/loadtest}. Admission control is off unless
+ * {@code -Dloadtest.admission=true}: the run measures the API itself, not the shedding.
+ */
+@Tag("loadtest")
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.admission.enabled=${loadtest.admission:false}")
+class ApiLoadTest {
+
+    private static final String DEFAULT_MIX = "create=5,batch=5,get=30,list=20,sum=20,patch=15,delete=5";
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 200);
+    private static final int CONTRACTS = Integer.getInteger("loadtest.contracts", 50);
+    private static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "100"));
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+    private static final String MIX = System.getProperty("loadtest.mix", DEFAULT_MIX);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("loadtest.max-in-flight", 2_000);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ClientService clientService;
+
+    @Autowired
+    ContractService contractService;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Long> clientIds = new ArrayList<>();
+    private final List<Long> patchableContracts = new ArrayList<>();
+    private final Queue<Long> deletableContracts = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void endpointMix() throws Exception {
+        seed();
+        Map<String, Integer> weights = parseMix(MIX);
+        List<OpenLoopDriver.Operation> mix = List.of(
+                new OpenLoopDriver.Operation("create", weights.getOrDefault("create", 0), this::createClient, null),
+                new OpenLoopDriver.Operation("batch", weights.getOrDefault("batch", 0), this::createBatch, this::collectCreatedIds),
+                new OpenLoopDriver.Operation("get", weights.getOrDefault("get", 0),
+                        () -> get("/api/clients/" + randomClient()), null),
+                new OpenLoopDriver.Operation("list", weights.getOrDefault("list", 0),
+                        () -> get("/api/clients/" + randomClient() + "/contracts?page=0&size=20"), null),
+                new OpenLoopDriver.Operation("sum", weights.getOrDefault("sum", 0),
+                        () -> get("/api/clients/" + randomClient() + "/contracts/sum"), null),
+                new OpenLoopDriver.Operation("patch", weights.getOrDefault("patch", 0), this::patchCost, null),
+                new OpenLoopDriver.Operation("delete", weights.getOrDefault("delete", 0), this::deleteContract, null));
+
+        System.out.printf("Load test: %.0f req/s, warm-up %s, duration %s, mix %s%n", RATE, WARMUP, DURATION, MIX);
+        var results = new OpenLoopDriver(mix, MAX_IN_FLIGHT).run(RATE, WARMUP, DURATION, Path.of("target", "loadtest"));
+
+        // Les timeouts côté client traduisent une saturation (rapportée) ; un 5xx est un défaut
+        long serverErrors = results.values().stream().mapToLong(OpenLoopDriver.Result::serverErrors).sum();
+        assertEquals(0, serverErrors, "5xx responses, see target/loadtest/summary.txt");
+    }
+
+    private void seed() {
+        List<ContractCreateDto> items = new ArrayList<>(CONTRACTS);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < CONTRACTS; i++) {
+            // Un contrat sur cinq est déjà terminé
+            LocalDate end = i % 5 == 0 ? today.minusDays(1) : null;
+            items.add(new ContractCreateDto(today.minusYears(1), end, BigDecimal.valueOf(100 + i)));
+        }
+        for (int c = 0; c < CLIENTS; c++) {
+            Long id = clientService.create(new ClientCreateDto(ClientType.PERSON, "Load " + c,
+                    "load-" + c + "@example.com", "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null));
+            clientIds.add(id);
+            List<Long> ids = contractService.createBatch(id, items);
+            // Pools disjoints : un contrat modifié n'est jamais supprimé en parallèle
+            for (int i = 0; i < ids.size(); i++) {
+                if (i % 2 == 0) patchableContracts.add(ids.get(i));
+                else deletableContracts.add(ids.get(i));
+            }
+        }
+    }
+
+    private HttpRequest createClient() {
+        long n = sequence.incrementAndGet();
+        return post("/api/clients", """
+                {"type":"PERSON","name":"Load %d","email":"load-person-%d@example.com","phone":"+41 21 000 00 00","birthdate":"1990-01-01"}"""
+                .formatted(n, n));
+    }
+
+    private HttpRequest createBatch() {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 10; i++) {
+            body.add("{\"costAmount\":" + (100 + i) + "}");
+        }
+        return post("/api/clients/" + randomClient() + "/contracts/batch", body.toString());
+    }
+
+    private void collectCreatedIds(String body) {
+        try {
+            for (JsonNode id : json.readTree(body).path("createdIds")) {
+                deletableContracts.add(id.asLong());
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest patchCost() {
+        Long id = patchableContracts.get(ThreadLocalRandom.current().nextInt(patchableContracts.size()));
+        return request("/api/contracts/" + id + "/cost")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                        "{\"costAmount\":" + ThreadLocalRandom.current().nextInt(100, 10_000) + "}"))
+                .build();
+    }
+
+    private HttpRequest deleteContract() {
+        Long id = deletableContracts.poll();
+        return id == null ? null : request("/api/contracts/" + id).DELETE().build();
+    }
+
+    private Long randomClient() {
+        return clientIds.get(ThreadLocalRandom.current().nextInt(clientIds.size()));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            weights.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+}
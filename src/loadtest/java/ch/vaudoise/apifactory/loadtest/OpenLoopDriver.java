@@ -0,0 +1,214 @@
+package ch.vaudoise.apifactory.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop HTTP load generator.
+ * <p>
+ * Requests are issued on a fixed schedule ({@code rate} per second) whatever the response
+ * times, and latency is measured from the <em>intended</em> start time: a slow server is not
+ * allowed to slow the arrivals down and hide its queueing delay (coordinated omission).
+ * Latencies are recorded per operation in HdrHistogram {@link Recorder}s and written as:
+ * <ul>
+ *   <li>{@code latency.hlog}: one tagged interval histogram per operation and second</li>
+ *   <li>{@code <operation>.hgrm}: full percentile distribution in milliseconds</li>
+ *   <li>{@code summary.txt}: throughput and p50/p95/p99/p99.9 per operation</li>
+ * </ul>
+ */
+final class OpenLoopDriver {
+
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * One kind of request of the mix.
+     *
+     * @param name    tag of the operation in the reports
+     * @param weight  relative frequency in the mix
+     * @param request builds the next request, or returns null when nothing can be sent (skipped)
+     * @param onBody  optional callback receiving the body of successful responses
+     */
+    record Operation(String name, int weight, Supplier<HttpRequest> request, Consumer<String> onBody) { }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final List<Operation> operations;
+    private final int totalWeight;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxInFlight;
+
+    OpenLoopDriver(List<Operation> operations, int maxInFlight) {
+        this.operations = operations.stream().filter(o -> o.weight() > 0).toList();
+        this.totalWeight = this.operations.stream().mapToInt(Operation::weight).sum();
+        this.maxInFlight = maxInFlight;
+        if (totalWeight == 0) throw new IllegalArgumentException("empty operation mix");
+        this.operations.forEach(o -> stats.put(o.name(), new Stats()));
+    }
+
+    /**
+     * Drives the mix at {@code rate} requests per second for {@code warmup + duration};
+     * only requests scheduled after the warm-up are recorded.
+     *
+     * @return the per-operation results of the measured period
+     */
+    Map<String, Result> run(double rate, Duration warmup, Duration duration, Path outputDir) throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        var random = new SplittableRandom(42);
+        long interval = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (var log = new PrintStream(outputDir.resolve("latency.hlog").toFile())) {
+            var writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            var reporter = Executors.newSingleThreadScheduledExecutor();
+            reporter.scheduleAtFixedRate(() -> writeIntervals(writer), 1, 1, TimeUnit.SECONDS);
+            try {
+                for (long i = 0; ; i++) {
+                    long intended = start + i * interval;
+                    if (intended >= end) break;
+                    long wait;
+                    while ((wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    issue(pick(random), intended, intended >= measureFrom);
+                }
+                // Laisse les requêtes en vol se terminer (au plus la latence maximale mesurable)
+                long deadline = System.nanoTime() + HIGHEST_LATENCY_NANOS;
+                while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+            } finally {
+                reporter.shutdown();
+                reporter.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            writeIntervals(writer);
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        double seconds = duration.toNanos() / 1e9;
+        try (var summary = new PrintStream(outputDir.resolve("summary.txt").toFile())) {
+            String header = String.format("%-8s %9s %9s %7s %7s %7s %9s %9s %9s %9s %9s",
+                    "op", "count", "req/s", "errors", "5xx", "skipped", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+            summary.println(header);
+            System.out.println(header);
+            for (var entry : stats.entrySet()) {
+                Stats s = entry.getValue();
+                Histogram h = s.total;
+                var r = new Result(h.getTotalCount(), h.getTotalCount() / seconds,
+                        s.errors.sum(), s.serverErrors.sum(), s.skipped.sum(),
+                        ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)),
+                        ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+                results.put(entry.getKey(), r);
+                String line = String.format(Locale.ROOT, "%-8s %9d %9.1f %7d %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                        entry.getKey(), r.count(), r.throughput(), r.errors(), r.serverErrors(), r.skipped(),
+                        r.p50(), r.p95(), r.p99(), r.p999(), r.max());
+                summary.println(line);
+                System.out.println(line);
+                if (s.firstError.get() != null) {
+                    summary.println("         first error: " + s.firstError.get());
+                }
+                try (var hgrm = new PrintStream(new File(outputDir.toFile(), entry.getKey() + ".hgrm"))) {
+                    h.outputPercentileDistribution(hgrm, 1_000_000.0);
+                }
+            }
+        }
+        return results;
+    }
+
+    /** Measured results of one operation (latencies in milliseconds). */
+    record Result(long count, double throughput, long errors, long serverErrors, long skipped,
+                  double p50, double p95, double p99, double p999, double max) { }
+
+    private void issue(Operation op, long intended, boolean measured) {
+        Stats s = stats.get(op.name());
+        HttpRequest request = op.request().get();
+        if (request == null) {
+            if (measured) s.skipped.increment();
+            return;
+        }
+        if (inFlight.get() >= maxInFlight) {
+            // Client saturé : la requête est perdue, comptée comme une erreur
+            if (measured) {
+                s.errors.increment();
+                s.firstError.compareAndSet(null, "client saturated (" + maxInFlight + " requests in flight)");
+            }
+            return;
+        }
+        inFlight.incrementAndGet();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - intended;
+            inFlight.decrementAndGet();
+            boolean ok = error == null && response.statusCode() < 400;
+            if (measured) {
+                s.recorder.recordValue(Math.min(latency, HIGHEST_LATENCY_NANOS));
+                if (!ok) {
+                    s.errors.increment();
+                    if (error == null && response.statusCode() >= 500) s.serverErrors.increment();
+                    s.firstError.compareAndSet(null, error != null ? error.toString() : response.statusCode() + " " + response.body());
+                }
+            }
+            if (ok && op.onBody() != null) {
+                op.onBody().accept(response.body());
+            }
+        });
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int n = random.nextInt(totalWeight);
+        for (Operation op : operations) {
+            n -= op.weight();
+            if (n < 0) return op;
+        }
+        throw new IllegalStateException();
+    }
+
+    private synchronized void writeIntervals(HistogramLogWriter writer) {
+        stats.forEach((name, s) -> {
+            Histogram interval = s.recorder.getIntervalHistogram(s.interval);
+            s.interval = interval;
+            if (interval.getTotalCount() == 0) return;
+            interval.setTag(name);
+            writer.outputIntervalHistogram(interval);
+            s.total.add(interval);
+        });
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Stats {
+        final Recorder recorder = new Recorder(HIGHEST_LATENCY_NANOS, 3);
+        final Histogram total = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+        Histogram interval;
+    }
+}
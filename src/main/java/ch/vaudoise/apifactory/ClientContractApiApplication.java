@@ -2,6 +2,7 @@ package ch.vaudoise.apifactory;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 /**
  * Spring Boot application entry point.
  * <p>
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class ClientContractApiApplication {
 
 	public static void main(String[] args) {
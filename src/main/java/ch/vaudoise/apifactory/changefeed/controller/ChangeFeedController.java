@@ -0,0 +1,64 @@
+package ch.vaudoise.apifactory.changefeed.controller;
+
+import ch.vaudoise.apifactory.changefeed.dto.ChangeBatchDto;
+import ch.vaudoise.apifactory.changefeed.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * REST controller exposing the global change feed of clients and contracts.
+ * <p>
+ * Every mutation (including deletions) appends an event with a strictly increasing {@code seq}.
+ * Consumers remember the last {@code seq} they processed and resume from there, with a single
+ * connection instead of one poll per client.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private final ChangeFeedService service;
+
+    /**
+     * Returns the events after {@code since}.
+     * <p>
+     * With {@code waitSeconds > 0}, the request is held (long poll) until at least one event is
+     * available or the wait expires, in which case an empty batch is returned.
+     *
+     * @param since       last sequence number already processed (0 to start from the beginning)
+     * @param limit       maximum number of events
+     * @param waitSeconds maximum long-poll wait (0 = answer immediately)
+     * @return the events and the {@code nextSince} to use on the next call
+     */
+    @GetMapping
+    public DeferredResult<ChangeBatchDto> changes(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "0") long waitSeconds
+    ) {
+        return service.poll(since, limit, Duration.ofSeconds(waitSeconds));
+    }
+
+    /**
+     * Server-Sent-Events stream of the events after {@code since}.
+     * <p>
+     * Each event carries its {@code seq} as SSE id, so reconnecting clients resume with the
+     * standard {@code Last-Event-ID} header.
+     *
+     * @param since       last sequence number already processed
+     * @param lastEventId sent by SSE clients on reconnection, takes precedence over {@code since}
+     * @return the event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return service.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
@@ -0,0 +1,6 @@
+package ch.vaudoise.apifactory.changefeed.domain;
+
+public enum ChangeEntityType {
+    CLIENT,
+    CONTRACT
+}
@@ -0,0 +1,53 @@
+package ch.vaudoise.apifactory.changefeed.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entry of the append-only change log.
+ * <p>
+ * One row is written, in the same transaction, for every client or contract mutation.
+ * {@code seq} is strictly increasing and is the only ordering consumers should rely on.
+ * Deleting a client records a {@code CONTRACT DELETED} event for each of its contracts: before
+ * the {@code CLIENT DELETED} event for a single deletion, after it (as the purge progresses) for
+ * a bulk deletion, whose clients and contracts are hidden from reads from the start.
+ */
+
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "change_event",
+        indexes = {
+                @Index(name = "idx_change_event_occurred", columnList = "occurred_at"),
+                @Index(name = "idx_change_event_entity", columnList = "entity_type, entity_id")
+        }
+)
+public class ChangeEvent {
+
+    /** Numéro de séquence, attribué au commit (voir {@code ChangeLog}). */
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private ChangeEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /** Client propriétaire (le client lui-même pour un événement CLIENT). */
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeOperation operation;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,7 @@
+package ch.vaudoise.apifactory.changefeed.domain;
+
+public enum ChangeOperation {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,16 @@
+package ch.vaudoise.apifactory.changefeed.dto;
+
+import java.util.List;
+
+/**
+ * Batch of change events returned by the pull endpoint.
+ * <p>
+ * {@code nextSince} is the value to pass as {@code since} on the next call.
+ * {@code truncated} is true when events after {@code since} were already removed by retention:
+ * the consumer missed changes and must resynchronize (e.g. from the export endpoints).
+ */
+public record ChangeBatchDto(
+        List<ChangeEventDto> events,
+        long nextSince,
+        boolean truncated
+) { }
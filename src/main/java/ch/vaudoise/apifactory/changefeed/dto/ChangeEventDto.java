@@ -0,0 +1,18 @@
+package ch.vaudoise.apifactory.changefeed.dto;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of one change-log entry.
+ */
+public record ChangeEventDto(
+        long seq,
+        ChangeEntityType entityType,
+        Long entityId,
+        Long clientId,
+        ChangeOperation operation,
+        LocalDateTime occurredAt
+) { }
@@ -0,0 +1,13 @@
+package ch.vaudoise.apifactory.changefeed.mapper;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEvent;
+import ch.vaudoise.apifactory.changefeed.dto.ChangeEventDto;
+import org.mapstruct.Mapper;
+
+/**
+ * Maps {@code ChangeEvent} entities to DTOs.
+ */
+@Mapper(componentModel = "spring")
+public interface ChangeEventMapper {
+    ChangeEventDto toDto(ChangeEvent e);
+}
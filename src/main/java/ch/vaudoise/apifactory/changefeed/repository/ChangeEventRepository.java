@@ -0,0 +1,48 @@
+package ch.vaudoise.apifactory.changefeed.repository;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data repository for the change log.
+ */
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    /** Events with {@code since < seq <= upTo}, in sequence order. */
+    @Query("SELECT e FROM ChangeEvent e WHERE e.seq > :since AND e.seq <= :upTo ORDER BY e.seq")
+    List<ChangeEvent> findRange(@Param("since") long since, @Param("upTo") long upTo, Limit limit);
+
+    /** Oldest sequence number still retained (null when the log is empty). */
+    @Query("SELECT MIN(e.seq) FROM ChangeEvent e")
+    Long findOldestSeq();
+
+    /** Oldest events older than {@code cutoff}, used by the retention job. */
+    @Query("SELECT e.seq FROM ChangeEvent e WHERE e.occurredAt < :cutoff ORDER BY e.seq")
+    List<Long> findSeqOlderThan(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ChangeEvent e WHERE e.seq IN :seqs")
+    int deleteBySeqIn(@Param("seqs") Collection<Long> seqs);
+
+    /**
+     * Compaction: removes UPDATED events older than {@code cutoff} that are superseded by a later
+     * event of the same entity (consumers only need the latest state).
+     */
+    @Modifying
+    @Query("""
+      DELETE FROM ChangeEvent e
+      WHERE e.operation = ch.vaudoise.apifactory.changefeed.domain.ChangeOperation.UPDATED
+        AND e.occurredAt < :cutoff
+        AND EXISTS (SELECT 1 FROM ChangeEvent n
+                    WHERE n.entityType = e.entityType AND n.entityId = e.entityId AND n.seq > e.seq)
+    """)
+    int compactSupersededUpdates(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,39 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Retention and compaction of the change log.
+ * <ul>
+ *   <li>Events older than {@code app.change-feed.retention} are deleted, chunk by chunk</li>
+ *   <li>UPDATED events older than {@code app.change-feed.compact-after} that were superseded
+ *       by a later event of the same entity are removed</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedJobs {
+
+    private final ChangeFeedService feed;
+    private final ChangeFeedProperties properties;
+
+    @Scheduled(cron = "${app.change-feed.cleanup-cron:0 15 3 * * *}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime retentionCutoff = now.minus(properties.retention());
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = feed.purgeOlderThan(retentionCutoff, properties.cleanupChunk());
+            purged += deleted;
+        } while (deleted > 0);
+        int compacted = feed.compact(now.minus(properties.compactAfter()));
+        log.info("Change feed cleanup: {} expired and {} superseded event(s) removed", purged, compacted);
+    }
+}
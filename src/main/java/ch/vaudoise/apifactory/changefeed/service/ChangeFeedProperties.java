@@ -0,0 +1,28 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the change feed ({@code app.change-feed.*}).
+ *
+ * @param maxBatchSize  maximum number of events returned per pull / pushed per SSE round
+ * @param maxWait       maximum long-poll wait
+ * @param sseTimeout    lifetime of an SSE connection (clients reconnect with {@code Last-Event-ID})
+ * @param heartbeat     interval of SSE keep-alive comments
+ * @param retention     age after which events are deleted
+ * @param compactAfter  age after which superseded UPDATED events are compacted away
+ * @param cleanupChunk  number of events deleted per retention transaction
+ */
+@ConfigurationProperties(prefix = "app.change-feed")
+public record ChangeFeedProperties(
+        @DefaultValue("500") int maxBatchSize,
+        @DefaultValue("30s") Duration maxWait,
+        @DefaultValue("30m") Duration sseTimeout,
+        @DefaultValue("15s") Duration heartbeat,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("1d") Duration compactAfter,
+        @DefaultValue("5000") int cleanupChunk
+) { }
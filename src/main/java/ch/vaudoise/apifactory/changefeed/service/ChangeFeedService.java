@@ -0,0 +1,39 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import ch.vaudoise.apifactory.changefeed.dto.ChangeBatchDto;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Application service exposing the global change feed.
+ * <p>
+ * Consumers keep the last {@code seq} they processed and ask for what follows, either by
+ * pulling batches, by long-polling, or through a Server-Sent-Events stream.
+ */
+public interface ChangeFeedService {
+
+    /** Returns the events after {@code since} (at most {@code limit}, capped by configuration). */
+    ChangeBatchDto read(long since, int limit);
+
+    /**
+     * Long-poll variant of {@link #read}: completes as soon as events after {@code since} are
+     * available, or with an empty batch after {@code wait}.
+     */
+    DeferredResult<ChangeBatchDto> poll(long since, int limit, Duration wait);
+
+    /** Opens an SSE stream pushing every event after {@code since}, with periodic keep-alives. */
+    SseEmitter subscribe(long since);
+
+    /**
+     * Deletes up to {@code chunkSize} events older than {@code cutoff}.
+     *
+     * @return the number of deleted events
+     */
+    int purgeOlderThan(LocalDateTime cutoff, int chunkSize);
+
+    /** Deletes UPDATED events older than {@code cutoff} superseded by a later event of the same entity. */
+    int compact(LocalDateTime cutoff);
+}
@@ -0,0 +1,204 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import ch.vaudoise.apifactory.changefeed.dto.ChangeBatchDto;
+import ch.vaudoise.apifactory.changefeed.dto.ChangeEventDto;
+import ch.vaudoise.apifactory.changefeed.mapper.ChangeEventMapper;
+import ch.vaudoise.apifactory.changefeed.repository.ChangeEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of {@link ChangeFeedService}.
+ * <p>
+ * Pending long polls and SSE subscribers are served by a single dispatcher thread, woken up
+ * after every transaction that wrote change events and once per second (heartbeats, and in case
+ * a gap closed without a commit). Reads never go past {@link ChangeLog#visibleUpTo()}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private final ChangeEventRepository repository;
+    private final ChangeEventMapper mapper;
+    private final ChangeLog changeLog;
+    private final ChangeFeedProperties properties;
+
+    private final ScheduledExecutorService dispatcher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("change-feed-"));
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Queue<Subscriber> subscribers = new ConcurrentLinkedQueue<>();
+    /** Events below this sequence may have been removed by retention (0 = unknown yet). */
+    private final AtomicLong retainedFrom = new AtomicLong();
+    private volatile long lastHeartbeat = System.nanoTime();
+
+    @PostConstruct
+    void start() {
+        dispatcher.scheduleWithFixedDelay(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(s -> s.emitter().complete());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ChangeBatchDto read(long since, int limit) {
+        int size = Math.min(Math.max(limit, 1), properties.maxBatchSize());
+        long upTo = changeLog.visibleUpTo();
+        List<ChangeEventDto> events = since >= upTo
+                ? List.of()
+                : repository.findRange(since, upTo, Limit.of(size)).stream().map(mapper::toDto).toList();
+        long next = events.isEmpty() ? since : events.get(events.size() - 1).seq();
+        return new ChangeBatchDto(events, next, since + 1 < retainedFrom());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DeferredResult<ChangeBatchDto> poll(long since, int limit, Duration wait) {
+        Duration timeout = wait.compareTo(properties.maxWait()) > 0 ? properties.maxWait() : wait;
+        ChangeBatchDto batch = read(since, limit);
+        var result = new DeferredResult<ChangeBatchDto>(Math.max(timeout.toMillis(), 1), batch);
+        if (!batch.events().isEmpty() || timeout.isZero() || timeout.isNegative()) {
+            result.setResult(batch);
+            return result;
+        }
+        var waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SseEmitter subscribe(long since) {
+        var emitter = new SseEmitter(properties.sseTimeout().toMillis());
+        var subscriber = new Subscriber(emitter, new AtomicLong(since));
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        signal();
+        return emitter;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public int purgeOlderThan(LocalDateTime cutoff, int chunkSize) {
+        List<Long> seqs = repository.findSeqOlderThan(cutoff, Limit.of(chunkSize));
+        if (seqs.isEmpty()) return 0;
+        int deleted = repository.deleteBySeqIn(seqs);
+        retainedFrom.accumulateAndGet(seqs.get(seqs.size() - 1) + 1, Math::max);
+        return deleted;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public int compact(LocalDateTime cutoff) {
+        return repository.compactSupersededUpdates(cutoff);
+    }
+
+    /** Wakes the dispatcher up once changes have been committed. */
+    @EventListener
+    void onChangesCompleted(ChangeLog.ChangesCompleted event) {
+        signal();
+    }
+
+    private long retainedFrom() {
+        long value = retainedFrom.get();
+        if (value == 0) {
+            // Au démarrage : la plus ancienne séquence conservée (log vide → rien de perdu)
+            Long oldest = repository.findOldestSeq();
+            value = oldest != null ? oldest : 1;
+            retainedFrom.compareAndSet(0, value);
+        }
+        return value;
+    }
+
+    private void signal() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void tick() {
+        if (System.nanoTime() - lastHeartbeat >= properties.heartbeat().toNanos()) {
+            lastHeartbeat = System.nanoTime();
+            for (Subscriber s : subscribers) {
+                try {
+                    s.emitter().send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(s);
+                }
+            }
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        dispatchPending.set(false);
+        try {
+            long head = changeLog.visibleUpTo();
+            for (Waiter w : waiters) {
+                if (w.since() < head) {
+                    w.result().setResult(read(w.since(), w.limit()));
+                    waiters.remove(w); // sans attendre le callback de fin de requête
+                }
+            }
+            for (Subscriber s : subscribers) {
+                if (s.cursor().get() < head) push(s);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change feed dispatch failed", e);
+        }
+    }
+
+    private void push(Subscriber s) {
+        try {
+            ChangeBatchDto batch;
+            do {
+                batch = read(s.cursor().get(), properties.maxBatchSize());
+                if (batch.truncated()) {
+                    s.emitter().send(SseEmitter.event().name("truncated").data(s.cursor().get()));
+                }
+                for (ChangeEventDto e : batch.events()) {
+                    s.emitter().send(SseEmitter.event().id(Long.toString(e.seq())).name("change").data(e));
+                }
+                s.cursor().set(batch.nextSince());
+            } while (batch.events().size() == properties.maxBatchSize());
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(s);
+            s.emitter().completeWithError(e);
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<ChangeBatchDto> result) { }
+
+    private record Subscriber(SseEmitter emitter, AtomicLong cursor) { }
+}
@@ -0,0 +1,135 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Writes the append-only change log in the transaction of the mutation being recorded.
+ * <p>
+ * Events are buffered per transaction and inserted in one JDBC batch right before commit.
+ * Sequence numbers are allocated at that moment, in-process: the H2 database is embedded, so
+ * this JVM is the only writer. Sequences of transactions that have not completed yet are tracked,
+ * so that {@link #visibleUpTo()} never exposes a sequence while a lower one may still commit:
+ * consumers reading {@code since=N} can therefore never skip an event.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeLog {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO change_event (seq, entity_type, entity_id, client_id, operation, occurred_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher publisher;
+
+    private long lastAllocated = -1;                      // dernier numéro attribué
+    private final TreeSet<Long> inFlight = new TreeSet<>(); // premiers numéros des transactions en cours
+
+    /** Published after a transaction that wrote change events has completed. */
+    public record ChangesCompleted(boolean committed) { }
+
+    /** Records one change. Must be called inside a transaction. */
+    public void record(ChangeEntityType type, Long entityId, Long clientId, ChangeOperation operation) {
+        buffer().add(new Pending(type, entityId, clientId, operation));
+    }
+
+    /** Records the same change for several entities of one client. Must be called inside a transaction. */
+    public void recordAll(ChangeEntityType type, List<Long> entityIds, Long clientId, ChangeOperation operation) {
+        List<Pending> buffer = buffer();
+        for (Long id : entityIds) {
+            buffer.add(new Pending(type, id, clientId, operation));
+        }
+    }
+
+    /** Highest sequence number that consumers may read without risking a gap. */
+    public synchronized long visibleUpTo() {
+        initialize();
+        return inFlight.isEmpty() ? lastAllocated : inFlight.first() - 1;
+    }
+
+    private synchronized long allocate(int count) {
+        initialize();
+        long first = lastAllocated + 1;
+        lastAllocated += count;
+        inFlight.add(first);
+        return first;
+    }
+
+    private synchronized void release(long first) {
+        inFlight.remove(first);
+    }
+
+    private void initialize() {
+        if (lastAllocated < 0) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM change_event", Long.class);
+            lastAllocated = max != null ? max : 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Pending> buffer() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change events must be recorded inside a transaction");
+        }
+        var buffer = (List<Pending>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            List<Pending> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new Flush(created));
+            buffer = created;
+        }
+        return buffer;
+    }
+
+    private record Pending(ChangeEntityType type, Long entityId, Long clientId, ChangeOperation operation) { }
+
+    /** Inserts the buffered events before commit and releases their sequence range afterwards. */
+    private final class Flush implements TransactionSynchronization {
+
+        private final List<Pending> buffer;
+        private Long first;
+
+        private Flush(List<Pending> buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (buffer.isEmpty()) return;
+            first = allocate(buffer.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            long[] next = {first};
+            jdbcTemplate.batchUpdate(INSERT_SQL, buffer, 500, (ps, e) -> {
+                ps.setLong(1, next[0]++);
+                ps.setString(2, e.type().name());
+                ps.setLong(3, e.entityId());
+                ps.setLong(4, e.clientId());
+                ps.setString(5, e.operation().name());
+                ps.setTimestamp(6, now);
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLog.this);
+            if (first != null) {
+                release(first);
+                publisher.publishEvent(new ChangesCompleted(status == STATUS_COMMITTED));
+            }
+        }
+    }
+}
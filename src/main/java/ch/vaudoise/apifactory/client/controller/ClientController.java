@@ -1,19 +1,28 @@
 package ch.vaudoise.apifactory.client.controller;
 
-import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
-import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
-import ch.vaudoise.apifactory.client.dto.ClientUpdateDto;
+import ch.vaudoise.apifactory.client.dto.*;
 import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.admission.Admission;
+import ch.vaudoise.apifactory.common.admission.AdmissionControl;
+import ch.vaudoise.apifactory.common.admission.EndpointClass;
+import ch.vaudoise.apifactory.common.export.ExportFormat;
+import ch.vaudoise.apifactory.common.export.StreamingExporter;
+import ch.vaudoise.apifactory.common.idempotency.IdempotencyStore;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
+import ch.vaudoise.apifactory.common.web.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 /**
@@ -21,6 +30,11 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
  * <p>
  * Handles creation, retrieval, update, and deletion, plus batch operations.
  * Validation is performed via Jakarta Validation, and all errors are handled centrally.
+ * Creations accept an {@code Idempotency-Key} header: a retry with the same key gets the response
+ * of the first request back instead of creating the clients again (see {@link IdempotencyStore}).
+ * Endpoints annotated with {@link Admission} are rate-limited and capped per endpoint class
+ * ({@code 429} / {@code 503} with {@code Retry-After}); batches are limited to
+ * {@code app.admission.max-batch-items} items ({@code 413}).
  */
 @Validated
 @RestController
@@ -29,6 +43,9 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
 public class ClientController {
 
     private final ClientService service;
+    private final StreamingExporter exporter;
+    private final IdempotencyStore idempotency;
+    private final AdmissionControl admission;
 
 
     /**
@@ -41,40 +58,108 @@ public class ClientController {
      *   <li>Email must be unique</li>
      * </ul>
      *
-     * @param dto payload describing the client to create
+     * @param dto            payload describing the client to create
+     * @param idempotencyKey optional key identifying the request across retries
      * @return {@code 201 Created} with a {@code Location} header to the new resource
      */
+    @Admission(EndpointClass.WRITE)
     @PostMapping
-    public ResponseEntity<Void> create(@Valid @RequestBody ClientCreateDto dto) {
-        Long id = service.create(dto);
-        return ResponseEntity.created(URI.create("/api/clients/" + id)).build();
+    public ResponseEntity<?> create(@Valid @RequestBody ClientCreateDto dto,
+                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "POST /api/clients", dto, () -> {
+            Long id = service.create(dto);
+            return ResponseEntity.created(URI.create("/api/clients/" + id)).build();
+        });
     }
 
     /**
      * Batch-create multiple clients in a single request.
      * <p>
-     * The operation is transactional: if one element is invalid,
-     * the entire batch is rolled back.
+     * Every element is validated before anything is written, and all errors are reported at once
+     * (with the index of the element). By default the operation is atomic: if one element is
+     * invalid, none is created ({@code 400}, or {@code 409} when all errors are duplicates).
+     * With {@code atomic=false} the valid elements are created and the response lists the status
+     * of each element.
      *
-     * @param clients list of client payloads to create
-     * @return {@code 201 Created}
+     * @param clients        list of client payloads to create
+     * @param atomic         all-or-nothing (default) or partial success
+     * @param idempotencyKey optional key identifying the request across retries
+     * @return {@code 201 Created} with a body listing created ids, or {@code 200 OK} with the
+     *         per-element statuses when {@code atomic=false}
      */
+    @Admission(EndpointClass.BATCH)
     @PostMapping("/batch")
-    public ResponseEntity<Void> createMany(@RequestBody List<@Valid ClientCreateDto> clients) {
-        clients.forEach(service::create);
-        return ResponseEntity.status(201).build();
+    public ResponseEntity<?> createMany(@RequestBody List<ClientCreateDto> clients,
+                                        @RequestParam(defaultValue = "true") boolean atomic,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        admission.checkBatchSize(clients.size());
+        return idempotency.execute(idempotencyKey, "POST /api/clients/batch?atomic=" + atomic, clients, () -> {
+            if (!atomic) {
+                return ResponseEntity.ok(service.createMany(clients, false));
+            }
+            List<Long> ids = service.createMany(clients);
+            return ResponseEntity.status(201).body(Map.of("createdIds", ids));
+        });
     }
 
     /**
      * Retrieves a client by its identifier.
      *
      * @param id client identifier
-     * @return {@link ClientResponseDto} representing the full client
+     * @return {@link ClientResponseDto} representing the full client, with its version as {@code ETag}
+     *         ({@code 304 Not Modified} when it matches {@code If-None-Match})
      * @throws ChangeSetPersister.NotFoundException if the client does not exist
      */
     @GetMapping("/{id}")
-    public ClientResponseDto get(@PathVariable Long id) {
-        return service.get(id);
+    public ResponseEntity<ClientResponseDto> get(@PathVariable Long id) {
+        var client = service.get(id);
+        return ResponseEntity.ok().eTag(ETags.of(client.version())).body(client);
+    }
+
+    /**
+     * Searches clients, ordered by name, with keyset (cursor) pagination.
+     * <p>
+     * Criteria (all optional, combined with AND):
+     * <ul>
+     *   <li>{@code name}: name prefix, case- and accent-insensitive (typeahead)</li>
+     *   <li>{@code email}, {@code phone}: prefix</li>
+     *   <li>{@code type}, {@code companyIdentifier}: exact match</li>
+     *   <li>{@code q}: words contained in the name or email (full-text index)</li>
+     * </ul>
+     *
+     * @param criteria search criteria, bound from the query string
+     * @param cursor   opaque token returned as {@code nextCursor} by the previous page
+     * @param size     page size (max {@code app.client-search.max-page-size})
+     * @return the page items and the cursor of the next page ({@code null} on the last page)
+     */
+    @Admission(EndpointClass.LIST)
+    @GetMapping
+    public CursorPage<ClientResponseDto> search(@Valid ClientSearchDto criteria,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "20") int size) {
+        return service.search(criteria, cursor, size);
+    }
+
+    /**
+     * Streams all clients as NDJSON, CSV, CBOR or Smile, with a flat memory footprint.
+     *
+     * @param format {@code ndjson} (default), {@code csv}, {@code cbor} or {@code smile}
+     * @return the streamed export
+     */
+    @Admission(EndpointClass.EXPORT)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        return exporter.export(ExportFormat.of(format), ClientResponseDto.class, "clients", service::exportAll);
+    }
+
+    /**
+     * Exposes the counters of the client read cache (hits, misses, evictions).
+     *
+     * @return current cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ClientCacheStatsDto cacheStats() {
+        return service.cacheStats();
     }
 
     /**
@@ -83,13 +168,17 @@ public class ClientController {
      * Immutable fields (birthdate and companyIdentifier) are not exposed
      * in the {@link ClientUpdateDto}.
      *
-     * @param id  client identifier
-     * @param dto payload containing new values for mutable fields
-     * @return updated {@link ClientResponseDto}
+     * @param id      client identifier
+     * @param dto     payload containing new values for mutable fields
+     * @param ifMatch optional ETag of the version the update is based on ({@code 412} if outdated)
+     * @return updated {@link ClientResponseDto} with its new {@code ETag}
      */
+    @Admission(value = EndpointClass.WRITE, clientId = "id")
     @PutMapping("/{id}")
-    public ClientResponseDto update(@PathVariable Long id, @Valid @RequestBody ClientUpdateDto dto) {
-        return service.update(id, dto);
+    public ResponseEntity<ClientResponseDto> update(@PathVariable Long id, @Valid @RequestBody ClientUpdateDto dto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var client = service.update(id, dto, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(client.version())).body(client);
     }
 
     /**
@@ -106,9 +195,39 @@ public class ClientController {
      * @param id client identifier
      * @return {@code 204 No Content}
      */
+    @Admission(value = EndpointClass.WRITE, clientId = "id")
     @DeleteMapping("/{id}")
     @ResponseStatus(NO_CONTENT)
     public void delete(@PathVariable Long id) {
         service.delete(id);
     }
+
+    /**
+     * Deletes a set of clients, selected by {@code ids} or by {@code filter}.
+     * <p>
+     * The clients disappear from every read as soon as the request returns; their contracts
+     * and rows are purged asynchronously, in bounded chunks, by a background job.
+     *
+     * @param dto either an id list or a filter (type, email domain, creation date)
+     * @return {@code 202 Accepted} with the purge job and a {@code Location} header to follow its progress
+     */
+    @Admission(EndpointClass.BATCH)
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ClientPurgeJobDto> deleteMany(@Valid @RequestBody ClientBulkDeleteDto dto) {
+        ClientPurgeJobDto job = service.deleteMany(dto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/clients/bulk-delete/" + job.id()))
+                .body(job);
+    }
+
+    /**
+     * Progress of the purge started by a bulk deletion.
+     *
+     * @param jobId purge job identifier
+     * @return status and counters of clients and contracts purged so far
+     */
+    @GetMapping("/bulk-delete/{jobId}")
+    public ClientPurgeJobDto purgeJob(@PathVariable Long jobId) {
+        return service.purgeJob(jobId);
+    }
 }
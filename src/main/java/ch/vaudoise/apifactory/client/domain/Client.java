@@ -6,24 +6,53 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.text.Normalizer;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 
 /**
  * Base entity for clients (both PERSON and COMPANY).
  * <p>
  * Uses inheritance to map subtype-specific attributes into dedicated tables.
- * Includes audit fields ({@code createdAt}, {@code updatedAt}).
+ * Includes audit fields ({@code createdAt}, {@code updatedAt}) and an optimistic-locking {@code version}.
+ * Bulk deletion is logical first ({@code deletedAt}): soft-deleted rows are filtered out of every
+ * JPQL query and lookup by id, until the purge job removes them together with their contracts.
+ * {@code nameKey} is the normalized name (lower case, no accents) used by the indexed search.
+ * The hierarchy is held in the Hibernate second-level cache (region {@code client}) when enabled
+ * (profile {@code prod}); the native soft-delete and purge statements evict it.
  */
 
 @Getter
 @Setter
 @Entity
+@Table(
+        name = "client",
+        indexes = {
+                @Index(name = "idx_client_purge_job", columnList = "purge_job_id"),
+                // Recherche : préfixe de nom (typeahead) et tri keyset (name_key, id)
+                @Index(name = "idx_client_name_key", columnList = "name_key, id"),
+                @Index(name = "idx_client_type_name_key", columnList = "type, name_key, id"),
+                @Index(name = "idx_client_phone", columnList = "phone")
+        }
+)
+@SQLRestriction("deleted_at IS NULL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "client") // actif avec le profil prod
 @Inheritance(strategy = InheritanceType.JOINED) // une table par sous-classe
 public abstract class Client {
 
+    /** Diacritiques isolés par la décomposition NFD (é -> e + accent). */
+    private static final java.util.regex.Pattern COMBINING_MARKS = java.util.regex.Pattern.compile("\\p{M}+");
+
+    /** Identifiant alloué par séquence (pooled) pour permettre les INSERT en lots JDBC. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "client_seq")
+    @SequenceGenerator(name = "client_seq", sequenceName = "client_seq", allocationSize = 50)
     private Long id;
 
     /** Discriminator for client type (PERSON or COMPANY). */
@@ -35,6 +64,10 @@ public abstract class Client {
     @Column(nullable = false)
     private String name;
 
+    /** Nom normalisé (minuscules, sans accents), clé de la recherche par préfixe et du tri keyset. */
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
     @Email
     @Column(nullable = false, unique = true)
     private String email;
@@ -51,8 +84,36 @@ public abstract class Client {
     @Column(nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    /**
+     * Version (verrouillage optimiste) : exposée en ETag, comparée à {@code If-Match} sur PUT.
+     * Valeur par défaut en base pour les lignes existantes lors de l'ajout de la colonne.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    /** Suppression logique (suppression en masse) : la ligne attend sa purge. */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    /** Tâche de purge chargée de supprimer ce client et ses contrats. */
+    @Column(name = "purge_job_id")
+    private Long purgeJobId;
+
+    @PrePersist
+    void onCreate() {
+        this.nameKey = searchKey(name);
+    }
+
     @PreUpdate
     void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        this.nameKey = searchKey(name);
+    }
+
+    /** Normalizes a name (or a typed prefix) the way {@code nameKey} is stored. */
+    public static String searchKey(String value) {
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,50 @@
+package ch.vaudoise.apifactory.client.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous purge of the clients soft-deleted by one bulk deletion request.
+ * <p>
+ * The clients point to their job ({@code Client.purgeJobId}); the purge worker deletes their
+ * contracts, then the clients themselves, in bounded chunks and updates the counters after each one.
+ */
+
+@Getter
+@Setter
+@Entity
+@Table(name = "client_purge_job")
+public class ClientPurgeJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ClientPurgeStatus status = ClientPurgeStatus.PENDING;
+
+    /** Nombre de clients supprimés logiquement par la requête. */
+    @Column(name = "client_count", nullable = false)
+    private long clientCount;
+
+    /** Clients définitivement supprimés jusqu'ici. */
+    @Column(name = "purged_clients", nullable = false)
+    private long purgedClients;
+
+    /** Contrats définitivement supprimés jusqu'ici. */
+    @Column(name = "purged_contracts", nullable = false)
+    private long purgedContracts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
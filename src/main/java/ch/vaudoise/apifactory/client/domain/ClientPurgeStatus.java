@@ -0,0 +1,13 @@
+package ch.vaudoise.apifactory.client.domain;
+
+/**
+ * Lifecycle of a {@link ClientPurgeJob}.
+ */
+public enum ClientPurgeStatus {
+    /** Clients soft-deleted, purge not started yet. */
+    PENDING,
+    /** Contracts, then clients, are being deleted chunk by chunk. */
+    RUNNING,
+    /** Every client of the job and all its contracts have been deleted. */
+    DONE
+}
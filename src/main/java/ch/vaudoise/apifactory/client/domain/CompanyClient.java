@@ -6,11 +6,13 @@ import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Locale;
 
 /**
  * Client subtype representing a company.
  * <p>
- * Adds a {@code companyIdentifier} attribute required for COMPANY clients.
+ * Adds a {@code companyIdentifier} attribute required for COMPANY clients, stored in upper case
+ * (see {@link #normalizeIdentifier(String)}).
  */
 
 @Getter
@@ -21,4 +23,9 @@ public class CompanyClient extends Client {
     @Pattern(regexp = "^[A-Z]{3}-\\d{3}$")
     @Column(nullable = false, unique = true)
     private String companyIdentifier; // immuable after the creation
+
+    /** Normalizes a company identifier (or a searched one) the way it is stored. */
+    public static String normalizeIdentifier(String value) {
+        return value == null ? null : value.strip().toUpperCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,16 @@
+package ch.vaudoise.apifactory.client.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Request payload of a bulk client deletion.
+ * <p>
+ * Exactly one of {@code ids} (explicit list) or {@code filter} (set-based selection) must be given.
+ */
+public record ClientBulkDeleteDto(
+        List<@NotNull Long> ids,
+        @Valid ClientDeleteFilterDto filter
+) { }
@@ -0,0 +1,13 @@
+package ch.vaudoise.apifactory.client.dto;
+
+/**
+ * Counters of the in-process client cache.
+ */
+public record ClientCacheStatsDto(
+        boolean enabled,
+        long size,
+        long hits,
+        long misses,
+        long evictions,
+        double hitRate
+) { }
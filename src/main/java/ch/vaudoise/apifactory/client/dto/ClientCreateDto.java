@@ -1,6 +1,7 @@
 package ch.vaudoise.apifactory.client.dto;
 
 import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.domain.CompanyClient;
 import ch.vaudoise.apifactory.client.validation.ValidClientPayload;
 import jakarta.validation.constraints.*;
 
@@ -14,7 +15,8 @@ import java.time.LocalDate;
  *   <li>PERSON requires {@code birthdate}</li>
  *   <li>COMPANY requires {@code companyIdentifier}</li>
  * </ul>
- * Field-level constraints are enforced via Jakarta Validation.
+ * Field-level constraints are enforced via Jakarta Validation. {@code companyIdentifier} is
+ * normalized to upper case on construction, before validation and uniqueness checks.
  */
 
 @ValidClientPayload
@@ -28,4 +30,8 @@ public record ClientCreateDto(
         @PastOrPresent LocalDate birthdate,
         /** Needed if type=COMPANY*/
         @Pattern(regexp = "^[A-Z]{3}-\\d{3}$") String companyIdentifier
-) { }
+) {
+    public ClientCreateDto {
+        companyIdentifier = CompanyClient.normalizeIdentifier(companyIdentifier);
+    }
+}
@@ -0,0 +1,22 @@
+package ch.vaudoise.apifactory.client.dto;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import jakarta.validation.constraints.Pattern;
+
+import java.time.LocalDateTime;
+
+/**
+ * Set-based selection of the clients to delete; every non-null criterion must match.
+ * <p>
+ * {@code emailDomain} is the part of the email after {@code @} (e.g. {@code broker.ch}).
+ */
+public record ClientDeleteFilterDto(
+        ClientType type,
+        @Pattern(regexp = "^[A-Za-z0-9.\\-]+$") String emailDomain,
+        LocalDateTime createdBefore
+) {
+    /** True when no criterion is set (such a filter would select every client). */
+    public boolean isEmpty() {
+        return type == null && emailDomain == null && createdBefore == null;
+    }
+}
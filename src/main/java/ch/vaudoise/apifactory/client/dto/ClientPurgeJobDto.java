@@ -0,0 +1,19 @@
+package ch.vaudoise.apifactory.client.dto;
+
+import ch.vaudoise.apifactory.client.domain.ClientPurgeStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the asynchronous purge started by a bulk client deletion.
+ */
+public record ClientPurgeJobDto(
+        Long id,
+        ClientPurgeStatus status,
+        long clientCount,
+        long purgedClients,
+        long purgedContracts,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+) { }
@@ -20,5 +20,6 @@ public record ClientResponseDto(
         LocalDate birthdate,        // Null if company
         String companyIdentifier,   // Null if person
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        long version                // Also sent as ETag
 ) { }
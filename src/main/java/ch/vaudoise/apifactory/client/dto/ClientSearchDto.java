@@ -0,0 +1,22 @@
+package ch.vaudoise.apifactory.client.dto;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Criteria of the client search ({@code GET /api/clients}); every non-null criterion must match.
+ * <ul>
+ *   <li>{@code name}: prefix, case- and accent-insensitive (typeahead)</li>
+ *   <li>{@code email}, {@code phone}: prefix, as stored</li>
+ *   <li>{@code type}, {@code companyIdentifier}: exact match</li>
+ *   <li>{@code q}: full-text words in name or email (all words must be present)</li>
+ * </ul>
+ */
+public record ClientSearchDto(
+        @Size(max = 100) String name,
+        @Size(max = 100) String email,
+        @Size(max = 30) String phone,
+        ClientType type,
+        @Size(max = 20) String companyIdentifier,
+        @Size(max = 200) String q
+) { }
@@ -1,8 +1,10 @@
 package ch.vaudoise.apifactory.client.mapper;
 
 import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientPurgeJob;
 import ch.vaudoise.apifactory.client.domain.CompanyClient;
 import ch.vaudoise.apifactory.client.domain.PersonClient;
+import ch.vaudoise.apifactory.client.dto.ClientPurgeJobDto;
 import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -22,4 +24,6 @@ public interface ClientMapper {
     @Mapping(target = "companyIdentifier",
             expression = "java(client instanceof CompanyClient cc ? cc.getCompanyIdentifier() : null)")
     ClientResponseDto toDto(Client client);
+
+    ClientPurgeJobDto toDto(ClientPurgeJob job);
 }
@@ -0,0 +1,17 @@
+package ch.vaudoise.apifactory.client.repository;
+
+import ch.vaudoise.apifactory.client.domain.ClientPurgeJob;
+import ch.vaudoise.apifactory.client.domain.ClientPurgeStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data repository for {@code ClientPurgeJob} entities.
+ */
+public interface ClientPurgeJobRepository extends JpaRepository<ClientPurgeJob, Long> {
+
+    /** Jobs still to be (or being) purged, oldest first. */
+    List<ClientPurgeJob> findByStatusInOrderById(Collection<ClientPurgeStatus> statuses);
+}
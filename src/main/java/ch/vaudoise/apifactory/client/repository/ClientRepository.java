@@ -1,16 +1,117 @@
 package ch.vaudoise.apifactory.client.repository;
 
 import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Spring Data repository for {@code Client} entities.
  * <p>
  * Inherits standard CRUD operations and provides lookups by natural keys (e.g., email).
+ * JPQL queries never see soft-deleted clients ({@code @SQLRestriction} on {@link Client});
+ * the purge queries are therefore native. Each native write declares the table it touches
+ * ({@link HibernateHints#HINT_NATIVE_SPACES}): without it Hibernate would evict every second-level
+ * and query cache region, not only those of the client hierarchy.
  */
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientSearchRepository {
     /** Finds a client by unique email. */
     Optional<Client> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    /**
+     * Read-only view of one client, built by the query itself: no entity is hydrated, nothing enters
+     * the persistence context. The polymorphic query already left-joins both subclass tables,
+     * {@code TREAT} only selects their columns (null for the other subtype).
+     */
+    @Query("""
+      SELECT new ch.vaudoise.apifactory.client.dto.ClientResponseDto(
+               c.id, c.type, c.name, c.email, c.phone,
+               TREAT(c AS PersonClient).birthdate, TREAT(c AS CompanyClient).companyIdentifier,
+               c.createdAt, c.updatedAt, c.version)
+      FROM Client c
+      WHERE c.id = :id
+    """)
+    Optional<ClientResponseDto> findViewById(@Param("id") Long id);
+
+    /** Returns, among the given emails, those already used by a client (single IN lookup). */
+    @Query("SELECT c.email FROM Client c WHERE c.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Forward-only stream of all clients (single polymorphic query over the JOINED tables).
+     * <p>
+     * Must be consumed inside a transaction and closed; callers detach rows once mapped.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Client c ORDER BY c.id")
+    Stream<Client> streamForExport();
+
+    // --- Suppression en masse : sélection ensembliste, suppression logique puis purge ---
+
+    /** Returns, among the given ids, those of clients that exist and are not deleted. */
+    @Query("SELECT c.id FROM Client c WHERE c.id IN :ids")
+    List<Long> findLiveIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Ids of the live clients matching every non-null criterion, in id order.
+     * <p>
+     * {@code emailDomain} matches the part after {@code @} (e.g. {@code broker.ch}).
+     */
+    @Query("""
+      SELECT c.id FROM Client c
+      WHERE (:type IS NULL OR c.type = :type)
+        AND (:emailDomain IS NULL OR c.email LIKE CONCAT('%@', :emailDomain))
+        AND (:createdBefore IS NULL OR c.createdAt < :createdBefore)
+      ORDER BY c.id
+    """)
+    List<Long> findLiveIdsMatching(@Param("type") ClientType type,
+                                   @Param("emailDomain") String emailDomain,
+                                   @Param("createdBefore") LocalDateTime createdBefore);
+
+    /** Marks the given clients as deleted and attaches them to a purge job; returns the number of rows marked. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "client"))
+    @Query(value = """
+      UPDATE client SET deleted_at = :now, purge_job_id = :jobId
+      WHERE id IN (:ids) AND deleted_at IS NULL
+    """, nativeQuery = true)
+    int softDelete(@Param("ids") Collection<Long> ids, @Param("jobId") Long jobId, @Param("now") LocalDateTime now);
+
+    /** Up to {@code limit} soft-deleted clients of a purge job. */
+    @Query(value = "SELECT id FROM client WHERE purge_job_id = :jobId ORDER BY id FETCH FIRST :limit ROWS ONLY",
+            nativeQuery = true)
+    List<Long> findPurgeableIds(@Param("jobId") Long jobId, @Param("limit") int limit);
+
+    /** Deletes the PERSON rows of soft-deleted clients (JOINED inheritance: subclass table first). */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "person_client"))
+    @Query(value = "DELETE FROM person_client WHERE id IN (:ids)", nativeQuery = true)
+    int purgePersonRows(@Param("ids") Collection<Long> ids);
+
+    /** Deletes the COMPANY rows of soft-deleted clients. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "company_client"))
+    @Query(value = "DELETE FROM company_client WHERE id IN (:ids)", nativeQuery = true)
+    int purgeCompanyRows(@Param("ids") Collection<Long> ids);
+
+    /** Deletes the base rows of soft-deleted clients, once their subclass rows and contracts are gone. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "client"))
+    @Query(value = "DELETE FROM client WHERE id IN (:ids) AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeClientRows(@Param("ids") Collection<Long> ids);
 }
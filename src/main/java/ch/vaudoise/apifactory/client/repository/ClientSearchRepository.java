@@ -0,0 +1,27 @@
+package ch.vaudoise.apifactory.client.repository;
+
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.client.dto.ClientSearchDto;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dynamic client search, mixed into {@link ClientRepository}.
+ */
+public interface ClientSearchRepository {
+
+    /**
+     * Keyset page of the clients matching {@code criteria}, ordered by {@code (nameKey, id)}.
+     * <p>
+     * Only the criteria actually given become predicates, so that the database can pick the
+     * matching index. The full-text criterion {@code q} is not handled here: callers resolve it
+     * beforehand into {@code ids}.
+     *
+     * @param ids          restricts the search to these ids when not null
+     * @param afterNameKey {@code nameKey} of the last row of the previous page, null for the first page
+     * @param afterId      id of the last row of the previous page
+     */
+    List<ClientResponseDto> search(ClientSearchDto criteria, Collection<Long> ids,
+                                   String afterNameKey, Long afterId, int limit);
+}
@@ -0,0 +1,79 @@
+package ch.vaudoise.apifactory.client.repository;
+
+import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.CompanyClient;
+import ch.vaudoise.apifactory.client.domain.PersonClient;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.client.dto.ClientSearchDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Criteria implementation of {@link ClientSearchRepository}: a DTO projection over the JOINED
+ * hierarchy, like {@code ClientRepository.findViewById}, with one predicate per given criterion.
+ */
+@RequiredArgsConstructor
+class ClientSearchRepositoryImpl implements ClientSearchRepository {
+
+    private static final char ESCAPE = '\\';
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ClientResponseDto> search(ClientSearchDto criteria, Collection<Long> ids,
+                                          String afterNameKey, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(ClientResponseDto.class);
+        Root<Client> c = query.from(Client.class);
+        Expression<String> nameKey = c.get("nameKey");
+        Expression<Long> id = c.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (criteria.name() != null) {
+            where.add(cb.like(nameKey, prefix(Client.searchKey(criteria.name())), ESCAPE));
+        }
+        if (criteria.email() != null) {
+            where.add(cb.like(c.get("email"), prefix(criteria.email().strip()), ESCAPE));
+        }
+        if (criteria.phone() != null) {
+            where.add(cb.like(c.get("phone"), prefix(criteria.phone().strip()), ESCAPE));
+        }
+        if (criteria.type() != null) {
+            where.add(cb.equal(c.get("type"), criteria.type()));
+        }
+        if (criteria.companyIdentifier() != null) {
+            where.add(cb.equal(cb.treat(c, CompanyClient.class).get("companyIdentifier"),
+                    CompanyClient.normalizeIdentifier(criteria.companyIdentifier())));
+        }
+        if (ids != null) {
+            where.add(id.in(ids));
+        }
+        if (afterNameKey != null) {
+            // (nameKey, id) > (afterNameKey, afterId), écrit pour rester un parcours d'index
+            where.add(cb.greaterThanOrEqualTo(nameKey, afterNameKey));
+            where.add(cb.or(cb.greaterThan(nameKey, afterNameKey), cb.greaterThan(id, afterId)));
+        }
+
+        query.select(cb.construct(ClientResponseDto.class,
+                        id, c.get("type"), c.get("name"), c.get("email"), c.get("phone"),
+                        cb.treat(c, PersonClient.class).get("birthdate"),
+                        cb.treat(c, CompanyClient.class).get("companyIdentifier"),
+                        c.get("createdAt"), c.get("updatedAt"), c.get("version")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.asc(nameKey), cb.asc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /** LIKE pattern matching values starting with {@code value}, wildcards escaped. */
+    private static String prefix(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -2,9 +2,19 @@ package ch.vaudoise.apifactory.client.repository;
 
 import ch.vaudoise.apifactory.client.domain.CompanyClient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
 /** Spring Data repository for the {@code PersonClient}/{@code CompanyClient} subtype. */
 public interface CompanyClientRepository extends JpaRepository<CompanyClient, Long> {
 
     boolean existsByCompanyIdentifier(String companyIdentifier);
+
+    /** Returns, among the given identifiers, those already used by a company (single IN lookup). */
+    @Query("SELECT c.companyIdentifier FROM CompanyClient c WHERE c.companyIdentifier IN :identifiers")
+    List<String> findExistingCompanyIdentifiers(@Param("identifiers") Collection<String> identifiers);
 }
 
@@ -0,0 +1,125 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.dto.ClientCacheStatsDto;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.common.datasource.ReplicaDataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded in-process cache of {@link ClientResponseDto}, keyed by client id.
+ * <p>
+ * Entries are invalidated only once the modifying transaction has committed, so that a concurrent
+ * reader can never re-populate the cache with a value that is about to be rolled back.
+ * A load in progress for a key blocks its invalidation, which prevents stale re-population.
+ * <p>
+ * With a read replica, a client invalidated less than {@code maxLag + heartbeatInterval} ago may
+ * still be old on the replica: its next miss is loaded from the primary, so that the stale row is
+ * never cached for a whole TTL. If more clients are written within that window than can be
+ * tracked, every miss goes to the primary until the window has elapsed.
+ */
+@Component
+public class ClientCache {
+
+    private final Cache<Long, ClientResponseDto> cache; // null si désactivé
+    private final Cache<Long, Boolean> recentlyWritten; // null sans réplica
+    private final long lagWindowNanos;
+    private volatile long primaryOnlyUntil; // System.nanoTime() ; suivi saturé
+
+    public ClientCache(ClientCacheProperties properties, ReplicaDataSourceProperties replica) {
+        this.cache = properties.enabled()
+                ? Caffeine.newBuilder()
+                    .maximumSize(properties.maxSize())
+                    .expireAfterWrite(properties.ttl())
+                    .recordStats()
+                    .build()
+                : null;
+        Duration lagWindow = replica.maxLag().plus(replica.heartbeatInterval());
+        this.lagWindowNanos = lagWindow.toNanos();
+        this.primaryOnlyUntil = System.nanoTime();
+        this.recentlyWritten = cache != null && replica.enabled()
+                ? Caffeine.newBuilder()
+                    .maximumSize(properties.maxSize())
+                    .expireAfterWrite(lagWindow)
+                    .executor(Runnable::run) // éviction synchrone : le repli est actif avant le retour
+                    .<Long, Boolean>evictionListener((id, written, cause) -> {
+                        if (cause == RemovalCause.SIZE) primaryOnlyUntil = System.nanoTime() + lagWindowNanos;
+                    })
+                    .build()
+                : null;
+    }
+
+    /**
+     * Returns the cached view of a client. On a miss, {@code loader} is used, or
+     * {@code primaryLoader} when the client was written too recently for the replica to be trusted.
+     */
+    public ClientResponseDto get(Long id, Function<Long, ClientResponseDto> loader,
+                                 Function<Long, ClientResponseDto> primaryLoader) {
+        if (cache == null) return loader.apply(id);
+        return cache.get(id, key -> mayBeStaleOnReplica(key) ? primaryLoader.apply(key) : loader.apply(key));
+    }
+
+    /** Invalidates a client after the current transaction commits (immediately if none is active). */
+    public void evictAfterCommit(Long id) {
+        if (cache == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(id);
+                }
+            });
+        } else {
+            invalidate(id);
+        }
+    }
+
+    /** Invalidates several clients after the current transaction commits (a single synchronization). */
+    public void evictAllAfterCommit(Collection<Long> ids) {
+        if (cache == null || ids.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateAll(ids);
+                }
+            });
+        } else {
+            invalidateAll(ids);
+        }
+    }
+
+    private void invalidate(Long id) {
+        // Marque posée avant l'invalidation : le miss suivant la voit
+        if (recentlyWritten != null) recentlyWritten.put(id, Boolean.TRUE);
+        cache.invalidate(id);
+    }
+
+    private void invalidateAll(Collection<Long> ids) {
+        if (recentlyWritten != null) {
+            for (Long id : ids) recentlyWritten.put(id, Boolean.TRUE);
+        }
+        cache.invalidateAll(ids);
+    }
+
+    private boolean mayBeStaleOnReplica(Long id) {
+        if (recentlyWritten == null) return false;
+        return recentlyWritten.getIfPresent(id) != null || System.nanoTime() - primaryOnlyUntil < 0;
+    }
+
+    /** Hit/miss/eviction counters since startup. */
+    public ClientCacheStatsDto stats() {
+        if (cache == null) return new ClientCacheStatsDto(false, 0, 0, 0, 0, 0);
+        var s = cache.stats();
+        return new ClientCacheStatsDto(true, cache.estimatedSize(), s.hitCount(), s.missCount(),
+                s.evictionCount(), s.hitRate());
+    }
+}
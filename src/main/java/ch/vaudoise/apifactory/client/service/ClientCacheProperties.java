@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.client.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process client cache ({@code app.client-cache.*}).
+ *
+ * @param enabled turns the cache off entirely (every read hits the database)
+ * @param maxSize maximum number of cached clients (least-recently/frequently used are evicted)
+ * @param ttl     time-to-live of an entry after it was loaded
+ */
+@ConfigurationProperties(prefix = "app.client-cache")
+public record ClientCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("5m") Duration ttl
+) { }
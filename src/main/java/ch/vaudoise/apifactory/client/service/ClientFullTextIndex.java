@@ -0,0 +1,65 @@
+package ch.vaudoise.apifactory.client.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * H2 native full-text index over {@code client.name} and {@code client.email}.
+ * <p>
+ * Kept in sync by the triggers H2 installs on the {@code client} table (insert, update, delete),
+ * in the same transaction as the change. Created at startup once the schema exists; soft-deleted
+ * clients stay indexed until purged and are filtered out by the search query itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClientFullTextIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClientSearchProperties properties;
+    private final EntityManagerFactory entityManagerFactory; // le schéma est créé avec l'EntityManagerFactory
+
+    private volatile boolean available;
+
+    @PostConstruct
+    void initialize() {
+        if (!properties.fullText()) return;
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(product)) {
+            log.warn("Client full-text search disabled: H2 native full-text is not available on {}", product);
+            return;
+        }
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init'");
+        jdbcTemplate.execute("CALL FT_INIT()");
+        Integer triggers = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM INFORMATION_SCHEMA.TRIGGERS
+                WHERE EVENT_OBJECT_SCHEMA = 'PUBLIC' AND EVENT_OBJECT_TABLE = 'CLIENT' AND TRIGGER_NAME LIKE 'FT\\_%'
+                """, Integer.class);
+        if (triggers == null || triggers == 0) {
+            // Table recréée (create-drop) : l'ancienne définition d'index est orpheline
+            jdbcTemplate.execute("CALL FT_DROP_INDEX('PUBLIC', 'CLIENT')");
+            jdbcTemplate.execute("CALL FT_CREATE_INDEX('PUBLIC', 'CLIENT', 'NAME,EMAIL')");
+            log.info("Client full-text index created");
+        }
+        available = true;
+    }
+
+    /** Whether {@link #search} can be used. */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /** Ids of the clients whose name or email contains every word of {@code text}, at most {@code maxHits}. */
+    public List<Long> search(String text, int maxHits) {
+        return jdbcTemplate.queryForList("""
+                SELECT CAST("KEYS"[1] AS BIGINT) FROM FT_SEARCH_DATA(?, ?, 0) WHERE "TABLE" = 'CLIENT'
+                """, Long.class, text, maxHits);
+    }
+}
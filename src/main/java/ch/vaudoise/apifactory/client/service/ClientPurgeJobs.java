@@ -0,0 +1,50 @@
+package ch.vaudoise.apifactory.client.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Background worker purging the clients soft-deleted by {@link ClientService#deleteMany}.
+ * <p>
+ * Polls the unfinished jobs and drains each one chunk by chunk (contracts, then clients), pausing
+ * between chunks. Jobs survive a restart: the soft-deleted rows are the work list.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClientPurgeJobs {
+
+    private final ClientPurgeService purgeService;
+    private final ClientPurgeProperties properties;
+
+    @Scheduled(fixedDelayString = "${app.client-purge.poll-interval:5s}")
+    public void purge() {
+        for (Long jobId : purgeService.unfinishedJobs()) {
+            purgeService.start(jobId);
+            if (!drain(jobId, purgeService::purgeContracts) || !drain(jobId, purgeService::purgeClients)) {
+                return; // arrêt de l'application : reprise au prochain démarrage
+            }
+            var job = purgeService.finish(jobId);
+            log.info("Client purge job {} done: {} client(s), {} contract(s) deleted",
+                    jobId, job.getPurgedClients(), job.getPurgedContracts());
+        }
+    }
+
+    /** Runs {@code chunk} until it reports 0 rows; false if interrupted. */
+    private boolean drain(Long jobId, ToIntBiFunction<Long, Integer> chunk) {
+        int chunkSize = Math.max(1, properties.chunkSize());
+        while (chunk.applyAsInt(jobId, chunkSize) > 0) {
+            try {
+                Thread.sleep(properties.pause().toMillis()); // laisse passer les écritures concurrentes
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
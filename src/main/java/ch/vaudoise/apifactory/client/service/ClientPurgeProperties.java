@@ -0,0 +1,18 @@
+package ch.vaudoise.apifactory.client.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the asynchronous purge of bulk-deleted clients ({@code app.client-purge.*}).
+ *
+ * @param chunkSize maximum number of contracts (or clients) deleted per transaction
+ * @param pause     pause between two chunks, leaving room to concurrent writers of the contract table
+ */
+@ConfigurationProperties(prefix = "app.client-purge")
+public record ClientPurgeProperties(
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("20ms") Duration pause
+) { }
@@ -0,0 +1,108 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import ch.vaudoise.apifactory.changefeed.service.ChangeLog;
+import ch.vaudoise.apifactory.client.domain.ClientPurgeJob;
+import ch.vaudoise.apifactory.client.domain.ClientPurgeStatus;
+import ch.vaudoise.apifactory.client.repository.ClientPurgeJobRepository;
+import ch.vaudoise.apifactory.client.repository.ClientRepository;
+import ch.vaudoise.apifactory.contract.dto.ContractClientRef;
+import ch.vaudoise.apifactory.contract.repository.ContractRepository;
+import ch.vaudoise.apifactory.contract.service.ContractSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Physical deletion of bulk-deleted clients, one bounded chunk per transaction.
+ * <p>
+ * Contracts go first, then the clients themselves (subclass rows, then base rows). Each chunk
+ * commits on its own and only touches {@code chunkSize} rows, so row locks on the contract table
+ * are held for milliseconds; an interrupted purge simply resumes from what is left.
+ * A {@code CONTRACT DELETED} change event is recorded for every contract, in the chunk that deletes it.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClientPurgeService {
+
+    private final ClientPurgeJobRepository jobRepo;
+    private final ClientRepository clientRepo;
+    private final ContractRepository contractRepo;
+    private final ContractSummaryService summaryService;
+    private final ChangeLog changeLog;
+
+    /** Ids of the jobs not finished yet, oldest first. */
+    public List<Long> unfinishedJobs() {
+        return jobRepo.findByStatusInOrderById(List.of(ClientPurgeStatus.PENDING, ClientPurgeStatus.RUNNING))
+                .stream().map(ClientPurgeJob::getId).toList();
+    }
+
+    /** Marks a job as running (no-op if it already is, e.g. after a restart). */
+    @Transactional
+    public void start(Long jobId) {
+        var job = job(jobId);
+        if (job.getStatus() == ClientPurgeStatus.PENDING) {
+            job.setStatus(ClientPurgeStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Deletes up to {@code chunkSize} contracts of the clients of a job.
+     *
+     * @return the number of contracts deleted (0 when none is left)
+     */
+    @Transactional
+    public int purgeContracts(Long jobId, int chunkSize) {
+        List<Long> ids = contractRepo.findIdsOfPurgeJob(jobId, chunkSize);
+        if (ids.isEmpty()) return 0;
+        Map<Long, List<Long>> byClient = contractRepo.findOwnerRefs(ids).stream()
+                .collect(Collectors.groupingBy(ContractClientRef::clientId, TreeMap::new,
+                        Collectors.mapping(ContractClientRef::contractId, Collectors.toList())));
+        int deleted = contractRepo.deleteByIdIn(ids);
+        byClient.forEach((clientId, contractIds) ->
+                changeLog.recordAll(ChangeEntityType.CONTRACT, contractIds, clientId, ChangeOperation.DELETED));
+        var job = job(jobId);
+        job.setPurgedContracts(job.getPurgedContracts() + deleted);
+        return deleted;
+    }
+
+    /**
+     * Deletes up to {@code chunkSize} clients of a job; their contracts must already be gone.
+     *
+     * @return the number of clients deleted (0 when none is left)
+     */
+    @Transactional
+    public int purgeClients(Long jobId, int chunkSize) {
+        List<Long> ids = clientRepo.findPurgeableIds(jobId, chunkSize);
+        if (ids.isEmpty()) return 0;
+        summaryService.removeAll(ids); // normalement déjà fait lors de la suppression logique
+        clientRepo.purgePersonRows(ids);
+        clientRepo.purgeCompanyRows(ids);
+        int deleted = clientRepo.purgeClientRows(ids);
+        var job = job(jobId);
+        job.setPurgedClients(job.getPurgedClients() + deleted);
+        return deleted;
+    }
+
+    /** Marks a job as done. */
+    @Transactional
+    public ClientPurgeJob finish(Long jobId) {
+        var job = job(jobId);
+        job.setStatus(ClientPurgeStatus.DONE);
+        job.setFinishedAt(LocalDateTime.now());
+        return job;
+    }
+
+    private ClientPurgeJob job(Long jobId) {
+        return jobRepo.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("purge job " + jobId + " not found"));
+    }
+}
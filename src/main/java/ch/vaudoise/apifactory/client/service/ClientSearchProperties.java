@@ -0,0 +1,19 @@
+package ch.vaudoise.apifactory.client.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the client search ({@code app.client-search.*}).
+ *
+ * @param maxPageSize     upper bound of the page size
+ * @param fullText        whether the H2 full-text index backing {@code q} is created and used
+ * @param maxFullTextHits maximum number of full-text matches of one {@code q}; a broader {@code q} is
+ *                        rejected (400), never answered from part of its matches
+ */
+@ConfigurationProperties(prefix = "app.client-search")
+public record ClientSearchProperties(
+        @DefaultValue("100") int maxPageSize,
+        @DefaultValue("true") boolean fullText,
+        @DefaultValue("10000") int maxFullTextHits
+) { }
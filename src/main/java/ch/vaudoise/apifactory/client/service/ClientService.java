@@ -1,8 +1,11 @@
 package ch.vaudoise.apifactory.client.service;
 
 import ch.vaudoise.apifactory.client.dto.*;
+import ch.vaudoise.apifactory.common.batch.BatchResultDto;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Application service for client use-cases.
@@ -15,13 +18,32 @@ public interface ClientService {
     /** Creates a new client and returns its identifier. */
     Long create(ClientCreateDto dto);
 
+    /**
+     * Creates several clients atomically and returns their identifiers in payload order.
+     * <p>
+     * Uniqueness of emails and company identifiers is checked for the whole batch at once,
+     * both against the database and inside the payload. Same as {@code createMany(dtos, true)}.
+     */
+    List<Long> createMany(List<ClientCreateDto> dtos);
+
+    /**
+     * Validates every client of the batch in one pass (constraints, duplicates inside the payload and
+     * in the database), then creates them.
+     * <p>
+     * When {@code atomic}, any error rejects the whole batch with a {@code BatchValidationException}
+     * listing all of them; otherwise the valid clients are created and the others reported per item.
+     */
+    BatchResultDto createMany(List<ClientCreateDto> dtos, boolean atomic);
+
     /** Retrieves a client by id or throws {@code NotFoundException} if absent. */
     ClientResponseDto get(Long id);
     /**
      * Updates mutable fields of a client (name, email, phone) and returns the updated view.
      * Immutable fields (birthdate, companyIdentifier) are intentionally not part of the update DTO.
+     * When {@code expectedVersion} is not null ({@code If-Match}), throws {@code PreconditionFailedException}
+     * if the client has been modified since that version.
      */
-    ClientResponseDto update(Long id, ClientUpdateDto dto);
+    ClientResponseDto update(Long id, ClientUpdateDto dto, Long expectedVersion);
 
     /**
      * Deletes a client after closing and removing its contracts.
@@ -30,4 +52,30 @@ public interface ClientService {
      * then contracts are deleted, then the client is deleted to preserve referential integrity.
      */
     void delete(Long id);
+
+    /**
+     * Deletes a set of clients, given by ids or by filter, and returns the purge job created.
+     * <p>
+     * The clients are soft-deleted right away (set-based UPDATE, hidden from every read on commit);
+     * their contracts and rows are physically deleted afterwards by a background job, in chunks.
+     * Unknown or already deleted ids are ignored.
+     */
+    ClientPurgeJobDto deleteMany(ClientBulkDeleteDto dto);
+
+    /** Progress of a purge job or throws {@code NotFoundException} if absent. */
+    ClientPurgeJobDto purgeJob(Long jobId);
+
+    /**
+     * Searches clients by name prefix, email, phone, type, company identifier and/or full-text words.
+     * <p>
+     * Results are ordered by normalized name then id and paged by keyset: {@code cursor} is the
+     * {@code nextCursor} of the previous page. No total count is computed.
+     */
+    CursorPage<ClientResponseDto> search(ClientSearchDto criteria, String cursor, int size);
+
+    /** Streams every client to {@code sink}, in id order, from a forward-only database cursor. */
+    void exportAll(Consumer<ClientResponseDto> sink);
+
+    /** Hit/miss/eviction counters of the client read cache. */
+    ClientCacheStatsDto cacheStats();
 }
@@ -1,36 +1,89 @@
 package ch.vaudoise.apifactory.client.service;
 
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import ch.vaudoise.apifactory.changefeed.service.ChangeLog;
 import ch.vaudoise.apifactory.client.domain.*;
 import ch.vaudoise.apifactory.client.dto.*;
 import ch.vaudoise.apifactory.client.mapper.ClientMapper;
 import ch.vaudoise.apifactory.client.repository.*;
+import ch.vaudoise.apifactory.common.batch.BatchResultDto;
+import ch.vaudoise.apifactory.common.batch.BatchValidation;
+import ch.vaudoise.apifactory.common.batch.BatchValidator;
+import ch.vaudoise.apifactory.common.config.BatchProperties;
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
 import ch.vaudoise.apifactory.common.exception.ConflictException;
 import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import ch.vaudoise.apifactory.common.exception.PreconditionFailedException;
+import ch.vaudoise.apifactory.common.pagination.CursorCodec;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
 import ch.vaudoise.apifactory.contract.repository.ContractRepository;
-import jakarta.transaction.Transactional;
+import ch.vaudoise.apifactory.contract.service.ContractSummaryService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Default implementation of {@link ClientService}.
  * <p>
  * Applies type-specific validations (PERSON/COMPANY), cross-aggregate operations
  * (closing/deleting contracts on client removal), and delegates persistence to repositories.
+ * Batch import validates every item in one pass, checks uniqueness set-wise (IN lookups + in-memory
+ * sets) and relies on JDBC batching; a non-atomic import creates the valid items only.
+ * Reads are served from {@link ClientCache}; updates and deletions invalidate it after commit.
+ * {@link #get} is not transactional: a cache miss is loaded by {@link ClientViewLoader}.
+ * Bulk deletion is set-based: a soft delete now, a chunked purge later ({@link ClientPurgeJobs}).
+ * Every mutation is appended to the {@link ChangeLog} in the same transaction.
+ * Read-only methods run in {@code readOnly} transactions, routed to the read replica when one is configured.
+ * Methods are timed ({@code app.service}) and batch sizes recorded ({@code app.batch.size}).
  */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "app.service", description = "Service method latency")
 public class ClientServiceImpl implements ClientService {
 
     private final ClientRepository clientRepo;
+    private final ClientPurgeJobRepository purgeJobRepo;
     private final PersonClientRepository personRepo;
     private final CompanyClientRepository companyRepo;
     private final ContractRepository contractRepo;
     private final ClientMapper mapper;
+    private final EntityManager entityManager;
+    private final BatchProperties batchProperties;
+    private final ContractSummaryService summaryService;
+    private final ClientCache cache;
+    private final ClientViewLoader viewLoader;
+    private final ClientFullTextIndex fullTextIndex;
+    private final ClientSearchProperties searchProperties;
+    private final ChangeLog changeLog;
+    private final MeterRegistry meterRegistry;
+    private final BatchValidator batchValidator;
+
+    /** Upper bound of values bound in a single IN clause. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /** Order of the search results, the one of the {@code (name_key, id)} index. */
+    private static final Comparator<ClientResponseDto> SEARCH_ORDER =
+            Comparator.comparing((ClientResponseDto c) -> Client.searchKey(c.name())).thenComparing(ClientResponseDto::id);
 
     /** {@inheritDoc} */
     @Override
+    @Transactional
     public Long create(ClientCreateDto dto) {
         if (clientRepo.existsByEmail(dto.email())) {
             throw new ConflictException("email already exists");
@@ -42,40 +95,210 @@ public class ClientServiceImpl implements ClientService {
             }
         }
 
-        Client saved;
+        Client client = toEntity(dto);
+        Client saved = client instanceof PersonClient p ? personRepo.save(p) : companyRepo.save((CompanyClient) client);
+        summaryService.initialize(saved.getId());
+        changeLog.record(ChangeEntityType.CLIENT, saved.getId(), saved.getId(), ChangeOperation.CREATED);
+        return saved.getId();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public List<Long> createMany(List<ClientCreateDto> dtos) {
+        return createMany(dtos, true).createdIds();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public BatchResultDto createMany(List<ClientCreateDto> dtos, boolean atomic) {
+        meterRegistry.summary("app.batch.size", "operation", "createMany").record(dtos.size());
+        // 1) Contraintes Bean Validation de tous les éléments, sans exception
+        BatchValidation validation = batchValidator.validate(dtos);
+
+        // 2) Doublons à l'intérieur du payload, en mémoire (la première occurrence valide l'emporte)
+        Set<String> emails = new HashSet<>();
+        Set<String> companyIds = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (!validation.isValid(i)) continue;
+            ClientCreateDto dto = dtos.get(i);
+            if (!emails.add(dto.email())) {
+                validation.conflict(i, "email", "email duplicated in batch", dto.email());
+            }
+            if (dto.type() == ClientType.COMPANY && !companyIds.add(dto.companyIdentifier())) {
+                validation.conflict(i, "companyIdentifier", "companyIdentifier duplicated in batch", dto.companyIdentifier());
+            }
+        }
+
+        // 3) Doublons en base : une requête IN par tranche au lieu de deux requêtes par client
+        Set<String> takenEmails = findExisting(emails, clientRepo::findExistingEmails);
+        Set<String> takenCompanyIds = findExisting(companyIds, companyRepo::findExistingCompanyIdentifiers);
+        for (int i = 0; i < dtos.size(); i++) {
+            if (!validation.isValid(i)) continue;
+            ClientCreateDto dto = dtos.get(i);
+            if (takenEmails.contains(dto.email())) {
+                validation.conflict(i, "email", "email already exists", dto.email());
+            }
+            if (dto.type() == ClientType.COMPANY && takenCompanyIds.contains(dto.companyIdentifier())) {
+                validation.conflict(i, "companyIdentifier", "companyIdentifier already exists", dto.companyIdentifier());
+            }
+        }
+        if (atomic && validation.hasErrors()) {
+            throw validation.toException();
+        }
+
+        // 4) INSERT en lots JDBC des éléments valides (ids alloués par séquence), flush/clear par tranche
+        int flushSize = Math.max(1, batchProperties.flushSize());
+        List<Long> ids = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            if (!validation.isValid(i)) continue;
+            Client client = toEntity(dtos.get(i));
+            entityManager.persist(client);
+            summaryService.initialize(client.getId());
+            ids.add(client.getId());
+            changeLog.record(ChangeEntityType.CLIENT, client.getId(), client.getId(), ChangeOperation.CREATED);
+
+            if (ids.size() % flushSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return validation.result(ids);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ClientResponseDto> sink) {
+        try (Stream<Client> rows = clientRepo.streamForExport()) {
+            rows.forEach(client -> {
+                sink.accept(mapper.toDto(client));
+                entityManager.detach(client); // mémoire constante quel que soit le volume
+            });
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ClientResponseDto> search(ClientSearchDto criteria, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), searchProperties.maxPageSize());
+        String afterNameKey = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = CursorCodec.decode(cursor, 2);
+            try {
+                afterNameKey = keys[0];
+                afterId = Long.valueOf(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        List<ClientResponseDto> rows;
+        if (criteria.q() != null && !criteria.q().isBlank()) {
+            rows = searchFullText(criteria, afterNameKey, afterId, pageSize + 1);
+        } else {
+            rows = clientRepo.search(criteria, null, afterNameKey, afterId, pageSize + 1);
+        }
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ClientResponseDto last = rows.get(pageSize - 1);
+            next = CursorCodec.encode(Client.searchKey(last.name()), last.id());
+        }
+        return new CursorPage<>(rows, next);
+    }
+
+    /**
+     * Search with {@code q}: every full-text hit is considered, never a truncated subset. The hits
+     * go through the other criteria and the keyset one IN-clause chunk at a time; each chunk yields
+     * its first {@code limit} rows in {@code (nameKey, id)} order and the merged head is the page.
+     * A {@code q} matching more than {@code maxFullTextHits} clients is rejected rather than answered
+     * from part of its matches.
+     */
+    private List<ClientResponseDto> searchFullText(ClientSearchDto criteria, String afterNameKey, Long afterId,
+                                                   int limit) {
+        if (!fullTextIndex.isAvailable()) {
+            throw new BadRequestException("full-text search (q) is not available");
+        }
+        int maxHits = searchProperties.maxFullTextHits();
+        List<Long> hits = fullTextIndex.search(criteria.q(), maxHits + 1);
+        if (hits.size() > maxHits) {
+            throw new BadRequestException("q matches more than " + maxHits + " clients, add words to narrow it");
+        }
+        List<Long> ids = hits.stream().sorted().toList();
+        List<ClientResponseDto> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            rows.addAll(clientRepo.search(criteria, chunk, afterNameKey, afterId, limit));
+        }
+        rows.sort(SEARCH_ORDER);
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ClientCacheStatsDto cacheStats() {
+        return cache.stats();
+    }
+
+    private static <T> Set<T> findExisting(Set<T> values, Function<List<T>, List<T>> lookup) {
+        Set<T> existing = new HashSet<>();
+        List<T> all = new ArrayList<>(values);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            existing.addAll(lookup.apply(all.subList(from, Math.min(from + IN_CLAUSE_CHUNK, all.size()))));
+        }
+        return existing;
+    }
+
+    private static Client toEntity(ClientCreateDto dto) {
         if (dto.type() == ClientType.PERSON) {
             var p = new PersonClient();
             p.setType(ClientType.PERSON);
             p.setName(dto.name()); p.setEmail(dto.email()); p.setPhone(dto.phone());
             if (dto.birthdate() == null) throw new IllegalArgumentException("birthdate is required for PERSON");
             p.setBirthdate(dto.birthdate());
-            saved = personRepo.save(p);
-        } else {
-            var c = new CompanyClient();
-            c.setType(ClientType.COMPANY);
-            c.setName(dto.name()); c.setEmail(dto.email()); c.setPhone(dto.phone());
-            if (dto.companyIdentifier() == null) throw new IllegalArgumentException("companyIdentifier is required for COMPANY");
-            c.setCompanyIdentifier(dto.companyIdentifier());
-            saved = companyRepo.save(c);
+            return p;
         }
-        return saved.getId();
+        var c = new CompanyClient();
+        c.setType(ClientType.COMPANY);
+        c.setName(dto.name()); c.setEmail(dto.email()); c.setPhone(dto.phone());
+        if (dto.companyIdentifier() == null) throw new IllegalArgumentException("companyIdentifier is required for COMPANY");
+        c.setCompanyIdentifier(dto.companyIdentifier());
+        return c;
     }
 
     /** {@inheritDoc} */
     @Override
     public ClientResponseDto get(Long id) {
-        var client = clientRepo.findById(id).orElseThrow(() -> new NotFoundException("Client "+id+" not found"));
-        return mapper.toDto(client);
+        // Hors transaction : un hit ne prend ni connexion ni permis, seul un miss en ouvre une
+        return cache.get(id, viewLoader::load, viewLoader::loadFromPrimary);
     }
 
     /** {@inheritDoc} */
     @Override
-    public ClientResponseDto update(Long id, ClientUpdateDto dto) {
+    @Transactional
+    public ClientResponseDto update(Long id, ClientUpdateDto dto, Long expectedVersion) {
         var client = clientRepo.findById(id).orElseThrow(() -> new NotFoundException("Client "+id+" not found"));
+        if (expectedVersion != null && client.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Client " + id + " has been modified (version " + client.getVersion() + ")");
+        }
         client.setName(dto.name());
         client.setEmail(dto.email());
         client.setPhone(dto.phone());
-        return mapper.toDto(clientRepo.save(client));
+        Client saved;
+        try {
+            saved = clientRepo.saveAndFlush(client); // updatedAt (@PreUpdate) et version renseignés avant le mapping
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Écriture concurrente entre la lecture et le flush (UPDATE ... WHERE version = ?)
+            if (expectedVersion == null) throw e;
+            throw new PreconditionFailedException("Client " + id + " has been modified concurrently");
+        }
+        cache.evictAfterCommit(id);
+        changeLog.record(ChangeEntityType.CLIENT, id, id, ChangeOperation.UPDATED);
+        return mapper.toDto(saved);
     }
 
     /** {@inheritDoc} */
@@ -86,9 +309,61 @@ public class ClientServiceImpl implements ClientService {
             throw new NotFoundException("Client " + id + " not found");
         }
         var today = LocalDate.now();
+        List<Long> contractIds = contractRepo.findIdsByClient(id);
         contractRepo.closeAllActiveByClient(id, today);
         contractRepo.deleteAllByClient(id);
+        summaryService.remove(id);
         clientRepo.deleteById(id);
+        cache.evictAfterCommit(id);
+        // Contrats d'abord, puis le client : un consommateur ne voit jamais de contrat orphelin
+        changeLog.recordAll(ChangeEntityType.CONTRACT, contractIds, id, ChangeOperation.DELETED);
+        changeLog.record(ChangeEntityType.CLIENT, id, id, ChangeOperation.DELETED);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public ClientPurgeJobDto deleteMany(ClientBulkDeleteDto dto) {
+        boolean byIds = dto.ids() != null && !dto.ids().isEmpty();
+        boolean byFilter = dto.filter() != null && !dto.filter().isEmpty();
+        if (byIds == byFilter) {
+            throw new BadRequestException("exactly one of ids or a non-empty filter is required");
+        }
+        List<Long> ids = byIds
+                ? findExisting(new HashSet<>(dto.ids()), clientRepo::findLiveIds).stream().sorted().toList()
+                : clientRepo.findLiveIdsMatching(dto.filter().type(), dto.filter().emailDomain(),
+                        dto.filter().createdBefore());
+        meterRegistry.summary("app.batch.size", "operation", "deleteMany").record(ids.size());
+
+        var job = purgeJobRepo.save(new ClientPurgeJob());
+        LocalDateTime now = LocalDateTime.now();
+        long marked = 0;
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            marked += clientRepo.softDelete(chunk, job.getId(), now);
+            summaryService.removeAll(chunk);
+        }
+        job.setClientCount(marked);
+        if (marked == 0) {
+            job.setStatus(ClientPurgeStatus.DONE);
+            job.setFinishedAt(now);
+        }
+
+        cache.evictAllAfterCommit(ids);
+        for (Long id : ids) {
+            // Les événements CONTRACT DELETED suivent, au fil de la purge (ClientPurgeService)
+            changeLog.record(ChangeEntityType.CLIENT, id, id, ChangeOperation.DELETED);
+        }
+        return mapper.toDto(job);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public ClientPurgeJobDto purgeJob(Long jobId) {
+        return purgeJobRepo.findById(jobId)
+                .map(mapper::toDto)
+                .orElseThrow(() -> new NotFoundException("Purge job " + jobId + " not found"));
     }
 
 }
@@ -0,0 +1,38 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.client.repository.ClientRepository;
+import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads the {@link ClientResponseDto} projection on a {@link ClientCache} miss.
+ * <p>
+ * Kept apart from {@link ClientServiceImpl} so that {@code get} stays non-transactional: only a
+ * miss opens a transaction, read-only (replica when in sync) or read-write (always the primary).
+ */
+@Component
+@RequiredArgsConstructor
+class ClientViewLoader {
+
+    private final ClientRepository clientRepo;
+
+    /** Reads the client in a read-only transaction. */
+    @Transactional(readOnly = true)
+    public ClientResponseDto load(Long id) {
+        return find(id);
+    }
+
+    /** Reads the client in a read-write transaction, hence from the primary. */
+    @Transactional
+    public ClientResponseDto loadFromPrimary(Long id) {
+        return find(id);
+    }
+
+    private ClientResponseDto find(Long id) {
+        // Projection DTO : une requête, aucune entité hydratée
+        return clientRepo.findViewById(id).orElseThrow(() -> new NotFoundException("Client " + id + " not found"));
+    }
+}
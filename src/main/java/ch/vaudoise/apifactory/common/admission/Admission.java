@@ -0,0 +1,24 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller method under admission control ({@link AdmissionInterceptor}): rate limits
+ * per caller and per client, then the concurrency cap of its {@link EndpointClass}.
+ * <p>
+ * On asynchronous (streaming) endpoints the permit is held until the response has been written,
+ * i.e. until the asynchronous dispatch completes.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    /** Class of the endpoint. */
+    EndpointClass value();
+
+    /** Path variable holding the client id the per-client rate limit applies to (ignored if absent). */
+    String clientId() default "clientId";
+}
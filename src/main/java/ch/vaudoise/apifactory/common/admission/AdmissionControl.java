@@ -0,0 +1,196 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import ch.vaudoise.apifactory.common.exception.PayloadTooLargeException;
+import ch.vaudoise.apifactory.common.exception.ServiceUnavailableException;
+import ch.vaudoise.apifactory.common.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limits and concurrency caps of the expensive endpoints (see {@link AdmissionProperties}).
+ * <p>
+ * Buckets are created on first use and kept in size-bounded maps; an idle bucket refills to its
+ * capacity anyway, so evicting it loses nothing. Rejections are counted in {@code app.admission.rejected}
+ * (tags {@code endpoint}, {@code reason}); the number of requests running and waiting per endpoint
+ * class in {@code app.admission.in.flight} and {@code app.admission.queue.depth}, the wait itself in
+ * {@code app.admission.queue.wait}.
+ */
+@Component
+public class AdmissionControl {
+
+    /** Permit of an admitted request, released once it has completed. */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        Permit NONE = () -> { };
+
+        @Override
+        void close();
+    }
+
+    private static final Duration IDLE_BUCKET_EXPIRY = Duration.ofMinutes(10);
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TokenBucket> callerBuckets;
+    private final Cache<Long, TokenBucket> clientBuckets;
+    private final Map<EndpointClass, Gate> gates = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.callerBuckets = buckets();
+        this.clientBuckets = buckets();
+        properties.endpoints().forEach((endpoint, limits) -> {
+            if (limits.maxConcurrent() > 0) gates.put(endpoint, new Gate(endpoint, limits));
+        });
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Admits a request or rejects it.
+     *
+     * @param endpoint class of the endpoint
+     * @param caller   caller identity (header or remote address)
+     * @param clientId client targeted by the request, {@code null} if none
+     * @return the permit to close once the request has completed
+     * @throws TooManyRequestsException    when the caller or the client has no token left (429)
+     * @throws ServiceUnavailableException when the endpoint class is saturated (503)
+     */
+    public Permit admit(EndpointClass endpoint, String caller, Long clientId) {
+        if (!properties.enabled()) return Permit.NONE;
+        int cost = limits(endpoint).cost();
+        take(endpoint, "caller_rate", callerBuckets, caller, properties.perCaller(), cost);
+        if (clientId != null) {
+            take(endpoint, "client_rate", clientBuckets, clientId, properties.perClient(), cost);
+        }
+        Gate gate = gates.get(endpoint);
+        return gate == null ? Permit.NONE : gate.enter();
+    }
+
+    /** Rejects a request whose declared body exceeds {@code maxBodySize} ({@code -1}: unknown, accepted). */
+    public void checkBodySize(EndpointClass endpoint, long contentLength) {
+        if (!properties.enabled() || contentLength <= properties.maxBodySize().toBytes()) return;
+        rejected(endpoint, "too_large");
+        throw new PayloadTooLargeException("Request body exceeds " + properties.maxBodySize().toBytes() + " bytes");
+    }
+
+    /** Rejects a batch of more than {@code maxBatchItems} items. */
+    public void checkBatchSize(int items) {
+        if (!properties.enabled() || items <= properties.maxBatchItems()) return;
+        rejected(EndpointClass.BATCH, "too_large");
+        throw new PayloadTooLargeException("A batch may contain at most " + properties.maxBatchItems() + " items");
+    }
+
+    private AdmissionProperties.EndpointLimits limits(EndpointClass endpoint) {
+        var limits = properties.endpoints().get(endpoint);
+        return limits != null ? limits : new AdmissionProperties.EndpointLimits(0, 0, 1);
+    }
+
+    private <K> void take(EndpointClass endpoint, String reason, Cache<K, TokenBucket> buckets, K key,
+                          AdmissionProperties.RateLimit limit, int cost) {
+        if (!limit.enabled()) return;
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(key, k -> new TokenBucket(limit.capacity(), limit.refillPerSecond(), now))
+                .tryTake(cost, now);
+        if (waitNanos > 0) {
+            rejected(endpoint, reason);
+            throw new TooManyRequestsException("Rate limit exceeded, please slow down",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+        }
+    }
+
+    private void rejected(EndpointClass endpoint, String reason) {
+        meterRegistry.counter("app.admission.rejected", "endpoint", tag(endpoint), "reason", reason).increment();
+    }
+
+    private <K, V> Cache<K, V> buckets() {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.maxTrackedKeys())
+                .expireAfterAccess(IDLE_BUCKET_EXPIRY)
+                .build();
+    }
+
+    private static String tag(EndpointClass endpoint) {
+        return endpoint.name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Concurrency cap of one endpoint class, with a bounded fair queue. */
+    private final class Gate {
+
+        private final EndpointClass endpoint;
+        private final int maxQueue;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer queueWait;
+
+        private Gate(EndpointClass endpoint, AdmissionProperties.EndpointLimits limits) {
+            this.endpoint = endpoint;
+            this.maxQueue = limits.maxQueue();
+            this.permits = new Semaphore(limits.maxConcurrent(), true);
+            int maxConcurrent = limits.maxConcurrent();
+            this.queueWait = Timer.builder("app.admission.queue.wait")
+                    .description("Time spent waiting for an admission permit")
+                    .tag("endpoint", tag(endpoint))
+                    .register(meterRegistry);
+            Gauge.builder("app.admission.in.flight", permits, p -> maxConcurrent - p.availablePermits())
+                    .description("Admitted requests running")
+                    .tag("endpoint", tag(endpoint))
+                    .register(meterRegistry);
+            Gauge.builder("app.admission.queue.depth", waiting, AtomicInteger::get)
+                    .description("Requests waiting for an admission permit")
+                    .tag("endpoint", tag(endpoint))
+                    .register(meterRegistry);
+        }
+
+        private Permit enter() {
+            // tryAcquire(0, ...) respecte l'ordre de la file, contrairement à tryAcquire()
+            if (!acquire(0)) {
+                if (waiting.incrementAndGet() > maxQueue) {
+                    waiting.decrementAndGet();
+                    throw shed("queue_full");
+                }
+                long start = System.nanoTime();
+                boolean acquired;
+                try {
+                    acquired = acquire(properties.queueTimeout().toNanos());
+                } finally {
+                    waiting.decrementAndGet();
+                    queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (!acquired) throw shed("queue_timeout");
+            }
+            return permits::release;
+        }
+
+        private boolean acquire(long timeoutNanos) {
+            try {
+                return permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private ServiceUnavailableException shed(String reason) {
+            rejected(endpoint, reason);
+            long retryAfter = Math.max(1, properties.queueTimeout().toSeconds());
+            return new ServiceUnavailableException("Too many concurrent " + tag(endpoint) + " requests, please retry",
+                    retryAfter);
+        }
+    }
+}
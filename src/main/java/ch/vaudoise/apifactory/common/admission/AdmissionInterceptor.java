@@ -0,0 +1,85 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Applies {@link AdmissionControl} to the {@link Admission}-annotated controller methods, before the
+ * body is read: the permit is stored in the request and released once the request has completed
+ * (after the asynchronous dispatch for a streamed response). Also rejects a {@code Pageable} page
+ * size over {@code spring.data.web.pageable.max-page-size} with {@code 400}, instead of the silent
+ * clamping of Spring Data. Rejections are thrown as exceptions and rendered by
+ * {@code GlobalExceptionHandler}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionControl admission;
+    private final CallerResolver callers;
+    private final SpringDataWebProperties dataWebProperties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) return true;
+        // Redispatch d'une réponse asynchrone : le permis de la première dispatch est toujours détenu
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+        checkPageSize(request, method);
+        Admission annotation = method.getMethodAnnotation(Admission.class);
+        if (annotation == null) return true;
+
+        admission.checkBodySize(annotation.value(), request.getContentLengthLong());
+        var permit = admission.admit(annotation.value(), callers.identity(request), clientId(request, annotation.clientId()));
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionControl.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.close();
+        }
+    }
+
+    private void checkPageSize(HttpServletRequest request, HandlerMethod method) {
+        if (Arrays.stream(method.getMethodParameters()).map(MethodParameter::getParameterType)
+                .noneMatch(Pageable.class::equals)) return;
+        var pageable = dataWebProperties.getPageable();
+        String value = request.getParameter(pageable.getPrefix() + pageable.getSizeParameter());
+        try {
+            if (value != null && Integer.parseInt(value.trim()) > pageable.getMaxPageSize()) {
+                throw new BadRequestException("Page size must not exceed " + pageable.getMaxPageSize());
+            }
+        } catch (NumberFormatException e) {
+            // valeur ignorée par le résolveur de Spring Data : taille par défaut
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long clientId(HttpServletRequest request, String variable) {
+        var variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String value = variables == null ? null : variables.get(variable);
+        if (value == null) return null;
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null; // rejeté ensuite par la conversion du @PathVariable
+        }
+    }
+}
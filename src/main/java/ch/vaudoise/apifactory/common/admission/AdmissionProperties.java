@@ -0,0 +1,71 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Admission control of the expensive endpoints ({@code app.admission.*}).
+ * <p>
+ * A request of an {@link Admission}-annotated endpoint takes {@code cost} tokens from the bucket of
+ * its caller and from the bucket of the client it targets ({@code 429} when either is empty), then
+ * a permit of its endpoint class: at most {@code maxConcurrent} requests run at once, at most
+ * {@code maxQueue} wait for {@code queueTimeout}, the others are shed with {@code 503}.
+ *
+ * @param enabled        turns admission control off entirely
+ * @param callerHeader   header labelling the caller (integrator); free-form, so the per-caller bucket
+ *                       is keyed on the principal or remote address instead ({@link CallerResolver})
+ * @param perCaller      token bucket of each caller
+ * @param perClient      token bucket of each client id ({@code /clients/{clientId}/...})
+ * @param maxTrackedKeys maximum number of buckets kept per kind (idle ones are evicted)
+ * @param queueTimeout   maximum wait for a permit
+ * @param maxBodySize    maximum declared {@code Content-Length} of an admitted request ({@code 413})
+ * @param maxBatchItems  maximum number of items of a batch ({@code 413})
+ * @param endpoints      limits per endpoint class; a class without limits is not capped
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-Caller-Id") String callerHeader,
+        @DefaultValue RateLimit perCaller,
+        @DefaultValue RateLimit perClient,
+        @DefaultValue("100000") long maxTrackedKeys,
+        @DefaultValue("1s") Duration queueTimeout,
+        @DefaultValue("10MB") DataSize maxBodySize,
+        @DefaultValue("10000") int maxBatchItems,
+        Map<EndpointClass, EndpointLimits> endpoints
+) {
+
+    public AdmissionProperties {
+        endpoints = endpoints == null ? Map.of() : Map.copyOf(endpoints);
+    }
+
+    /**
+     * Token bucket: {@code capacity} tokens at most (the burst), refilled at {@code refillPerSecond}.
+     * Disabled when either is 0.
+     */
+    public record RateLimit(
+            @DefaultValue("0") double capacity,
+            @DefaultValue("0") double refillPerSecond
+    ) {
+        public boolean enabled() {
+            return capacity > 0 && refillPerSecond > 0;
+        }
+    }
+
+    /**
+     * Limits of one endpoint class.
+     *
+     * @param maxConcurrent requests running at once (0: not capped)
+     * @param maxQueue      requests waiting for a permit, beyond which they are shed immediately
+     * @param cost          tokens taken from the rate-limit buckets per request
+     */
+    public record EndpointLimits(
+            @DefaultValue("0") int maxConcurrent,
+            @DefaultValue("0") int maxQueue,
+            @DefaultValue("1") int cost
+    ) { }
+}
@@ -0,0 +1,42 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Identifies the caller (integrator) of a request.
+ * <p>
+ * The {@link #identity identity} is what the client cannot choose: the authenticated principal, or
+ * the remote address (behind a reverse proxy, set {@code server.forward-headers-strategy} so that it
+ * is the client's). It keys the per-caller token bucket. The {@code app.admission.caller-header}
+ * header is free-form, hence only a {@link #label label}: sending a new value on every request must
+ * not get a fresh bucket. Idempotency keys are scoped by both.
+ */
+@Component
+@RequiredArgsConstructor
+public class CallerResolver {
+
+    private static final int MAX_LABEL_LENGTH = 128;
+
+    private final AdmissionProperties properties;
+
+    /** Authenticated principal name, or remote address. */
+    public String identity(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "principal:" + principal.getName() : request.getRemoteAddr();
+    }
+
+    /** Value of the caller header, {@code ""} when absent. */
+    public String label(HttpServletRequest request) {
+        String header = request.getHeader(properties.callerHeader());
+        if (header == null || header.isBlank()) {
+            return "";
+        }
+        // Valeur libre : tronquée pour borner la taille des clés
+        String label = header.trim();
+        return label.length() > MAX_LABEL_LENGTH ? label.substring(0, MAX_LABEL_LENGTH) : label;
+    }
+}
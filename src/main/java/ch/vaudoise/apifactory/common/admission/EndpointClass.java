@@ -0,0 +1,17 @@
+package ch.vaudoise.apifactory.common.admission;
+
+/**
+ * Cost classes of the API endpoints, each with its own concurrency cap ({@code app.admission.endpoints.*}).
+ */
+public enum EndpointClass {
+    /** Batch creations and bulk updates/deletions: one request writes many rows. */
+    BATCH,
+    /** Streamed exports of every client or contract. */
+    EXPORT,
+    /** Paginated listings and searches. */
+    LIST,
+    /** Active sums, roll-ups and consistency checks. */
+    SUM,
+    /** Single-entity creations, updates and deletions. */
+    WRITE
+}
@@ -0,0 +1,35 @@
+package ch.vaudoise.apifactory.common.admission;
+
+/**
+ * Token bucket refilled continuously: up to {@code capacity} tokens, {@code refillPerSecond} added per second.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1e9;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes {@code cost} tokens (at most the capacity, so that any request can eventually pass).
+     *
+     * @return 0 when taken, otherwise the nanoseconds until enough tokens are available
+     */
+    synchronized long tryTake(double cost, long now) {
+        double needed = Math.min(cost, capacity);
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= needed) {
+            tokens -= needed;
+            return 0;
+        }
+        return (long) Math.ceil((needed - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,21 @@
+package ch.vaudoise.apifactory.common.batch;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One error of one batch item, in the format of the validation errors of {@code GlobalExceptionHandler}:
+ * {@code field} for a property, {@code object} for a rule spanning the whole item.
+ *
+ * @param conflict whether the item clashes with another item or with existing data (409) rather than
+ *                 being invalid in itself (400)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemError(
+        int index,
+        String field,
+        String object,
+        String message,
+        Object rejectedValue,
+        @JsonIgnore boolean conflict
+) { }
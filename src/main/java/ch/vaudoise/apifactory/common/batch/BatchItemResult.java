@@ -0,0 +1,16 @@
+package ch.vaudoise.apifactory.common.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of one item of a non-atomic batch: the created id, or the errors that rejected it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(
+        int index,
+        BatchItemStatus status,
+        Long id,
+        List<BatchItemError> errors
+) { }
@@ -0,0 +1,12 @@
+package ch.vaudoise.apifactory.common.batch;
+
+/**
+ * Outcome of one item of a non-atomic batch.
+ */
+public enum BatchItemStatus {
+    CREATED,
+    /** Rejected by validation (bean constraints or business rules). */
+    INVALID,
+    /** Rejected because it duplicates another item or existing data. */
+    CONFLICT
+}
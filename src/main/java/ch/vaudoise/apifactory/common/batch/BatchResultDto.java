@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.common.batch;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Response of a non-atomic batch ({@code atomic=false}): one status per item, in payload order.
+ */
+public record BatchResultDto(
+        int created,
+        int rejected,
+        List<BatchItemResult> items
+) {
+    /** Ids of the created items, in payload order. */
+    @JsonIgnore
+    public List<Long> createdIds() {
+        return items.stream().filter(i -> i.status() == BatchItemStatus.CREATED).map(BatchItemResult::id).toList();
+    }
+}
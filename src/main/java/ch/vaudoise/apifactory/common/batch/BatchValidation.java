@@ -0,0 +1,83 @@
+package ch.vaudoise.apifactory.common.batch;
+
+import ch.vaudoise.apifactory.common.exception.BatchValidationException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Errors collected over all the items of a batch in a single pass, without throwing.
+ * <p>
+ * Created by {@link BatchValidator} with the Bean Validation errors; services then add their own
+ * rules ({@link #reject}, {@link #conflict}) for the items still valid, and either throw
+ * {@link #toException()} (atomic batch) or build the per-item {@link #result} (partial batch).
+ */
+public class BatchValidation {
+
+    private final int size;
+    private final Map<Integer, List<BatchItemError>> errors = new TreeMap<>();
+
+    public BatchValidation(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isValid(int index) {
+        return !errors.containsKey(index);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /** Adds an error on a property of an item. */
+    public void reject(int index, String field, String message, Object rejectedValue) {
+        add(new BatchItemError(index, field, null, message, rejectedValue, false));
+    }
+
+    /** Adds a duplicate / already-existing error on a property of an item. */
+    public void conflict(int index, String field, String message, Object rejectedValue) {
+        add(new BatchItemError(index, field, null, message, rejectedValue, true));
+    }
+
+    void add(BatchItemError error) {
+        errors.computeIfAbsent(error.index(), i -> new ArrayList<>()).add(error);
+    }
+
+    /** All errors, by item index. */
+    public List<BatchItemError> errors() {
+        return errors.values().stream().flatMap(List::stream).toList();
+    }
+
+    /** Exception reporting every error at once: 409 when all of them are conflicts, 400 otherwise. */
+    public BatchValidationException toException() {
+        return new BatchValidationException(errors());
+    }
+
+    /**
+     * Per-item outcome of a partial batch.
+     *
+     * @param createdIds ids of the valid items, in payload order
+     */
+    public BatchResultDto result(List<Long> createdIds) {
+        List<BatchItemResult> items = new ArrayList<>(size);
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            List<BatchItemError> itemErrors = errors.get(i);
+            if (itemErrors == null) {
+                items.add(new BatchItemResult(i, BatchItemStatus.CREATED, createdIds.get(next++), null));
+            } else {
+                boolean conflict = itemErrors.stream().allMatch(BatchItemError::conflict);
+                items.add(new BatchItemResult(i, conflict ? BatchItemStatus.CONFLICT : BatchItemStatus.INVALID, null,
+                        itemErrors.stream().sorted(Comparator.comparing(e -> e.field() == null ? "" : e.field())).toList()));
+            }
+        }
+        return new BatchResultDto(createdIds.size(), size - createdIds.size(), items);
+    }
+}
@@ -0,0 +1,51 @@
+package ch.vaudoise.apifactory.common.batch;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.beans.Introspector;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs Bean Validation on every item of a batch payload and collects the violations into a
+ * {@link BatchValidation}.
+ * <p>
+ * Batch endpoints do not use {@code @Valid} on their list: method validation would stop the request
+ * with an exception before the business rules are checked, and could not commit the valid items.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchValidator {
+
+    private final Validator validator;
+
+    public <T> BatchValidation validate(List<T> items) {
+        var validation = new BatchValidation(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            if (item == null) {
+                validation.add(new BatchItemError(i, null, null, "must not be null", null, false));
+                continue;
+            }
+            int index = i;
+            validator.validate(item).stream()
+                    .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                    .forEach(v -> validation.add(toError(index, item, v)));
+        }
+        return validation;
+    }
+
+    private static BatchItemError toError(int index, Object item, ConstraintViolation<?> v) {
+        String path = v.getPropertyPath().toString();
+        // Règle de classe (@ValidClientPayload...) : la valeur rejetée est l'élément entier, inutile de la renvoyer
+        Object rejected = v.getInvalidValue() == item ? null : v.getInvalidValue();
+        if (path.isEmpty()) {
+            String object = Introspector.decapitalize(item.getClass().getSimpleName());
+            return new BatchItemError(index, null, object, v.getMessage(), null, false);
+        }
+        return new BatchItemError(index, path, null, v.getMessage(), rejected, false);
+    }
+}
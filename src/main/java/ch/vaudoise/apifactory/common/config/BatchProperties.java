@@ -0,0 +1,19 @@
+package ch.vaudoise.apifactory.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Tuning of the batch ingestion endpoints ({@code app.batch.*}).
+ * <p>
+ * {@code flushSize} is the number of entities persisted before the persistence context
+ * is flushed (one JDBC batch round trip per {@code hibernate.jdbc.batch_size} rows) and cleared,
+ * so that memory stays constant whatever the size of the payload.
+ * {@code adjustChunkSize} is the number of contracts a percentage bulk cost adjustment changes per
+ * transaction (locks are held for one chunk only).
+ */
+@ConfigurationProperties(prefix = "app.batch")
+public record BatchProperties(
+        @DefaultValue("500") int flushSize,
+        @DefaultValue("1000") int adjustChunkSize
+) { }
@@ -0,0 +1,13 @@
+package ch.vaudoise.apifactory.common.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (expiry sweeps, consistency checks...).
+ * <p>
+ * Each job reads its cron expression from configuration; the value {@code -} disables it.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig { }
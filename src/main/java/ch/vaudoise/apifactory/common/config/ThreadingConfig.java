@@ -0,0 +1,27 @@
+package ch.vaudoise.apifactory.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Request execution mode.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true}, Spring Boot runs Tomcat request handling,
+ * {@code @Async} and {@code @Scheduled} work on virtual threads. This needs Java 21+: on an
+ * older runtime the property is silently ignored by Spring Boot, so it is reported here.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class ThreadingConfig {
+
+    ThreadingConfig(Environment environment) {
+        boolean virtual = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (virtual && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled=true is ignored: virtual threads require Java 21+ (running {})",
+                    Runtime.version());
+        } else if (virtual) {
+            log.info("Requests are handled on virtual threads");
+        }
+    }
+}
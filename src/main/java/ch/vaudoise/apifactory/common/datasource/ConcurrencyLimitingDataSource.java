@@ -0,0 +1,141 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import ch.vaudoise.apifactory.common.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource that bounds the number of connections checked out at the same time.
+ * <p>
+ * A fair semaphore is acquired in {@link #getConnection()} and released when the connection is
+ * closed (returned to the pool). Callers that cannot get a permit within the acquire timeout get
+ * a {@link DatabaseBusyException}, mapped to 503 by the exception handler. With many cheap
+ * (virtual) threads this keeps the pool from being stampeded, and the queue wait is reported as
+ * {@code app.datasource.queue.wait}.
+ * <p>
+ * Not a {@code MeterBinder} itself: the DataSource bean would then be bound a second time by
+ * Spring Boot. {@link #bindMetrics(MeterRegistry)} is called once, by
+ * {@link DataSourceConcurrencyConfig}.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+
+    /** {@code Retry-After} suggested to callers that timed out. */
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private volatile Timer queueWait;
+    private volatile Counter rejected;
+
+    public ConcurrencyLimitingDataSource(DataSource target, int maxConcurrent, Duration acquireTimeout) {
+        super(target);
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be >= 1");
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Registers the queue and permit meters; call once per registry. */
+    public void bindMetrics(MeterRegistry registry) {
+        queueWait = Timer.builder("app.datasource.queue.wait")
+                .description("Time spent waiting for a database permit")
+                .register(registry);
+        rejected = Counter.builder("app.datasource.rejected")
+                .description("Connection requests rejected after the acquire timeout")
+                .register(registry);
+        Gauge.builder("app.datasource.queue.waiting", waiting, AtomicInteger::get)
+                .description("Threads waiting for a database permit")
+                .register(registry);
+        Gauge.builder("app.datasource.permits.in.use", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Database permits currently held")
+                .register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        } finally {
+            waiting.decrementAndGet();
+            Timer timer = queueWait;
+            if (timer != null) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            Counter counter = rejected;
+            if (counter != null) counter.increment();
+            throw new DatabaseBusyException(
+                    "No database permit available within " + acquireTimeout.toMillis() + " ms", RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /** Wraps the pooled connection so that {@code close()} also releases the permit (once). */
+    private Connection releasingOnClose(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) permits.release();
+                        }
+                        yield null;
+                    }
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Limited[" + target + "]";
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,39 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Concurrency limiter of the application DataSource ({@code app.datasource.concurrency.enabled=true},
+ * off by default). The wrapping itself is done by {@link DataSourceWrappingConfig}; this class
+ * builds the limiter and binds its meters, once.
+ * <p>
+ * This matters most with {@code spring.threads.virtual.enabled=true} (Java 21+), where request
+ * threads are no longer bounded by the Tomcat pool: the limiter becomes the back-pressure point.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConcurrencyConfig {
+
+    static ConcurrencyLimitingDataSource limit(DataSource target, DataSourceConcurrencyProperties properties) {
+        return new ConcurrencyLimitingDataSource(target, properties.maxConcurrent(), properties.acquireTimeout());
+    }
+
+    @Bean
+    MeterBinder dataSourceConcurrencyMetrics(DataSource dataSource) {
+        return registry -> {
+            try {
+                if (dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class)) {
+                    dataSource.unwrap(ConcurrencyLimitingDataSource.class).bindMetrics(registry);
+                }
+            } catch (SQLException e) {
+                log.warn("Cannot bind DataSource concurrency metrics", e);
+            }
+        };
+    }
+}
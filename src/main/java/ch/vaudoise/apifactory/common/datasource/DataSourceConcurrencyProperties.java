@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limiter placed in front of the DataSource ({@code app.datasource.concurrency.*}), opt-in.
+ * <p>
+ * {@code maxConcurrent} connections may be checked out at once; other callers wait in a fair
+ * queue for at most {@code acquireTimeout}, then get a 503. Keeping it at the size of the
+ * connection pool means the pool itself never queues and the wait is measured in one place.
+ */
+@ConfigurationProperties(prefix = "app.datasource.concurrency")
+public record DataSourceConcurrencyProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10") int maxConcurrent,
+        @DefaultValue("5s") Duration acquireTimeout
+) { }
@@ -0,0 +1,58 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Single wrapping point of the application DataSource, so that the order of the wrappers is fixed:
+ * <ol>
+ *   <li>the pool is wrapped in the {@link ConcurrencyLimitingDataSource} when
+ *       {@code app.datasource.concurrency.enabled=true} ({@link DataSourceConcurrencyConfig});</li>
+ *   <li>the result is wrapped in the read-only router when {@code app.datasource.replica.enabled=true}
+ *       ({@link ReadReplicaConfig}). Reads that fall back to the primary thus go through the limiter,
+ *       replica connections are bounded by the replica pool only.</li>
+ * </ol>
+ * A DataSource is wrapped once: the post-processor skips the wrappers it produces.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class DataSourceWrappingConfig {
+
+    /** Static: post-processors are instantiated before regular beans. */
+    @Bean
+    static BeanPostProcessor dataSourceWrapper(Environment environment, ObjectProvider<ReadReplica> replica) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof LazyConnectionDataSourceProxy
+                        || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                var binder = Binder.get(environment);
+                var concurrency = binder.bindOrCreate("app.datasource.concurrency", DataSourceConcurrencyProperties.class);
+                var routing = binder.bindOrCreate(ReadReplicaConfig.PREFIX, ReplicaDataSourceProperties.class);
+
+                DataSource wrapped = dataSource;
+                if (concurrency.enabled()) {
+                    log.info("DataSource '{}' limited to {} concurrent connections (acquire timeout {})",
+                            beanName, concurrency.maxConcurrent(), concurrency.acquireTimeout());
+                    wrapped = DataSourceConcurrencyConfig.limit(wrapped, concurrency);
+                }
+                if (routing.enabled()) {
+                    log.info("DataSource '{}': read-only transactions routed to replica {} (max lag {})",
+                            beanName, routing.url(), routing.maxLag());
+                    wrapped = ReadReplicaConfig.route(wrapped, replica.getObject());
+                }
+                return wrapped;
+            }
+        };
+    }
+}
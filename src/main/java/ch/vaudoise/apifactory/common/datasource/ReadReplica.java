@@ -0,0 +1,142 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Connection pool of the read replica, and whether it may currently serve reads.
+ * <p>
+ * The replica starts out of sync: it is only used once {@link #probe(LocalDateTime)} has seen a
+ * heartbeat younger than {@code maxLag}. A replica that cannot hand out a connection is marked out
+ * of sync on the spot, and the read falls back to the primary until the next successful probe.
+ * Reported as {@code app.datasource.replica.lag} (seconds, NaN while unknown),
+ * {@code app.datasource.replica.in.sync} and {@code app.datasource.replica.connections{target}}.
+ */
+@Slf4j
+public class ReadReplica implements MeterBinder, AutoCloseable {
+
+    static final String HEARTBEAT_TABLE = "replication_heartbeat";
+
+    private final HikariDataSource dataSource;
+    private final Duration maxLag;
+
+    private volatile boolean inSync;
+    private volatile Duration lag; // null tant qu'aucun battement n'a été lu
+
+    private volatile Counter replicaConnections;
+    private volatile Counter primaryConnections;
+
+    public ReadReplica(ReplicaDataSourceProperties properties) {
+        if (properties.url() == null || properties.url().isBlank()) {
+            throw new IllegalStateException("app.datasource.replica.url is required when the replica is enabled");
+        }
+        var config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setJdbcUrl(properties.url());
+        config.setUsername(properties.username());
+        config.setPassword(properties.password());
+        config.setMaximumPoolSize(properties.maximumPoolSize());
+        config.setConnectionTimeout(properties.connectionTimeout().toMillis());
+        config.setReadOnly(true);
+        config.setInitializationFailTimeout(-1); // le réplica peut être absent au démarrage
+        this.dataSource = new HikariDataSource(config);
+        this.maxLag = properties.maxLag();
+    }
+
+    /** A replica connection when the replica is in sync, otherwise a connection to {@code primary}. */
+    Connection getConnection(DataSource primary) throws SQLException {
+        if (inSync) {
+            try {
+                Connection connection = dataSource.getConnection();
+                increment(replicaConnections);
+                return connection;
+            } catch (SQLException e) {
+                outOfSync("unreachable (" + e.getMessage() + ")");
+            }
+        }
+        increment(primaryConnections);
+        return primary.getConnection();
+    }
+
+    /**
+     * Reads the last heartbeat replicated to the replica and compares it with {@code now}, the
+     * time the primary heartbeat was written at.
+     */
+    void probe(LocalDateTime now) {
+        Timestamp beatAt;
+        try (Connection c = dataSource.getConnection();
+             var st = c.prepareStatement("SELECT beat_at FROM " + HEARTBEAT_TABLE + " WHERE id = 1");
+             ResultSet rs = st.executeQuery()) {
+            beatAt = rs.next() ? rs.getTimestamp(1) : null;
+        } catch (SQLException e) {
+            lag = null;
+            outOfSync("unreachable (" + e.getMessage() + ")");
+            return;
+        }
+        if (beatAt == null) {
+            lag = null;
+            outOfSync("no heartbeat replicated yet");
+            return;
+        }
+        Duration measured = Duration.between(beatAt.toLocalDateTime(), now);
+        lag = measured.isNegative() ? Duration.ZERO : measured;
+        if (lag.compareTo(maxLag) > 0) {
+            outOfSync("lagging by " + lag + " (max " + maxLag + ")");
+        } else if (!inSync) {
+            inSync = true;
+            log.info("Read replica in sync (lag {}): read-only transactions use the replica", lag);
+        }
+    }
+
+    boolean isInSync() {
+        return inSync;
+    }
+
+    private void outOfSync(String reason) {
+        if (inSync) {
+            inSync = false;
+            log.warn("Read replica {}: read-only transactions fall back to the primary", reason);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) counter.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.datasource.replica.lag", this, r -> r.lag == null ? Double.NaN : r.lag.toNanos() / 1e9)
+                .description("Replication lag measured with the heartbeat row")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("app.datasource.replica.in.sync", this, r -> r.inSync ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(registry);
+        replicaConnections = Counter.builder("app.datasource.replica.connections")
+                .description("Connections handed out to read-only transactions")
+                .tag("target", "replica")
+                .register(registry);
+        primaryConnections = Counter.builder("app.datasource.replica.connections")
+                .description("Connections handed out to read-only transactions")
+                .tag("target", "primary")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,66 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Routes read-only transactions to the read replica when {@code app.datasource.replica.enabled=true}.
+ * <p>
+ * The application DataSource is wrapped in a {@link LazyConnectionDataSourceProxy} (by
+ * {@link DataSourceWrappingConfig}, outside the concurrency limiter): the physical
+ * connection is only fetched on the first statement, once the transaction manager has flagged it
+ * read-only or not. Read-only connections come from {@link ReadReplica} (or the primary when the
+ * replica lags), all others from the primary. Services only declare
+ * {@code @Transactional(readOnly = true)}; a read-only method called from a read-write transaction
+ * joins it and therefore stays on the primary.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ReadReplicaConfig {
+
+    static final String PREFIX = "app.datasource.replica";
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = PREFIX, name = "enabled", havingValue = "true")
+    ReadReplica readReplica(ReplicaDataSourceProperties properties) {
+        return new ReadReplica(properties);
+    }
+
+    /**
+     * Router in front of {@code primary}: read-only connections from {@code replica} while in sync,
+     * all others from {@code primary}. Applied by {@link DataSourceWrappingConfig}.
+     */
+    static DataSource route(DataSource primary, ReadReplica replica) {
+        var router = new LazyConnectionDataSourceProxy(primary);
+        router.setReadOnlyDataSource(new ReplicaOrPrimary(replica, primary));
+        return router;
+    }
+
+    /** Read-only target of the router: the replica while in sync, the primary otherwise. */
+    private static final class ReplicaOrPrimary extends AbstractDataSource {
+
+        private final ReadReplica replica;
+        private final DataSource primary;
+
+        private ReplicaOrPrimary(ReadReplica replica, DataSource primary) {
+            this.replica = replica;
+            this.primary = primary;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return replica.getConnection(primary);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
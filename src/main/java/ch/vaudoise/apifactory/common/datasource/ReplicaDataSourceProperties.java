@@ -0,0 +1,26 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Optional read replica ({@code app.datasource.replica.*}).
+ * <p>
+ * When enabled, read-only transactions use a connection to {@code url}; everything else uses the
+ * primary. The replica is only used while its measured lag is at most {@code maxLag}: the lag is
+ * checked every {@code heartbeatInterval}, and {@code connectionTimeout} bounds the wait for a
+ * replica connection before falling back to the primary.
+ */
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public record ReplicaDataSourceProperties(
+        @DefaultValue("false") boolean enabled,
+        String url,
+        @DefaultValue("sa") String username,
+        @DefaultValue("") String password,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("1s") Duration connectionTimeout,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("1s") Duration heartbeatInterval
+) { }
@@ -0,0 +1,45 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static ch.vaudoise.apifactory.common.datasource.ReadReplica.HEARTBEAT_TABLE;
+
+/**
+ * Measures the replication lag with a heartbeat row.
+ * <p>
+ * Every {@code heartbeatInterval} the current time is written to the primary, then the row is read
+ * back from the replica: the difference is the lag, give or take one interval. The table is
+ * outside the JPA model and is replicated like any other table.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate jdbcTemplate; // hors transaction : toujours le primaire
+    private final ReadReplica replica;
+
+    @PostConstruct
+    void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE
+                + " (id INT PRIMARY KEY, beat_at TIMESTAMP NOT NULL)");
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval:1s}")
+    public void check() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp beat = Timestamp.valueOf(now);
+        if (jdbcTemplate.update("UPDATE " + HEARTBEAT_TABLE + " SET beat_at = ? WHERE id = 1", beat) == 0) {
+            jdbcTemplate.update("INSERT INTO " + HEARTBEAT_TABLE + " (id, beat_at) VALUES (1, ?)", beat);
+        }
+        replica.probe(now);
+    }
+}
@@ -1,12 +1,25 @@
 package ch.vaudoise.apifactory.common.error;
 
 import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import ch.vaudoise.apifactory.common.exception.BatchValidationException;
 import ch.vaudoise.apifactory.common.exception.ConflictException;
+import ch.vaudoise.apifactory.common.exception.DatabaseBusyException;
 import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import ch.vaudoise.apifactory.common.exception.PayloadTooLargeException;
+import ch.vaudoise.apifactory.common.exception.PreconditionFailedException;
+import ch.vaudoise.apifactory.common.exception.ServiceUnavailableException;
+import ch.vaudoise.apifactory.common.exception.TooManyRequestsException;
+import ch.vaudoise.apifactory.common.exception.UnprocessableEntityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,13 +40,25 @@ import java.util.*;
  *   <li>{@code HttpMessageNotReadableException} for unknown/invalid JSON</li>
  *   <li>{@code DataIntegrityViolationException} for database constraints (e.g., unique email)</li>
  *   <li>Custom {@code BadRequestException} and {@code NotFoundException}</li>
+ *   <li>{@code BatchValidationException}: every rejected item of an atomic batch, in the same format</li>
+ *   <li>{@code If-Match} preconditions not met (412) and concurrent modifications (409)</li>
+ *   <li>{@code Idempotency-Key} reused for a different request (422)</li>
+ *   <li>No database permit from the DataSource limiter in time (503 with {@code Retry-After});
+ *       other database failures are not mapped</li>
+ *   <li>Admission control: body or batch too large (413), rate limit exceeded (429) and
+ *       endpoint saturated (503), both with {@code Retry-After}</li>
  * </ul>
+ * Every mapped exception increments the {@code app.errors} counter, tagged by status and error code.
  */
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     private Map<String, Object> baseBody(int status, String error, String message) {
+        meterRegistry.counter("app.errors", "status", String.valueOf(status), "error", error).increment();
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", OffsetDateTime.now().toString());
         body.put("status", status);
@@ -45,12 +70,8 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String,Object>> jsonUnreadable(HttpMessageNotReadableException ex){
-        var body = new LinkedHashMap<String,Object>();
-        body.put("timestamp", java.time.OffsetDateTime.now().toString());
-        body.put("status", 400);
-        body.put("error", "BAD_REQUEST");
         // Message court et utile
-        body.put("message", "Unknown or invalid JSON properties in request body");
+        var body = baseBody(400, "BAD_REQUEST", "Unknown or invalid JSON properties in request body");
         return ResponseEntity.badRequest().body(body);
     }
 
@@ -142,6 +163,16 @@ public class GlobalExceptionHandler {
         body.put("errors", errors);
         return ResponseEntity.badRequest().body(body);
     }
+    // 400 / 409 – tous les éléments rejetés d'un batch atomique, en une seule réponse
+    @ExceptionHandler(BatchValidationException.class)
+    public ResponseEntity<Map<String, Object>> batchValidation(BatchValidationException ex) {
+        var body = ex.isConflict()
+                ? baseBody(409, "CONFLICT", "Batch items conflict with each other or with existing data")
+                : baseBody(400, "VALIDATION_ERROR", "Request validation failed");
+        body.put("errors", ex.getErrors());
+        return ResponseEntity.status(ex.isConflict() ? 409 : 400).body(body);
+    }
+
     // 409 pour nos conflits "métier"
     @ExceptionHandler(ConflictException.class)
     public ResponseEntity<Map<String,Object>> conflict(ConflictException ex) {
@@ -149,6 +180,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(409).body(body);
     }
 
+    // 412 – If-Match ne correspond plus à la version courante
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String,Object>> preconditionFailed(PreconditionFailedException ex) {
+        var body = baseBody(412, "PRECONDITION_FAILED", ex.getMessage());
+        return ResponseEntity.status(412).body(body);
+    }
+
+    // 422 – requête bien formée mais inapplicable (Idempotency-Key déjà utilisée pour une autre requête)
+    @ExceptionHandler(UnprocessableEntityException.class)
+    public ResponseEntity<Map<String,Object>> unprocessable(UnprocessableEntityException ex) {
+        var body = baseBody(422, "UNPROCESSABLE_ENTITY", ex.getMessage());
+        return ResponseEntity.status(422).body(body);
+    }
+
+    // 409 – écriture concurrente détectée par le verrouillage optimiste (requête sans If-Match)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String,Object>> optimisticLock(ObjectOptimisticLockingFailureException ex) {
+        var body = baseBody(409, "CONFLICT", "Concurrent modification, please retry");
+        return ResponseEntity.status(409).body(body);
+    }
+
     // 409 pour les violations d’unicité venant de la BDD (H2, etc.)
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String,Object>> dataIntegrity(DataIntegrityViolationException ex) {
@@ -172,4 +224,49 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(409).body(body);
     }
+
+    // 413 – corps ou batch au-delà des limites d'admission
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<Map<String,Object>> payloadTooLarge(PayloadTooLargeException ex) {
+        var body = baseBody(413, "PAYLOAD_TOO_LARGE", ex.getMessage());
+        return ResponseEntity.status(413).body(body);
+    }
+
+    // 429 – limite de débit de l'appelant ou du client dépassée
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String,Object>> tooManyRequests(TooManyRequestsException ex) {
+        var body = baseBody(429, "TOO_MANY_REQUESTS", ex.getMessage());
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    // 503 – classe d'endpoints saturée (file d'admission pleine ou attente trop longue)
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String,Object>> serviceUnavailable(ServiceUnavailableException ex) {
+        var body = baseBody(503, "SERVICE_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    // 503 – uniquement quand le limiteur de la DataSource n'a pas libéré de permis à temps ;
+    // toute autre panne de la base est relancée telle quelle (erreur serveur, pas de 503 trompeur)
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String,Object>> databaseUnavailable(RuntimeException ex) {
+        DatabaseBusyException busy = databaseBusyCause(ex);
+        if (busy == null) throw ex;
+        var body = baseBody(503, "SERVICE_UNAVAILABLE", "Database busy, please retry");
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    private static DatabaseBusyException databaseBusyCause(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseBusyException busy) return busy;
+            if (cause.getCause() == cause) break;
+        }
+        return null;
+    }
 }
@@ -0,0 +1,27 @@
+package ch.vaudoise.apifactory.common.exception;
+
+import ch.vaudoise.apifactory.common.batch.BatchItemError;
+
+import java.util.List;
+
+/**
+ * Rejects an atomic batch, with the errors of all its items (mapped to 400, or 409 when every
+ * error is a conflict).
+ */
+public class BatchValidationException extends RuntimeException {
+
+    private final transient List<BatchItemError> errors;
+
+    public BatchValidationException(List<BatchItemError> errors) {
+        super(errors.size() + " invalid batch item error(s)");
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<BatchItemError> getErrors() {
+        return errors;
+    }
+
+    public boolean isConflict() {
+        return errors.stream().allMatch(BatchItemError::conflict);
+    }
+}
@@ -0,0 +1,22 @@
+package ch.vaudoise.apifactory.common.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Raised by the DataSource concurrency limiter when no permit frees up within the acquire timeout (HTTP 503).
+ * It reaches the exception handler as the cause of the Spring or Hibernate exception wrapping it;
+ * {@code retryAfterSeconds} is sent back as {@code Retry-After}.
+ */
+public class DatabaseBusyException extends SQLTransientConnectionException {
+
+    private final long retryAfterSeconds;
+
+    public DatabaseBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
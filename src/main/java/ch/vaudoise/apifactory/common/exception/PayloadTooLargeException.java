@@ -0,0 +1,8 @@
+package ch.vaudoise.apifactory.common.exception;
+
+/**
+ * Application-level exception raised when a request body or batch exceeds the configured maximum (HTTP 413).
+ */
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) { super(message); }
+}
@@ -0,0 +1,9 @@
+package ch.vaudoise.apifactory.common.exception;
+
+/**
+ * Application-level exception raised when an {@code If-Match} precondition does not hold (HTTP 412):
+ * the resource has been modified since the client read it.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) { super(message); }
+}
@@ -0,0 +1,19 @@
+package ch.vaudoise.apifactory.common.exception;
+
+/**
+ * Application-level exception raised when a request is shed because the server is saturated (HTTP 503).
+ * {@code retryAfterSeconds} is sent back as {@code Retry-After}.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package ch.vaudoise.apifactory.common.exception;
+
+/**
+ * Application-level exception raised when a caller exceeds its rate limit (HTTP 429).
+ * {@code retryAfterSeconds} is sent back as {@code Retry-After}.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,9 @@
+package ch.vaudoise.apifactory.common.exception;
+
+/**
+ * Application-level exception raised when a well-formed request cannot be processed (HTTP 422),
+ * e.g. an {@code Idempotency-Key} reused with a different payload.
+ */
+public class UnprocessableEntityException extends RuntimeException {
+    public UnprocessableEntityException(String message) { super(message); }
+}
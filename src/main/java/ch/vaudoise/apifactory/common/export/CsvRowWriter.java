@@ -0,0 +1,56 @@
+package ch.vaudoise.apifactory.common.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link RowWriter} producing CSV for record types: one column per record component, header first.
+ * <p>
+ * Values are written with {@code toString()} (ISO dates, plain decimals); nulls become empty cells.
+ */
+class CsvRowWriter<T extends Record> implements RowWriter<T> {
+
+    private final RecordComponent[] columns;
+    private final Writer out;
+
+    CsvRowWriter(Class<T> type, OutputStream out) throws IOException {
+        this.columns = type.getRecordComponents();
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) this.out.write(',');
+            this.out.write(columns[i].getName());
+        }
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) out.write(',');
+            Object value;
+            try {
+                value = columns[i].getAccessor().invoke(row);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value != null) out.write(escape(value.toString()));
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,41 @@
+package ch.vaudoise.apifactory.common.export;
+
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formats supported by the streaming export endpoints.
+ */
+public enum ExportFormat {
+    /** One JSON object per line (newline-delimited JSON). */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    /** Comma-separated values with a header line (RFC 4180 quoting). */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv"),
+    /** CBOR sequence (RFC 8742): one CBOR item per row, no framing. */
+    CBOR(MediaType.parseMediaType("application/cbor-seq"), "cbor"),
+    /** Smile values written back to back after a single header. */
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"), "sml");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() { return mediaType; }
+
+    public String extension() { return extension; }
+
+    /** Parses the {@code format} request parameter (case-insensitive). */
+    public static ExportFormat of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + value);
+        }
+    }
+}
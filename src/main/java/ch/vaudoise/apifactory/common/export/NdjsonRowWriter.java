@@ -0,0 +1,31 @@
+package ch.vaudoise.apifactory.common.export;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link RowWriter} producing newline-delimited JSON (one object per line).
+ */
+class NdjsonRowWriter<T> implements RowWriter<T> {
+
+    private final ObjectWriter writer;
+    private final OutputStream out;
+
+    NdjsonRowWriter(ObjectWriter writer, OutputStream out) {
+        this.writer = writer;
+        this.out = out;
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        out.write(writer.writeValueAsBytes(row));
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
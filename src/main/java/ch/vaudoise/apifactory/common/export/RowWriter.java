@@ -0,0 +1,15 @@
+package ch.vaudoise.apifactory.common.export;
+
+import java.io.IOException;
+
+/**
+ * Writes rows one by one to an output stream, without buffering the whole result.
+ */
+public interface RowWriter<T> extends AutoCloseable {
+
+    void write(T row) throws IOException;
+
+    /** Flushes pending bytes; the underlying stream is left open. */
+    @Override
+    void close() throws IOException;
+}
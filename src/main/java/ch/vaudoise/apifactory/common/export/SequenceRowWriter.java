@@ -0,0 +1,30 @@
+package ch.vaudoise.apifactory.common.export;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link RowWriter} producing a sequence of root-level values of a binary Jackson format
+ * (a CBOR sequence, RFC 8742, or a Smile stream with a single header).
+ */
+class SequenceRowWriter<T> implements RowWriter<T> {
+
+    private final SequenceWriter writer;
+
+    SequenceRowWriter(ObjectWriter writer, OutputStream out) throws IOException {
+        this.writer = writer.writeValues(out);
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        writer.write(row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush(); // pas de close() : il fermerait le flux de la réponse
+    }
+}
@@ -0,0 +1,72 @@
+package ch.vaudoise.apifactory.common.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds streaming export responses.
+ * <p>
+ * The row producer (typically a service method iterating a forward-only database stream)
+ * pushes rows to a sink that writes them straight to the response output stream,
+ * so that heap usage does not depend on the number of exported rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamingExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    /**
+     * @param format   output format
+     * @param type     row type (a record, used for the CSV header)
+     * @param baseName file name (without extension) suggested to the client
+     * @param producer pushes every row to the given sink, inside its own transaction
+     */
+    public <T extends Record> ResponseEntity<StreamingResponseBody> export(ExportFormat format, Class<T> type,
+                                                                          String baseName,
+                                                                          Consumer<Consumer<T>> producer) {
+        StreamingResponseBody body = out -> {
+            var buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+            try (RowWriter<T> writer = open(format, type, buffered)) {
+                producer.accept(row -> {
+                    try {
+                        writer.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(baseName + "." + format.extension()).build().toString())
+                .body(body);
+    }
+
+    private <T extends Record> RowWriter<T> open(ExportFormat format, Class<T> type, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowWriter<>(objectMapper.writerFor(type), out);
+            case CSV -> new CsvRowWriter<>(type, out);
+            case CBOR -> new SequenceRowWriter<>(cborConverter.getObjectMapper().writerFor(type), out);
+            case SMILE -> new SequenceRowWriter<>(smileConverter.getObjectMapper().writerFor(type), out);
+        };
+    }
+}
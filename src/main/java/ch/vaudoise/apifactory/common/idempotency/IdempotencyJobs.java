@@ -0,0 +1,29 @@
+package ch.vaudoise.apifactory.common.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes the expired rows of the {@code idempotency_record} table every {@code cleanupInterval}
+ * (the in-memory entries expire on their own).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "persistent", havingValue = "true")
+@RequiredArgsConstructor
+public class IdempotencyJobs {
+
+    private final IdempotencyStore store;
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:10m}",
+            initialDelayString = "${app.idempotency.cleanup-interval:10m}")
+    public void purgeExpired() {
+        int deleted = store.purgeExpired();
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency record(s)", deleted);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ch.vaudoise.apifactory.common.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@code Idempotency-Key} support of the create endpoints ({@code app.idempotency.*}).
+ *
+ * @param enabled     honours the header (when off, it is ignored and every request is executed)
+ * @param maxEntries  maximum number of completed keys kept in memory (least-recently/frequently used
+ *                    are evicted; keys in progress are not counted and never evicted)
+ * @param ttl         how long a response is replayed after it was stored
+ * @param waitTimeout how long a duplicate waits for the request in progress before {@code 409}
+ * @param persistent  also stores the responses in the {@code idempotency_record} table, so that they
+ *                    survive evictions and restarts
+ * @param cleanupInterval delay between two deletions of the expired rows of that table
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maxEntries,
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("60s") Duration waitTimeout,
+        @DefaultValue("false") boolean persistent,
+        @DefaultValue("10m") Duration cleanupInterval
+) { }
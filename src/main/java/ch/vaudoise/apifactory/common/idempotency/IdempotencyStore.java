@@ -0,0 +1,289 @@
+package ch.vaudoise.apifactory.common.idempotency;
+
+import ch.vaudoise.apifactory.common.admission.CallerResolver;
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import ch.vaudoise.apifactory.common.exception.ConflictException;
+import ch.vaudoise.apifactory.common.exception.UnprocessableEntityException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the response of a create request retried with the same {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key executes normally and its response (status, {@code Location}, body)
+ * is stored once it has succeeded; a retry gets that response back without reaching the service
+ * layer, with an {@code Idempotent-Replayed: true} header. Specifically:
+ * <ul>
+ *   <li>a duplicate arriving while the first request is still running waits for its response
+ *       (at most {@code waitTimeout}, then {@code 409}) instead of executing a second time</li>
+ *   <li>the key is bound to a fingerprint of the operation and payload: reusing it for another
+ *       request is rejected with {@code 422}</li>
+ *   <li>the key is scoped by caller ({@link CallerResolver} identity and label): two integrators
+ *       sending the same value name two different requests</li>
+ *   <li>failed requests (exceptions, hence rolled back) are not stored: a retry executes again</li>
+ * </ul>
+ * Keys live in a size- and TTL-bounded in-memory map, where only completed keys count towards the
+ * size bound (a key in progress is never evicted, so its duplicates keep waiting for it), optionally
+ * backed by the
+ * {@code idempotency_record} table ({@code app.idempotency.persistent}) so that a retry is still
+ * recognized after an eviction or a restart. The response is stored after the service transaction
+ * has committed: a crash in between is the only case where a retry executes twice.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String TABLE = "idempotency_record";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate; // hors transaction : toujours le primaire
+    private final MeterRegistry meterRegistry;
+    private final CallerResolver callers;
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyStore(IdempotencyProperties properties, ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, CallerResolver callers) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.callers = callers;
+        // Poids nul tant que la requête d'origine s'exécute : épinglée hors de la borne de taille
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(properties.maxEntries())
+                .weigher((String key, Entry entry) -> entry.response.isDone() ? 1 : 0)
+                .expireAfterWrite(properties.ttl())
+                .build();
+        Gauge.builder("app.idempotency.entries", entries, Cache::estimatedSize)
+                .description("Idempotency keys held in memory, in progress or completed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void initialize() {
+        if (!properties.persistent()) return;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (idem_key VARCHAR(" + MAX_KEY_LENGTH
+                + ") PRIMARY KEY, fingerprint CHAR(64) NOT NULL, status INT NOT NULL, location VARCHAR(2048),"
+                + " body CLOB, created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_idempotency_record_created ON " + TABLE + " (created_at)");
+    }
+
+    /**
+     * Executes {@code action} once per key, or replays its stored response.
+     *
+     * @param key       value of the {@code Idempotency-Key} header, {@code null} when absent; scoped by
+     *                  the caller of the current request (none outside a request)
+     * @param operation method, path and parameters of the request ({@code POST /api/clients/1/contracts})
+     * @param request   request body, part of the fingerprint the key is bound to
+     * @param action    the controller logic, returning a successful response
+     */
+    public ResponseEntity<?> execute(String key, String operation, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || !properties.enabled()) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must contain 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(operation, request);
+        key = scoped(key);
+        while (true) {
+            Entry mine = new Entry(fingerprint);
+            Entry existing = entries.asMap().putIfAbsent(key, mine);
+            if (existing == null) {
+                StoredResponse stored = properties.persistent() ? load(key) : null;
+                if (stored == null) {
+                    return executeAndStore(key, mine, action);
+                }
+                // Connu de la table seulement (éviction ou redémarrage) : remis en mémoire
+                entries.asMap().replace(key, mine, Entry.completed(stored));
+                mine.response.complete(stored);
+                return replay(stored, fingerprint);
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw mismatch();
+            }
+            StoredResponse stored = await(existing);
+            if (stored != null) {
+                return replay(stored, fingerprint);
+            }
+            // La requête d'origine a échoué sans rien écrire : celle-ci est exécutée à sa place
+        }
+    }
+
+    /** Deletes the stored responses older than the TTL. */
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.ttl())));
+    }
+
+    private ResponseEntity<?> executeAndStore(String key, Entry mine, Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> response;
+        StoredResponse stored;
+        try {
+            response = action.get();
+            JsonNode body = response.getBody() == null ? null : objectMapper.valueToTree(response.getBody());
+            URI location = response.getHeaders().getLocation();
+            stored = new StoredResponse(mine.fingerprint, response.getStatusCode().value(),
+                    location == null ? null : location.toString(), body);
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(key, mine);
+            mine.response.complete(null);
+            throw e;
+        }
+        if (properties.persistent()) {
+            save(key, stored);
+        }
+        mine.response.complete(stored);
+        entries.asMap().replace(key, mine, mine); // repesée : compte désormais dans la borne
+        count("executed");
+        return response;
+    }
+
+    private StoredResponse await(Entry entry) {
+        try {
+            return entry.response.get(properties.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            count("in-progress");
+            throw new ConflictException("A request with the same " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("A request with the same " + HEADER + " is still in progress");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // jamais complété en erreur
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw mismatch();
+        }
+        count("replayed");
+        var builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.location() != null) {
+            builder.header(HttpHeaders.LOCATION, stored.location());
+        }
+        return stored.body() == null ? builder.build() : builder.body(stored.body());
+    }
+
+    private UnprocessableEntityException mismatch() {
+        count("mismatch");
+        return new UnprocessableEntityException(HEADER + " has already been used for a different request");
+    }
+
+    /** Runs the pending evictions now (they are otherwise performed asynchronously). */
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            return sha256(operation.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request " + operation, e);
+        }
+    }
+
+    /** Key of the map and of the table: hash of the caller and of the header value. */
+    private String scoped(String key) {
+        String caller = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? callers.identity(attributes.getRequest()) + "\n" + callers.label(attributes.getRequest()) : "";
+        return sha256(caller.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] first, byte[] second) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(first);
+            digest.update((byte) '\n');
+            digest.update(second);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private StoredResponse load(String key) {
+        List<StoredResponse> rows = jdbcTemplate.query(
+                "SELECT fingerprint, status, location, body FROM " + TABLE + " WHERE idem_key = ? AND created_at >= ?",
+                (rs, n) -> new StoredResponse(rs.getString(1), rs.getInt(2), rs.getString(3), readTree(rs.getString(4))),
+                key, Timestamp.valueOf(LocalDateTime.now().minus(properties.ttl())));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void save(String key, StoredResponse stored) {
+        try {
+            // MERGE : une ligne expirée mais pas encore purgée est remplacée
+            jdbcTemplate.update("MERGE INTO " + TABLE + " (idem_key, fingerprint, status, location, body, created_at)"
+                            + " KEY (idem_key) VALUES (?, ?, ?, ?, ?, ?)",
+                    key, stored.fingerprint(), stored.status(), stored.location(),
+                    stored.body() == null ? null : stored.body().toString(), Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataAccessException e) {
+            // La réponse reste rejouable depuis la mémoire
+            log.warn("Could not persist the response of {} {}", HEADER, key, e);
+        }
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return json == null ? null : objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted stored response in " + TABLE, e);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("app.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    /** Response replayed for a key; the body is kept as a JSON tree, rendered again in the negotiated format. */
+    record StoredResponse(String fingerprint, int status, String location, JsonNode body) { }
+
+    /** A key in progress ({@code response} not completed yet) or completed ({@code null} when it failed). */
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private static Entry completed(StoredResponse stored) {
+            Entry entry = new Entry(stored.fingerprint());
+            entry.response.complete(stored);
+            return entry;
+        }
+    }
+}
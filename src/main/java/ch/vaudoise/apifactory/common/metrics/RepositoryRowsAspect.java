@@ -0,0 +1,69 @@
+package ch.vaudoise.apifactory.common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Records the number of rows returned by each repository query ({@code app.repository.rows},
+ * tagged by repository and method).
+ * <p>
+ * Complements the {@code spring.data.repository.invocations} timer of Spring Boot: a query whose
+ * latency grows with the number of rows it returns shows up in both. Streams are not counted
+ * (they are consumed after the method returns), nor are scalar results (counts, sums, updates)
+ * and {@code save*}/{@code delete*} methods.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryRowsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @AfterReturning(pointcut = "execution(* ch.vaudoise.apifactory.contract.repository.ContractRepository.*(..))",
+            returning = "result")
+    public void contractRepository(JoinPoint joinPoint, Object result) {
+        record("ContractRepository", joinPoint, result);
+    }
+
+    @AfterReturning(pointcut = "execution(* ch.vaudoise.apifactory.client.repository.ClientRepository.*(..))",
+            returning = "result")
+    public void clientRepository(JoinPoint joinPoint, Object result) {
+        record("ClientRepository", joinPoint, result);
+    }
+
+    private void record(String repository, JoinPoint joinPoint, Object result) {
+        String method = joinPoint.getSignature().getName();
+        if (method.startsWith("save") || method.startsWith("delete")) return;
+        long rows = rows(result);
+        if (rows < 0) return;
+        DistributionSummary.builder("app.repository.rows")
+                .description("Rows returned per repository query")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    /** Number of rows of a query result, or -1 when the result is not a row set. */
+    private static long rows(Object result) {
+        if (result == null) return 0;
+        if (result instanceof Collection<?> c) return c.size();
+        if (result instanceof Slice<?> s) return s.getNumberOfElements();
+        if (result instanceof Optional<?> o) return o.isPresent() ? 1 : 0;
+        if (result instanceof Number || result instanceof Boolean || result instanceof Map<?, ?>
+                || result instanceof java.util.stream.BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1; // entité ou projection unique
+    }
+}
@@ -0,0 +1,45 @@
+package ch.vaudoise.apifactory.common.pagination;
+
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes/decodes opaque keyset cursors.
+ * <p>
+ * A cursor is the list of sort-key values of the last row of a page, joined and
+ * Base64url-encoded so that clients treat it as an opaque token.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "\u001F"; // "unit separator", absent des valeurs métier
+
+    private CursorCodec() { }
+
+    /** Builds a cursor from the sort-key values of the last returned row. */
+    public static String encode(Object... keys) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append(SEPARATOR);
+            sb.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into its sort-key values.
+     *
+     * @throws BadRequestException if the token is malformed or has an unexpected number of keys
+     */
+    public static String[] decode(String cursor, int expectedKeys) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split(SEPARATOR, -1);
+            if (keys.length != expectedKeys) throw new IllegalArgumentException();
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ch.vaudoise.apifactory.common.pagination;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) pagination.
+ * <p>
+ * {@code nextCursor} is an opaque token to pass back to fetch the following page;
+ * it is null on the last page. No total count is computed.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) { }
@@ -0,0 +1,42 @@
+package ch.vaudoise.apifactory.common.pagination;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Body of an offset-paginated listing, with the fields (and the nesting) a {@link Page} has
+ * always been serialized with: {@code content}, {@code pageable}, {@code totalElements},
+ * {@code totalPages}, {@code number}, {@code size}, {@code sort}, {@code first}, {@code last},
+ * {@code numberOfElements} and {@code empty}.
+ * <p>
+ * An explicit record keeps that public shape stable instead of depending on how Spring Data
+ * renders {@code PageImpl}; {@code pageable} is null for an unpaged request.
+ */
+public record PageResponse<T>(List<T> content, PageableView pageable, boolean last, long totalElements,
+                              int totalPages, int size, int number, SortView sort, boolean first,
+                              int numberOfElements, boolean empty) {
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        Pageable pageable = page.getPageable();
+        return new PageResponse<>(page.getContent(),
+                pageable.isPaged() ? new PageableView(pageable.getPageNumber(), pageable.getPageSize(),
+                        SortView.of(pageable.getSort()), pageable.getOffset(), true, false) : null,
+                page.isLast(), page.getTotalElements(), page.getTotalPages(), page.getSize(), page.getNumber(),
+                SortView.of(page.getSort()), page.isFirst(), page.getNumberOfElements(), page.isEmpty());
+    }
+
+    /** Page requested. */
+    public record PageableView(int pageNumber, int pageSize, SortView sort, long offset, boolean paged,
+                               boolean unpaged) { }
+
+    /** Whether the page is sorted. */
+    public record SortView(boolean empty, boolean sorted, boolean unsorted) {
+
+        static SortView of(Sort sort) {
+            return new SortView(sort.isEmpty(), sort.isSorted(), sort.isUnsorted());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ch.vaudoise.apifactory.common.schema;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the id sequences past the ids already stored in their table, at startup.
+ * <p>
+ * {@code client.id} and {@code contract.id} used to be IDENTITY columns. On a database written before
+ * they switched to pooled sequences, {@code ddl-auto=update} creates each sequence at 1 and its first blocks would
+ * hand out ids the existing rows already hold (duplicate keys, hence {@code 409}). A sequence whose
+ * next block would start at or below {@code MAX(id)} is restarted just above it; otherwise it is
+ * left untouched, so the check is a no-op on every later startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequences {
+
+    /** Sequence, table whose ids it allocates. */
+    static final Map<String, String> SEQUENCES = Map.of("CLIENT_SEQ", "client", "CONTRACT_SEQ", "contract");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory; // les séquences sont créées avec l'EntityManagerFactory
+
+    @PostConstruct
+    void initialize() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(product)) {
+            log.warn("Id sequences not checked: INFORMATION_SCHEMA.SEQUENCES is read the H2 way, not on {}", product);
+            return;
+        }
+        SEQUENCES.forEach(this::align);
+    }
+
+    /**
+     * Restarts {@code sequence} so that its next block starts above the highest id of {@code table}.
+     *
+     * @return whether the sequence had to be moved
+     */
+    boolean align(String sequence, String table) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT BASE_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES
+                WHERE SEQUENCE_SCHEMA = 'PUBLIC' AND SEQUENCE_NAME = ?""", sequence);
+        if (rows.isEmpty()) return false;
+        long next = ((Number) rows.get(0).get("BASE_VALUE")).longValue();
+        long increment = ((Number) rows.get(0).get("INCREMENT")).longValue();
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        // Optimiseur pooled : la valeur lue N donne le bloc [N - increment + 1, N]
+        if (maxId == null || next - increment >= maxId) return false;
+        long restart = maxId + increment;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+        log.info("Sequence {} restarted at {}, above the existing {} ids (max {})", sequence, restart, table, maxId);
+        return true;
+    }
+}
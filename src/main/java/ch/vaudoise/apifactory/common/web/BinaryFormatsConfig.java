@@ -0,0 +1,32 @@
+package ch.vaudoise.apifactory.common.web;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary alternatives to JSON for every request and response body: CBOR ({@code application/cbor})
+ * and Smile ({@code application/x-jackson-smile}), selected with {@code Content-Type} / {@code Accept}.
+ * <p>
+ * Both mappers come from the builder configured with the {@code spring.jackson.*} settings, so the
+ * data model is the same as in JSON (ISO dates, unknown properties rejected) and validation and error
+ * responses behave identically. The converters replace the default ones of Spring MVC in place,
+ * after the JSON converter: JSON remains the default when {@code Accept} is absent or {@code *}{@code /*}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatsConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
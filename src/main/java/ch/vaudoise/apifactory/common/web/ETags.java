@@ -0,0 +1,47 @@
+package ch.vaudoise.apifactory.common.web;
+
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import ch.vaudoise.apifactory.common.exception.PreconditionFailedException;
+
+/**
+ * Strong ETags derived from the optimistic-locking {@code version} of an entity ({@code "3"}).
+ */
+public final class ETags {
+
+    private ETags() { }
+
+    /** ETag of the given version. */
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Version expected by an {@code If-Match} header.
+     * <ul>
+     *   <li>absent or {@code *}: {@code null}, the update is unconditional</li>
+     *   <li>{@code "n"}: {@code n}</li>
+     *   <li>weak ETag ({@code W/"n"}): never matches (strong comparison), hence 412</li>
+     *   <li>quoted but not a version: never matches, hence 412</li>
+     *   <li>lists and unquoted values: 400</li>
+     * </ul>
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.contains(",")) {
+            throw new BadRequestException("If-Match must be a single ETag");
+        }
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("Weak ETags never match If-Match");
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // ETag inconnu : traité comme non concordant
+                throw new PreconditionFailedException("If-Match does not match the current ETag");
+            }
+        }
+        throw new BadRequestException("If-Match must be a single quoted ETag");
+    }
+}
@@ -1,14 +1,24 @@
 package ch.vaudoise.apifactory.contract.controller;
 
+import ch.vaudoise.apifactory.common.admission.Admission;
+import ch.vaudoise.apifactory.common.admission.AdmissionControl;
+import ch.vaudoise.apifactory.common.admission.EndpointClass;
+import ch.vaudoise.apifactory.common.export.ExportFormat;
+import ch.vaudoise.apifactory.common.export.StreamingExporter;
+import ch.vaudoise.apifactory.common.idempotency.IdempotencyStore;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
+import ch.vaudoise.apifactory.common.pagination.PageResponse;
+import ch.vaudoise.apifactory.common.web.ETags;
 import ch.vaudoise.apifactory.contract.dto.*;
 import ch.vaudoise.apifactory.contract.service.ContractService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.net.URI;
@@ -24,6 +34,11 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
  * Supports single and batch creation, filtered listing (active / updatedSince),
  * partial update of cost, and deletion.
  * Validation is handled via Jakarta Validation and centralized error handling.
+ * Creations accept an {@code Idempotency-Key} header: a retry with the same key gets the response
+ * of the first request back instead of creating the contracts again (see {@link IdempotencyStore}).
+ * Endpoints annotated with {@link Admission} are rate-limited and capped per endpoint class
+ * ({@code 429} / {@code 503} with {@code Retry-After}); batches are limited to
+ * {@code app.admission.max-batch-items} items ({@code 413}).
  */
 
 @RestController
@@ -32,62 +47,146 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
 public class ContractController {
 
     private final ContractService service;
+    private final StreamingExporter exporter;
+    private final IdempotencyStore idempotency;
+    private final AdmissionControl admission;
 
     /**
      * Creates a contract for a client.
      * <p>
      * If {@code startDate} is null, it defaults to today's date. {@code endDate} may be null.
      *
-     * @param clientId the owner client id
-     * @param dto      contract creation payload
+     * @param clientId       the owner client id
+     * @param dto            contract creation payload
+     * @param idempotencyKey optional key identifying the request across retries
      * @return {@code 201 Created} with a {@code Location} header to the new resource
      */
 
+    @Admission(EndpointClass.WRITE)
     @PostMapping("/clients/{clientId}/contracts")
-    public ResponseEntity<Void> create(
+    public ResponseEntity<?> create(
             @PathVariable Long clientId,
-            @Valid @RequestBody ContractCreateDto dto
+            @Valid @RequestBody ContractCreateDto dto,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey
     ) {
-        Long id = service.create(clientId, dto);
-        return ResponseEntity.created(URI.create("/api/contracts/" + id)).build();
+        return idempotency.execute(idempotencyKey, "POST /api/clients/" + clientId + "/contracts", dto, () -> {
+            Long id = service.create(clientId, dto);
+            return ResponseEntity.created(URI.create("/api/contracts/" + id)).build();
+        });
+    }
+
+    /**
+     * Retrieves a contract by its identifier.
+     *
+     * @param id contract id
+     * @return {@code 200 OK} with the contract and its version as {@code ETag}
+     *         ({@code 304 Not Modified} when it matches {@code If-None-Match}); no {@code ETag}
+     *         while a coalesced cost update is pending, the body not matching any stored version
+     */
+    @GetMapping("/contracts/{id}")
+    public ResponseEntity<ContractResponseDto> get(@PathVariable Long id) {
+        var contract = service.get(id);
+        if (service.hasPendingCost(id)) {
+            return ResponseEntity.ok(contract);
+        }
+        return ResponseEntity.ok().eTag(ETags.of(contract.version())).body(contract);
     }
 
     /**
      * Updates only the cost amount of a contract.
      * <p>
-     * Also updates the internal {@code lastUpdatedAt} timestamp.
+     * Also updates the internal {@code lastUpdatedAt} timestamp. With {@code If-Match}, the update
+     * is applied only if the contract is still at that version ({@code 412} otherwise, the client
+     * re-reads and retries).
+     * <p>
+     * With write coalescing ({@code app.contract-cost.coalescing.enabled=true}), an update without
+     * {@code If-Match} is buffered and answered {@code 202 Accepted} with the pending representation
+     * (no {@code ETag}); only the last cost received within the window is written. A conditional
+     * update first writes the pending cost, and so fails with {@code 412} if it was based on the
+     * version before it.
      *
-     * @param id     contract id
-     * @param dto    payload containing the new cost amount
-     * @return {@code 200 OK} with the updated representation
+     * @param id      contract id
+     * @param dto     payload containing the new cost amount
+     * @param ifMatch optional ETag of the version the update is based on
+     * @return {@code 200 OK} with the updated representation and its new {@code ETag},
+     *         or {@code 202 Accepted} when the update has been buffered
      */
 
+    @Admission(EndpointClass.WRITE)
     @PatchMapping("/contracts/{id}/cost")
-    public ContractResponseDto updateCost(
+    public ResponseEntity<ContractResponseDto> updateCost(
             @PathVariable Long id,
-            @Valid @RequestBody ContractCostUpdateDto dto
+            @Valid @RequestBody ContractCostUpdateDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         BigDecimal newCost = dto.costAmount();
-        return service.updateCost(id, newCost);
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        if (expectedVersion == null) {
+            var pending = service.coalesceCost(id, newCost);
+            if (pending.isPresent()) {
+                return ResponseEntity.accepted().body(pending.get());
+            }
+        }
+        var contract = service.updateCost(id, newCost, expectedVersion);
+        return ResponseEntity.ok().eTag(ETags.of(contract.version())).body(contract);
+    }
+
+    /**
+     * Updates the cost of many contracts without reading them first.
+     * <ul>
+     *   <li>{@code items}: explicit {@code (contractId, costAmount)} pairs, in a single transaction;
+     *       unknown contracts are reported in {@code errors}, the others are applied</li>
+     *   <li>{@code adjustment}: percentage applied to every contract of a client, of a client type
+     *       or of the whole portfolio (optionally active only), one transaction per chunk</li>
+     * </ul>
+     *
+     * @param request either {@code items} or {@code adjustment}
+     * @return {@code 200 OK} with the number of contracts updated and the rejected items,
+     *         {@code 400} when an adjusted cost would not fit the cost column
+     */
+
+    @Admission(EndpointClass.BATCH)
+    @PatchMapping("/contracts/cost")
+    public ContractCostBulkResultDto updateCosts(@Valid @RequestBody ContractCostBulkUpdateDto request) {
+        if (request.items() != null) {
+            admission.checkBatchSize(request.items().size());
+        }
+        return service.updateCosts(request);
     }
 
     /**
      * Batch-creates multiple contracts for a client in a single transaction.
      * <p>
-     * The operation is all-or-nothing: if any item is invalid, the entire batch is rolled back.
+     * Every item is validated before anything is written, and all errors are reported at once (with
+     * the index of the item). By default the operation is all-or-nothing: if any item is invalid,
+     * none is created. With {@code atomic=false} the valid items are created and the response lists
+     * the status of each item.
      *
-     * @param clientId owner client id
-     * @param items    list of contract payloads to create
-     * @return {@code 201 Created} with a body listing created ids
+     * @param clientId       owner client id
+     * @param items          list of contract payloads to create
+     * @param atomic         all-or-nothing (default) or partial success
+     * @param idempotencyKey optional key identifying the request across retries
+     * @return {@code 201 Created} with a body listing created ids, or {@code 200 OK} with the
+     *         per-item statuses when {@code atomic=false}
      */
 
+    @Admission(EndpointClass.BATCH)
     @PostMapping("/clients/{clientId}/contracts/batch")
-    public ResponseEntity<Map<String, Object>> createContractsBatch(
+    public ResponseEntity<?> createContractsBatch(
             @PathVariable Long clientId,
-            @RequestBody List<@Valid ContractCreateDto> items
+            @RequestBody List<ContractCreateDto> items,
+            @RequestParam(defaultValue = "true") boolean atomic,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey
     ) {
-        List<Long> ids = service.createBatch(clientId, items);
-        return ResponseEntity.status(201).body(Map.of("createdIds", ids));
+        admission.checkBatchSize(items.size());
+        String operation = "POST /api/clients/" + clientId + "/contracts/batch?atomic=" + atomic;
+        return idempotency.execute(idempotencyKey, operation, items, () -> {
+            if (!atomic) {
+                return ResponseEntity.ok(service.createBatch(clientId, items, false));
+            }
+            List<Long> ids = service.createBatch(clientId, items);
+            return ResponseEntity.status(201).body(Map.of("createdIds", ids));
+        });
     }
 
     /**
@@ -102,24 +201,118 @@ public class ContractController {
      * @param active       filter for active contracts (defaults to {@code true})
      * @param updatedSince optional timestamp to filter by last update
      * @param pageable     pagination configuration
-     * @return a page of {@code ContractResponseDto}
+     * @return a page of {@code ContractResponseDto}, in the {@link PageResponse} shape
      */
 
+    @Admission(EndpointClass.LIST)
     @GetMapping("/clients/{clientId}/contracts")
-    public Page<ContractResponseDto> listForClient(
+    public PageResponse<ContractResponseDto> listForClient(
             @PathVariable Long clientId,
             @RequestParam(defaultValue = "true") boolean active,
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
             Pageable pageable
     ) {
-        return service.listForClient(clientId, active, updatedSince, pageable);
+        return PageResponse.of(service.listForClient(clientId, active, updatedSince, pageable));
+    }
+
+    /**
+     * Lists contracts for a client with keyset (cursor) pagination.
+     * <p>
+     * Contracts are ordered by {@code lastUpdatedAt} then {@code id}. Unlike {@link #listForClient},
+     * no COUNT query is run and deep pages cost the same as the first one.
+     *
+     * @param clientId     owner client id
+     * @param active       filter for active contracts (defaults to {@code true})
+     * @param updatedSince optional timestamp to filter by last update (first page only)
+     * @param cursor       opaque token returned as {@code nextCursor} by the previous page
+     * @param size         page size (max 1000)
+     * @return the page items and the cursor of the next page ({@code null} on the last page)
+     */
+    @Admission(EndpointClass.LIST)
+    @GetMapping("/clients/{clientId}/contracts/cursor")
+    public CursorPage<ContractResponseDto> listForClientByCursor(
+            @PathVariable Long clientId,
+            @RequestParam(defaultValue = "true") boolean active,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return service.listForClientByCursor(clientId, active, updatedSince, cursor, size);
+    }
+
+    /**
+     * Active sum and count of many clients at once, streamed as NDJSON, CSV, CBOR or Smile.
+     * <p>
+     * Replaces one {@code /contracts/sum} call per client: the totals come from a single grouped
+     * query ({@code all=true}) or one per chunk of 1000 ids, with the same "active" rule.
+     * Clients without active contract are returned with zero; unknown ids are omitted.
+     *
+     * @param selection {@code clientIds} or {@code all=true}
+     * @param format    {@code ndjson} (default), {@code csv}, {@code cbor} or {@code smile}
+     * @return the streamed totals, in client id order
+     */
+    @Admission(EndpointClass.SUM)
+    @PostMapping("/contracts/sums")
+    public ResponseEntity<StreamingResponseBody> sums(@Valid @RequestBody ContractSumsRequestDto selection,
+                                                      @RequestParam(defaultValue = "ndjson") String format) {
+        return exporter.export(ExportFormat.of(format), SumResponseDto.class, "contract-sums",
+                sink -> service.exportSums(selection, sink));
+    }
+
+    /**
+     * Active totals of many clients rolled up per client type, plus portfolio-wide totals.
+     *
+     * @param selection {@code clientIds} or {@code all=true}
+     * @return totals per {@code ClientType} and overall
+     */
+    @Admission(EndpointClass.SUM)
+    @PostMapping("/contracts/sums/rollup")
+    public SumRollupDto rollup(@Valid @RequestBody ContractSumsRequestDto selection) {
+        return service.rollupSums(selection);
+    }
+
+    /**
+     * Streams all contracts (every client) as NDJSON, CSV, CBOR or Smile.
+     * <p>
+     * Rows are read from a forward-only database cursor and written straight to the response,
+     * so memory usage is flat whatever the number of contracts.
+     *
+     * @param format       {@code ndjson} (default), {@code csv}, {@code cbor} or {@code smile}
+     * @param active       only active contracts (defaults to {@code false})
+     * @param updatedSince optional timestamp to export only contracts updated after it
+     * @return the streamed export
+     */
+    @Admission(EndpointClass.EXPORT)
+    @GetMapping("/contracts/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean active,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince
+    ) {
+        return exporter.export(ExportFormat.of(format), ContractResponseDto.class, "contracts",
+                sink -> service.exportAll(active, updatedSince, sink));
     }
 
     /** Very performant endpoint: sum of costAmount of active contracts for one client */
+    @Admission(EndpointClass.SUM)
     @GetMapping("/clients/{clientId}/contracts/sum")
     public SumResponseDto sumActive(@PathVariable Long clientId) {
-        return new SumResponseDto(clientId, service.sumActive(clientId));
+        return service.sumActive(clientId);
+    }
+
+    /**
+     * Consistency check of the materialized sum against the live aggregate query.
+     *
+     * @param clientId owner client id
+     * @return both values and whether they match
+     */
+    @Admission(EndpointClass.SUM)
+    @GetMapping("/clients/{clientId}/contracts/sum/check")
+    public SummaryCheckDto checkSum(@PathVariable Long clientId) {
+        return service.checkSum(clientId);
     }
 
     /**
@@ -129,6 +322,7 @@ public class ContractController {
      * @return {@code 204 No Content}
      */
 
+    @Admission(EndpointClass.WRITE)
     @DeleteMapping("/contracts/{id}")
     @ResponseStatus(NO_CONTENT)
     public void delete(@PathVariable Long id) {
@@ -0,0 +1,41 @@
+package ch.vaudoise.apifactory.contract.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Materialized aggregate of the active contracts of one client.
+ * <p>
+ * Maintained in the same transaction as every contract mutation, so that the sum endpoint
+ * becomes a primary-key read instead of a scan of all contracts of the client.
+ * {@code asOf} is the day the "active" rule was evaluated at: contracts whose {@code endDate}
+ * falls after {@code asOf} are still counted, the expiry sweeper rolls the row forward.
+ */
+
+@Getter
+@Setter
+@Entity
+@Table(name = "client_contract_summary")
+public class ClientContractSummary {
+
+    /** Identifiant du client (une ligne par client). */
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    /** Somme des {@code costAmount} des contrats actifs à la date {@code asOf}. */
+    @Column(name = "active_total", nullable = false, precision = 16, scale = 2)
+    private BigDecimal activeTotal = BigDecimal.ZERO;
+
+    /** Nombre de contrats actifs à la date {@code asOf}. */
+    @Column(name = "active_count", nullable = false)
+    private long activeCount;
+
+    /** Date à laquelle la règle "actif" a été évaluée. */
+    @Column(name = "as_of", nullable = false)
+    private LocalDate asOf;
+}
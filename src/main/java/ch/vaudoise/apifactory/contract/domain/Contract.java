@@ -18,7 +18,9 @@ import java.time.LocalDateTime;
  * <p>
  * {@code startDate} defaults to today's date if not provided; {@code endDate} may be null.
  * {@code lastUpdatedAt} is maintained automatically via lifecycle callbacks
- * and is used by the {@code updatedSince} filter.
+ * and is used by the {@code updatedSince} filter. {@code version} backs the ETag / {@code If-Match}
+ * optimistic concurrency control of the cost update. {@code status} materializes whether the
+ * contract is active (see {@link ContractStatus}).
  */
 
 
@@ -29,13 +31,23 @@ import java.time.LocalDateTime;
         name = "contract",
         indexes = {
                 @Index(name = "idx_contract_client_enddate", columnList = "client_id, end_date"),
+                @Index(name = "idx_contract_client_status", columnList = "client_id, status, end_date"),
+                @Index(name = "idx_contract_status_enddate", columnList = "status, end_date"),
                 @Index(name = "idx_contract_client_updated", columnList = "client_id, last_updated_at")
         }
 )
 public class Contract {
 
+    /** Plus grand montant que la colonne {@code cost_amount} (14, 2) peut contenir. */
+    public static final BigDecimal MAX_COST_AMOUNT = new BigDecimal("999999999999.99");
+
+    /**
+     * Identifiant alloué par séquence (optimiseur pooled) :
+     * contrairement à IDENTITY, Hibernate peut regrouper les INSERT en lots JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contract_seq")
+    @SequenceGenerator(name = "contract_seq", sequenceName = "contract_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -79,10 +91,37 @@ public class Contract {
     private LocalDateTime lastUpdatedAt = LocalDateTime.now();
 
     /**
-     * Callback JPA pour mettre à jour la date à chaque update.
+     * Version (verrouillage optimiste) : exposée en ETag, comparée à {@code If-Match} sur PATCH.
+     * - Incrémentée aussi par les mises à jour en masse (requêtes UPDATE explicites)
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    /**
+     * Statut matérialisé, dérivé de endDate
+     * - Fixé à chaque insertion / mise à jour, basculé à ENDED par le job d'expiration après minuit
+     * - Les requêtes "actifs" ciblent l'index (client_id, status, end_date)
+     * - Défaut SQL : les lignes antérieures à la colonne sont reprises par le job d'expiration
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 8, columnDefinition = "varchar(8) default 'ACTIVE'")
+    private ContractStatus status = ContractStatus.ACTIVE;
+
+    /**
+     * Callback JPA pour fixer le statut à l'insertion.
+     */
+    @PrePersist
+    void onCreate() {
+        this.status = ContractStatus.of(endDate, LocalDate.now());
+    }
+
+    /**
+     * Callback JPA pour mettre à jour la date et le statut à chaque update.
      */
     @PreUpdate
     void onUpdate() {
         this.lastUpdatedAt = LocalDateTime.now();
+        this.status = ContractStatus.of(endDate, LocalDate.now());
     }
 }
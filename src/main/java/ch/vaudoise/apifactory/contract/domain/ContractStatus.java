@@ -0,0 +1,21 @@
+package ch.vaudoise.apifactory.contract.domain;
+
+import java.time.LocalDate;
+
+/**
+ * Materialized "active" state of a {@link Contract}, derived from its {@code endDate}.
+ * <p>
+ * {@code ENDED} is final: once its end date has passed, a contract never becomes active again.
+ * {@code ACTIVE} is only as fresh as the last write or expiry sweep, so active queries keep the
+ * date predicate as a residual filter; the status lets them seek on the index instead of reading
+ * every contract of a client.
+ */
+public enum ContractStatus {
+    ACTIVE,
+    ENDED;
+
+    /** Status on {@code day} of a contract ending on {@code endDate} (null: open-ended). */
+    public static ContractStatus of(LocalDate endDate, LocalDate day) {
+        return endDate == null || day.isBefore(endDate) ? ACTIVE : ENDED;
+    }
+}
@@ -0,0 +1,15 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum and count of the active contracts of all selected clients of one type.
+ */
+public record ClientTypeTotalsDto(
+        ClientType type,
+        BigDecimal activeSum,
+        long activeCount,
+        long clientCount
+) { }
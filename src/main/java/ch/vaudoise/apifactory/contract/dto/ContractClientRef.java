@@ -0,0 +1,6 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+/**
+ * Projection of a contract id and its owner client id.
+ */
+public record ContractClientRef(Long contractId, Long clientId) { }
@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Percentage adjustment of the cost of every contract matching a filter.
+ * <p>
+ * New costs are rounded half-up to the cent and never drop below 0.01.
+ * Without {@code clientId} nor {@code clientType}, the whole portfolio is adjusted.
+ */
+public record ContractCostAdjustmentDto(
+        @NotNull @DecimalMin("-99") @DecimalMax("1000") @Digits(integer = 4, fraction = 4)
+        BigDecimal percent,
+        Long clientId,
+        ClientType clientType,
+        boolean activeOnly
+) { }
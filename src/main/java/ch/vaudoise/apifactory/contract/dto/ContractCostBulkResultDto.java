@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk cost update: number of contracts updated and the items that could not be applied.
+ */
+public record ContractCostBulkResultDto(
+        int updated,
+        List<ItemError> errors
+) {
+    /**
+     * One item not applied.
+     *
+     * @param index      position of the item in the payload
+     * @param contractId contract of the item
+     * @param error      {@code NOT_FOUND} (unknown contract, or contract of a deleted client)
+     */
+    public record ItemError(int index, Long contractId, String error) { }
+}
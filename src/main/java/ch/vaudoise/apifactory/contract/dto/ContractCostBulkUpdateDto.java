@@ -0,0 +1,23 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request payload of a bulk cost update: either explicit {@code items} or a percentage {@code adjustment}.
+ */
+public record ContractCostBulkUpdateDto(
+        @Size(max = 100_000) List<@NotNull @Valid ContractCostItemDto> items,
+        @Valid ContractCostAdjustmentDto adjustment
+) {
+    @JsonIgnore
+    @AssertTrue(message = "exactly one of items or adjustment is required")
+    public boolean isSingleMode() {
+        return (items != null && !items.isEmpty()) != (adjustment != null);
+    }
+}
@@ -0,0 +1,14 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One {@code (contractId, costAmount)} pair of a bulk cost update.
+ */
+public record ContractCostItemDto(
+        @NotNull Long contractId,
+        @NotNull @DecimalMin("0.01") @Digits(integer = 12, fraction = 2)
+        BigDecimal costAmount
+) { }
@@ -0,0 +1,10 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projection of a contract id, its owner client id, its current cost and its end date: what a cost
+ * write needs to turn the new cost into a delta of the client's active total.
+ */
+public record ContractCostRef(Long contractId, Long clientId, BigDecimal costAmount, LocalDate endDate) { }
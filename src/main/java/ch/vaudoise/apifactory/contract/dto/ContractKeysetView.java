@@ -0,0 +1,24 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a contract read by the keyset listing: the response fields plus
+ * {@code lastUpdatedAt}, the first key of the cursor.
+ */
+public record ContractKeysetView(
+        Long id,
+        Long clientId,
+        LocalDate startDate,
+        LocalDate endDate,
+        BigDecimal costAmount,
+        long version,
+        LocalDateTime lastUpdatedAt
+) {
+
+    public ContractResponseDto toDto() {
+        return new ContractResponseDto(id, clientId, startDate, endDate, costAmount, version);
+    }
+}
@@ -6,6 +6,7 @@ import java.time.LocalDate;
  * Read model returned by contract endpoints.
  * <p>
  * Exposes primary identifiers, dates, and monetary values needed by clients.
+ * {@code version} is also sent as the ETag of single-contract responses.
  */
 
 public record ContractResponseDto(
@@ -13,5 +14,6 @@ public record ContractResponseDto(
         Long clientId,
         LocalDate startDate,
         LocalDate endDate,
-        BigDecimal costAmount
+        BigDecimal costAmount,
+        long version
 ) { }
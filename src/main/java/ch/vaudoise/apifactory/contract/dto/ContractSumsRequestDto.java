@@ -0,0 +1,23 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Selection of the clients whose active contracts are aggregated: either an explicit list of
+ * {@code clientIds} or {@code all=true} for the whole portfolio.
+ */
+public record ContractSumsRequestDto(
+        @Size(max = 100_000) List<@NotNull Long> clientIds,
+        boolean all
+) {
+    @JsonIgnore
+    @AssertTrue(message = "exactly one of clientIds or all=true is required")
+    public boolean isSingleSelection() {
+        return all == (clientIds == null || clientIds.isEmpty());
+    }
+}
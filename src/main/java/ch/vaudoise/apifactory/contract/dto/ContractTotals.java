@@ -0,0 +1,8 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregate projection (sum and count of {@code costAmount}) of a set of contracts of one client.
+ */
+public record ContractTotals(Long clientId, BigDecimal total, Long count) { }
@@ -2,4 +2,4 @@ package ch.vaudoise.apifactory.contract.dto;
 
 import java.math.BigDecimal;
 
-public record SumResponseDto(Long clientId, BigDecimal activeSum) { }
+public record SumResponseDto(Long clientId, BigDecimal activeSum, long activeCount) { }
@@ -0,0 +1,14 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Active totals of a selection of clients, per {@code ClientType} and overall.
+ */
+public record SumRollupDto(
+        List<ClientTypeTotalsDto> byType,
+        BigDecimal activeSum,
+        long activeCount,
+        long clientCount
+) { }
@@ -0,0 +1,17 @@
+package ch.vaudoise.apifactory.contract.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of the comparison between the materialized summary of a client and the live query.
+ * <p>
+ * Materialized values are null when the client has no summary row yet.
+ */
+public record SummaryCheckDto(
+        Long clientId,
+        BigDecimal materializedSum,
+        Long materializedCount,
+        BigDecimal liveSum,
+        long liveCount,
+        boolean consistent
+) { }
@@ -0,0 +1,45 @@
+package ch.vaudoise.apifactory.contract.repository;
+
+import ch.vaudoise.apifactory.contract.domain.ClientContractSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data repository for {@code ClientContractSummary} rows.
+ * <p>
+ * Writers lock the row of the client ({@code SELECT ... FOR UPDATE}) before applying deltas,
+ * which serializes concurrent contract mutations of the same client.
+ */
+public interface ClientContractSummaryRepository extends JpaRepository<ClientContractSummary, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ClientContractSummary s WHERE s.clientId = :clientId")
+    Optional<ClientContractSummary> findForUpdate(@Param("clientId") Long clientId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ClientContractSummary s WHERE s.clientId IN :clientIds")
+    List<ClientContractSummary> findAllForUpdate(@Param("clientIds") Collection<Long> clientIds);
+
+    /** Rows not yet rolled forward to {@code today}, in client id order. */
+    @Query("SELECT s.clientId FROM ClientContractSummary s WHERE s.asOf < :today ORDER BY s.clientId")
+    List<Long> findStaleClientIds(@Param("today") LocalDate today, Limit limit);
+
+    /** Keyset scan of the rows, used by the consistency checker. */
+    @Query("SELECT s FROM ClientContractSummary s WHERE s.clientId > :afterClientId ORDER BY s.clientId")
+    List<ClientContractSummary> findPageAfter(@Param("afterClientId") Long afterClientId, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ClientContractSummary s WHERE s.clientId = :clientId")
+    int deleteByClient(@Param("clientId") Long clientId);
+
+    @Modifying
+    @Query("DELETE FROM ClientContractSummary s WHERE s.clientId IN :clientIds")
+    int deleteByClients(@Param("clientIds") Collection<Long> clientIds);
+}
@@ -0,0 +1,21 @@
+package ch.vaudoise.apifactory.contract.repository;
+
+import ch.vaudoise.apifactory.contract.dto.ContractCostItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch writes on contracts, mixed into {@link ContractRepository}.
+ */
+public interface ContractBulkRepository {
+
+    /**
+     * Sets the cost (and {@code lastUpdatedAt}) of each contract with one JDBC batch of single-row
+     * UPDATEs: no entity is loaded, no column other than those two is written.
+     * Runs in the caller's transaction.
+     *
+     * @return the number of rows updated per item, in payload order (0 when the contract is gone)
+     */
+    int[] updateCosts(List<ContractCostItemDto> items, LocalDateTime now);
+}
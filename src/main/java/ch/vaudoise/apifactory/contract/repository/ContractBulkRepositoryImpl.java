@@ -0,0 +1,47 @@
+package ch.vaudoise.apifactory.contract.repository;
+
+import ch.vaudoise.apifactory.contract.dto.ContractCostItemDto;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link JdbcTemplate} implementation of {@link ContractBulkRepository}.
+ * <p>
+ * The statements bypass Hibernate, which is therefore told that the {@code contract} table changed:
+ * cached query results on it are invalidated at commit, as for a JPQL bulk UPDATE.
+ */
+@RequiredArgsConstructor
+class ContractBulkRepositoryImpl implements ContractBulkRepository {
+
+    private static final String UPDATE_COST_SQL = "UPDATE contract SET cost_amount = ?, last_updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public int[] updateCosts(List<ContractCostItemDto> items, LocalDateTime now) {
+        BulkOperationCleanupAction.schedule(entityManager.unwrap(SharedSessionContractImplementor.class),
+                Set.of("contract"));
+        Timestamp timestamp = Timestamp.valueOf(now);
+        int[][] chunks = jdbcTemplate.batchUpdate(UPDATE_COST_SQL, items, JDBC_BATCH_SIZE, (ps, item) -> {
+            ps.setBigDecimal(1, item.costAmount());
+            ps.setTimestamp(2, timestamp);
+            ps.setLong(3, item.contractId());
+        });
+        int[] counts = new int[items.size()];
+        int i = 0;
+        for (int[] chunk : chunks) {
+            for (int count : chunk) counts[i++] = count;
+        }
+        return counts;
+    }
+}
@@ -1,6 +1,17 @@
 package ch.vaudoise.apifactory.contract.repository;
 
+import ch.vaudoise.apifactory.client.domain.ClientType;
 import ch.vaudoise.apifactory.contract.domain.Contract;
+import ch.vaudoise.apifactory.contract.dto.ClientTypeTotalsDto;
+import ch.vaudoise.apifactory.contract.dto.ContractClientRef;
+import ch.vaudoise.apifactory.contract.dto.ContractCostRef;
+import ch.vaudoise.apifactory.contract.dto.ContractKeysetView;
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import ch.vaudoise.apifactory.contract.dto.ContractTotals;
+import ch.vaudoise.apifactory.contract.dto.SumResponseDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
@@ -9,27 +20,64 @@ import org.springframework.data.repository.query.Param;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Spring Data repository for {@code Contract} entities.
  * <p>
  * Contains JPQL queries for active filters and time-based lookups to keep filtering at DB level.
+ * Active filters seek on the materialized {@code status} (index {@code idx_contract_client_status})
+ * and re-check {@code endDate} for the contracts that have ended since the last expiry sweep:
+ * {@code :today} must therefore be the current day, never a past one.
  */
-public interface ContractRepository extends JpaRepository<Contract, Long> {
+public interface ContractRepository extends JpaRepository<Contract, Long>, ContractBulkRepository {
 
     /**
      * Sums the {@code costAmount} of all active contracts for a client.
      * <p>
-     * Active = {@code endDate} is null or strictly in the future.
+     * Active = status {@code ACTIVE} and {@code endDate} is null or strictly in the future.
      */
     @Query("""
       SELECT COALESCE(SUM(c.costAmount), 0)
       FROM Contract c
       WHERE c.client.id = :clientId
-        AND (c.endDate IS NULL OR :today < c.endDate)
+        AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
     """)
     BigDecimal sumActiveByClient(@Param("clientId") Long clientId, @Param("today") LocalDate today);
 
+    /**
+     * Sum and count of active contracts, grouped by client (clients without active contract are absent).
+     * <p>
+     * Live counterpart of {@code ClientContractSummary}, used to (re)build and check it.
+     */
+    @Query("""
+      SELECT new ch.vaudoise.apifactory.contract.dto.ContractTotals(c.client.id, SUM(c.costAmount), COUNT(c))
+      FROM Contract c
+      WHERE c.client.id IN :clientIds
+        AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+      GROUP BY c.client.id
+    """)
+    List<ContractTotals> totalsActiveByClients(@Param("clientIds") Collection<Long> clientIds,
+                                               @Param("today") LocalDate today);
+
+    /**
+     * Sum and count, grouped by client, of the contracts that were active on {@code from}
+     * and are no longer active on {@code to} ({@code from < endDate <= to}).
+     */
+    @Query("""
+      SELECT new ch.vaudoise.apifactory.contract.dto.ContractTotals(c.client.id, SUM(c.costAmount), COUNT(c))
+      FROM Contract c
+      WHERE c.client.id IN :clientIds
+        AND c.endDate > :from AND c.endDate <= :to
+      GROUP BY c.client.id
+    """)
+    List<ContractTotals> totalsExpiredByClients(@Param("clientIds") Collection<Long> clientIds,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to);
+
     /**
      * Closes all active contracts for a client by setting {@code endDate} to {@code :today}.
      * <p>
@@ -37,13 +85,17 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
      */
     @Modifying
     @Query("""
-      UPDATE Contract c SET c.endDate = :today
+      UPDATE Contract c SET c.endDate = :today, c.status = ENDED
       WHERE c.client.id = :clientId
-        AND (c.endDate IS NULL OR :today < c.endDate)
+        AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
     """)
     int closeAllActiveByClient(@Param("clientId") Long clientId, @Param("today") LocalDate today);
 
 
+    /** Ids of all contracts of a client, recorded as deleted in the change log with the client. */
+    @Query("SELECT c.id FROM Contract c WHERE c.client.id = :clientId ORDER BY c.id")
+    List<Long> findIdsByClient(@Param("clientId") Long clientId);
+
     /**
      * Deletes all contracts for a client.
      * <p>
@@ -55,30 +107,342 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     int deleteAllByClient(@Param("clientId") Long clientId);
 
 
-    // Listing filtrable par lastUpdatedAt (optionnel côté service)
-    Page<Contract> findByClientIdAndLastUpdatedAtAfter(Long clientId, LocalDateTime updatedSince, Pageable p);
+    /**
+     * Read-only view of one contract; contracts of soft-deleted clients are not found.
+     * Held in the query cache (region {@code contract-views}) with profile {@code prod}.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "contract-views")
+    })
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.id = :id
+    AND c.client.deletedAt IS NULL
+""")
+    Optional<ContractResponseDto> findViewById(@Param("id") Long id);
+
+    // --- Listing paginé : projections DTO (aucune entité chargée, ni client associé) ---
+    // Listings sans updatedSince : cache de requêtes (région contract-views) avec le profil prod,
+    // invalidé par Hibernate à chaque écriture sur la table contract
+
+    /** Page of the contracts of a client, as read-only DTOs. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "contract-views")
+    })
+    @Query(value = """
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+""", countQuery = "SELECT COUNT(c) FROM Contract c WHERE c.client.id = :clientId")
+    Page<ContractResponseDto> findViewsByClient(@Param("clientId") Long clientId, Pageable pageable);
+
+    /** Page of the contracts of a client updated after a given timestamp, as read-only DTOs. */
+    @Query(value = """
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.lastUpdatedAt > :updatedSince
+""", countQuery = """
+  SELECT COUNT(c) FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.lastUpdatedAt > :updatedSince
+""")
+    Page<ContractResponseDto> findViewsByClientUpdatedSince(@Param("clientId") Long clientId,
+                                                           @Param("updatedSince") LocalDateTime updatedSince,
+                                                           Pageable pageable);
+
+    /** Page of the active contracts of a client (endDate is null or in the future), as read-only DTOs. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "contract-views")
+    })
+    @Query(value = """
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+""", countQuery = """
+  SELECT COUNT(c) FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+""")
+    Page<ContractResponseDto> findActiveViewsByClient(@Param("clientId") Long clientId,
+                                                      @Param("today") LocalDate today,
+                                                      Pageable pageable);
+
+    /** Page of the active contracts of a client updated after a given timestamp, as read-only DTOs. */
+    @Query(value = """
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+    AND c.lastUpdatedAt > :updatedSince
+""", countQuery = """
+  SELECT COUNT(c) FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+    AND c.lastUpdatedAt > :updatedSince
+""")
+    Page<ContractResponseDto> findActiveViewsByClientUpdatedSince(@Param("clientId") Long clientId,
+                                                                  @Param("today") LocalDate today,
+                                                                  @Param("updatedSince") LocalDateTime updatedSince,
+                                                                  Pageable pageable);
+
+    /**
+     * Forward-only stream of all contracts as read-only DTOs (no managed entity), optionally
+     * restricted to active contracts and/or contracts updated after {@code updatedSince}.
+     * Contracts of soft-deleted clients are excluded.
+     * <p>
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractResponseDto(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version)
+  FROM Contract c
+  WHERE c.client.deletedAt IS NULL
+    AND (:activeOnly = false OR (c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)))
+    AND (:updatedSince IS NULL OR c.lastUpdatedAt > :updatedSince)
+  ORDER BY c.id
+""")
+    Stream<ContractResponseDto> streamForExport(@Param("activeOnly") boolean activeOnly,
+                                                @Param("today") LocalDate today,
+                                                @Param("updatedSince") LocalDateTime updatedSince);
+
+    // --- Agrégats multi-clients : un seul GROUP BY, même règle "actif" que ci-dessus ---
 
-    /** Finds active contracts for a client (endDate is null or in the future). */
+    /**
+     * Active sum and count of every live client (zero when it has no active contract), in client id order.
+     * <p>
+     * One grouped query streamed from a forward-only cursor; must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.SumResponseDto(cl.id, COALESCE(SUM(c.costAmount), 0), COUNT(c))
+  FROM Client cl
+  LEFT JOIN Contract c ON c.client = cl AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+  GROUP BY cl.id
+  ORDER BY cl.id
+""")
+    Stream<SumResponseDto> streamActiveTotalsOfAllClients(@Param("today") LocalDate today);
+
+    /** Active sum and count of the given live clients (zero when no active contract), in client id order. */
     @Query("""
-  SELECT c FROM Contract c
+  SELECT new ch.vaudoise.apifactory.contract.dto.SumResponseDto(cl.id, COALESCE(SUM(c.costAmount), 0), COUNT(c))
+  FROM Client cl
+  LEFT JOIN Contract c ON c.client = cl AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+  WHERE cl.id IN :clientIds
+  GROUP BY cl.id
+  ORDER BY cl.id
+""")
+    List<SumResponseDto> activeTotalsOfClients(@Param("clientIds") Collection<Long> clientIds,
+                                               @Param("today") LocalDate today);
+
+    /** Active sum, contract count and client count of all live clients, per client type. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ClientTypeTotalsDto(
+           cl.type, COALESCE(SUM(c.costAmount), 0), COUNT(c), COUNT(DISTINCT cl.id))
+  FROM Client cl
+  LEFT JOIN Contract c ON c.client = cl AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+  GROUP BY cl.type
+""")
+    List<ClientTypeTotalsDto> activeTotalsByClientType(@Param("today") LocalDate today);
+
+    /** Same as {@link #activeTotalsByClientType(LocalDate)}, restricted to the given clients. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ClientTypeTotalsDto(
+           cl.type, COALESCE(SUM(c.costAmount), 0), COUNT(c), COUNT(DISTINCT cl.id))
+  FROM Client cl
+  LEFT JOIN Contract c ON c.client = cl AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+  WHERE cl.id IN :clientIds
+  GROUP BY cl.type
+""")
+    List<ClientTypeTotalsDto> activeTotalsByClientType(@Param("clientIds") Collection<Long> clientIds,
+                                                       @Param("today") LocalDate today);
+
+    // --- Mise à jour des coûts en masse (sans chargement d'entités) ---
+
+    /** Owner client of each given contract; contracts of deleted clients are omitted. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractClientRef(c.id, c.client.id)
+  FROM Contract c
+  WHERE c.id IN :ids
+    AND c.client.deletedAt IS NULL
+""")
+    List<ContractClientRef> findClientRefs(@Param("ids") Collection<Long> ids);
+
+    /** Owner client, cost and end date of each given contract; contracts of deleted clients are omitted. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractCostRef(c.id, c.client.id, c.costAmount, c.endDate)
+  FROM Contract c
+  WHERE c.id IN :ids
+    AND c.client.deletedAt IS NULL
+""")
+    List<ContractCostRef> findCostRefs(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Next {@code limit} contracts (with owner client) after {@code afterId} matching every non-null
+     * criterion, in id order (one chunk of a percentage adjustment).
+     */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractClientRef(c.id, c.client.id)
+  FROM Contract c
+  WHERE c.client.deletedAt IS NULL
+    AND c.id > :afterId
+    AND (:clientId IS NULL OR c.client.id = :clientId)
+    AND (:clientType IS NULL OR c.client.type = :clientType)
+    AND (:activeOnly = false OR (c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)))
+  ORDER BY c.id
+""")
+    List<ContractClientRef> findClientRefsMatching(@Param("clientId") Long clientId,
+                                                   @Param("clientType") ClientType clientType,
+                                                   @Param("activeOnly") boolean activeOnly,
+                                                   @Param("today") LocalDate today,
+                                                   @Param("afterId") Long afterId,
+                                                   Limit limit);
+
+    /** Highest cost among the contracts matching every non-null criterion (null when none matches). */
+    @Query("""
+  SELECT MAX(c.costAmount)
+  FROM Contract c
+  WHERE c.client.deletedAt IS NULL
+    AND (:clientId IS NULL OR c.client.id = :clientId)
+    AND (:clientType IS NULL OR c.client.type = :clientType)
+    AND (:activeOnly = false OR (c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)))
+""")
+    BigDecimal maxCostMatching(@Param("clientId") Long clientId,
+                               @Param("clientType") ClientType clientType,
+                               @Param("activeOnly") boolean activeOnly,
+                               @Param("today") LocalDate today);
+
+    /** Highest cost among the given contracts (null when none exists). */
+    @Query("SELECT MAX(c.costAmount) FROM Contract c WHERE c.id IN :ids")
+    BigDecimal maxCost(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Multiplies the cost of the given contracts by {@code factor}, rounded half-up to the cent
+     * with a floor of 0.01, in a single UPDATE.
+     */
+    @Modifying
+    @Query("""
+  UPDATE Contract c
+  SET c.costAmount = CASE WHEN ROUND(c.costAmount * CAST(:factor AS BigDecimal(10, 6)), 2) < 0.01 THEN 0.01
+                          ELSE ROUND(c.costAmount * CAST(:factor AS BigDecimal(10, 6)), 2) END,
+      c.lastUpdatedAt = :now,
+      c.version = c.version + 1
+  WHERE c.id IN :ids
+""")
+    int adjustCosts(@Param("ids") Collection<Long> ids, @Param("factor") BigDecimal factor,
+                    @Param("now") LocalDateTime now);
+
+    // --- Keyset pagination: seek on (client_id, last_updated_at) ordered by (lastUpdatedAt, id), no COUNT ---
+    // Projections DTO comme le listing paginé : ni entité gérée, ni client chargé par contrat
+
+    /** First keyset page of all contracts of a client. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractKeysetView(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version, c.lastUpdatedAt)
+  FROM Contract c
   WHERE c.client.id = :clientId
-    AND (c.endDate IS NULL OR :today < c.endDate)
+  ORDER BY c.lastUpdatedAt, c.id
 """)
-    Page<Contract> findActiveByClient(@Param("clientId") Long clientId,
-                                      @Param("today") LocalDate today,
-                                      Pageable pageable);
+    List<ContractKeysetView> findFirstKeysetPage(@Param("clientId") Long clientId, Limit limit);
 
-    /** Finds active contracts updated after a given timestamp. */
+    /** Keyset page of all contracts of a client strictly after {@code (afterUpdatedAt, afterId)}. */
     @Query("""
-  SELECT c FROM Contract c
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractKeysetView(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version, c.lastUpdatedAt)
+  FROM Contract c
   WHERE c.client.id = :clientId
-    AND (c.endDate IS NULL OR :today < c.endDate)
-    AND c.lastUpdatedAt > :updatedSince
+    AND c.lastUpdatedAt >= :afterUpdatedAt
+    AND (c.lastUpdatedAt > :afterUpdatedAt OR c.id > :afterId)
+  ORDER BY c.lastUpdatedAt, c.id
+""")
+    List<ContractKeysetView> findKeysetPageAfter(@Param("clientId") Long clientId,
+                                       @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                       @Param("afterId") Long afterId,
+                                       Limit limit);
+
+    /** First keyset page of the active contracts of a client. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractKeysetView(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version, c.lastUpdatedAt)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+  ORDER BY c.lastUpdatedAt, c.id
+""")
+    List<ContractKeysetView> findFirstActiveKeysetPage(@Param("clientId") Long clientId,
+                                             @Param("today") LocalDate today,
+                                             Limit limit);
+
+    /** Keyset page of the active contracts of a client strictly after {@code (afterUpdatedAt, afterId)}. */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractKeysetView(
+           c.id, c.client.id, c.startDate, c.endDate, c.costAmount, c.version, c.lastUpdatedAt)
+  FROM Contract c
+  WHERE c.client.id = :clientId
+    AND c.status = ACTIVE AND (c.endDate IS NULL OR :today < c.endDate)
+    AND c.lastUpdatedAt >= :afterUpdatedAt
+    AND (c.lastUpdatedAt > :afterUpdatedAt OR c.id > :afterId)
+  ORDER BY c.lastUpdatedAt, c.id
 """)
-    Page<Contract> findActiveByClientUpdatedSince(@Param("clientId") Long clientId,
-                                                  @Param("today") LocalDate today,
-                                                  @Param("updatedSince") LocalDateTime updatedSince,
-                                                  Pageable pageable);
+    List<ContractKeysetView> findActiveKeysetPageAfter(@Param("clientId") Long clientId,
+                                             @Param("today") LocalDate today,
+                                             @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Limit limit);
 
-    Page<Contract> findByClientId(Long clientId, Pageable p);
+    // --- Expiration du statut matérialisé (job quotidien, par tranches) ---
+
+    /** Up to {@code limit} contracts still marked {@code ACTIVE} whose {@code endDate} has passed on {@code today}. */
+    @Query("""
+  SELECT c.id FROM Contract c
+  WHERE c.status = ACTIVE
+    AND c.endDate <= :today
+  ORDER BY c.id
+""")
+    List<Long> findExpiredActiveIds(@Param("today") LocalDate today, Limit limit);
+
+    /** Marks the given contracts {@code ENDED} (neither {@code version} nor {@code lastUpdatedAt} change). */
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = ENDED WHERE c.id IN :ids AND c.status = ACTIVE")
+    int markEnded(@Param("ids") Collection<Long> ids);
+
+    // --- Purge des clients supprimés en masse (requêtes natives : ces clients sont invisibles en JPQL) ---
+
+    /** Up to {@code limit} contracts belonging to the soft-deleted clients of a purge job. */
+    @Query(value = """
+  SELECT c.id FROM contract c JOIN client cl ON cl.id = c.client_id
+  WHERE cl.purge_job_id = :jobId
+  FETCH FIRST :limit ROWS ONLY
+""", nativeQuery = true)
+    List<Long> findIdsOfPurgeJob(@Param("jobId") Long jobId, @Param("limit") int limit);
+
+    /** Owner client of each given contract, soft-deleted or not (the foreign key is read without join). */
+    @Query("""
+  SELECT new ch.vaudoise.apifactory.contract.dto.ContractClientRef(c.id, c.client.id)
+  FROM Contract c
+  WHERE c.id IN :ids
+""")
+    List<ContractClientRef> findOwnerRefs(@Param("ids") Collection<Long> ids);
+
+    /** Deletes contracts by id (one bounded chunk of a purge). */
+    @Modifying
+    @Query("DELETE FROM Contract c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
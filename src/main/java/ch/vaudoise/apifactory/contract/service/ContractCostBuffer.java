@@ -0,0 +1,139 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cost updates waiting to be written, keyed by contract id: only the last value of each contract is kept.
+ * <p>
+ * Each entry is the view of the contract with its pending cost, so that reads can show it before
+ * it is written. Entries leave the buffer only once the transaction writing them has committed
+ * (and only if no newer value arrived meanwhile): a failed flush is simply retried. The number of
+ * contracts is bounded by {@code maxPending}; when the buffer is full (or closed for shutdown),
+ * {@link #offer} refuses and the caller writes the update directly.
+ * Reported as {@code app.contract.cost.coalescing.*}: {@code submitted} / {@code written} is the
+ * coalescing ratio (also exposed as the {@code ratio} gauge).
+ */
+@Component
+public class ContractCostBuffer implements MeterBinder {
+
+    private final ContractCostCoalescingProperties properties;
+    private final Map<Long, ContractResponseDto> pending = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+
+    public ContractCostBuffer(ContractCostCoalescingProperties properties) {
+        this.properties = properties;
+    }
+
+    /** Whether unconditional cost updates may be buffered. */
+    public boolean isEnabled() {
+        return properties.enabled() && !closed;
+    }
+
+    /**
+     * Buffers the new cost of a contract. {@code loader} reads the current view of the contract
+     * when it has no pending cost yet (and may throw if it does not exist).
+     *
+     * @return the view with the pending cost, or null when the update must be written directly
+     */
+    public ContractResponseDto offer(Long contractId, BigDecimal cost, Function<Long, ContractResponseDto> loader) {
+        if (!isEnabled()) return null;
+        ContractResponseDto base = pending.get(contractId);
+        if (base == null) {
+            if (pending.size() >= properties.maxPending()) { // borne approximative sous concurrence
+                overflow.increment();
+                return null;
+            }
+            base = loader.apply(contractId);
+        }
+        ContractResponseDto loaded = base;
+        ContractResponseDto view = pending.compute(contractId, (id, old) -> withCost(old != null ? old : loaded, cost));
+        submitted.increment();
+        return view;
+    }
+
+    /** The view of a contract with its pending cost, or null if it has none. */
+    public ContractResponseDto pending(Long contractId) {
+        return pending.isEmpty() ? null : pending.get(contractId);
+    }
+
+    /** {@code view} with the pending cost of the contract, if any. */
+    public ContractResponseDto overlay(ContractResponseDto view) {
+        ContractResponseDto p = pending(view.id());
+        return p == null ? view : withCost(view, p.costAmount());
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /** Copy of the pending views, to be written by a flush. */
+    public Map<Long, ContractResponseDto> snapshot() {
+        return new HashMap<>(pending);
+    }
+
+    /**
+     * Removes the given views once the current transaction commits; views replaced by a newer
+     * cost in the meantime stay for the next flush.
+     */
+    public void removeAfterCommit(Map<Long, ContractResponseDto> flushed, int writtenCount) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                flushed.forEach(pending::remove);
+                written.add(writtenCount);
+            }
+        });
+    }
+
+    /** Refuses new updates: called before the final flush on shutdown. */
+    public void close() {
+        closed = true;
+    }
+
+    private static ContractResponseDto withCost(ContractResponseDto v, BigDecimal cost) {
+        return new ContractResponseDto(v.id(), v.clientId(), v.startDate(), v.endDate(), cost, v.version());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String prefix = "app.contract.cost.coalescing";
+        Gauge.builder(prefix + ".pending", pending, Map::size)
+                .description("Contracts with a cost update waiting to be written")
+                .register(registry);
+        Gauge.builder(prefix + ".ratio", this, b -> b.written.sum() == 0 ? Double.NaN
+                        : b.submitted.sum() / (double) b.written.sum())
+                .description("Cost updates received per contract update written")
+                .register(registry);
+        counter(registry, prefix + ".submitted", "Cost updates buffered", submitted);
+        counter(registry, prefix + ".written", "Contract updates written by flushes", written);
+        counter(registry, prefix + ".overflow", "Cost updates written directly because the buffer was full", overflow);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, LongAdder value) {
+        FunctionCounter.builder(name, value, LongAdder::sum)
+                .description(description)
+                .register(registry);
+    }
+}
@@ -0,0 +1,211 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import ch.vaudoise.apifactory.changefeed.service.ChangeLog;
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import ch.vaudoise.apifactory.contract.domain.Contract;
+import ch.vaudoise.apifactory.contract.dto.ContractClientRef;
+import ch.vaudoise.apifactory.contract.dto.ContractCostAdjustmentDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostBulkResultDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostItemDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostRef;
+import ch.vaudoise.apifactory.contract.repository.ContractRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based cost writes of {@link ContractService#updateCosts}, without loading any contract.
+ * <p>
+ * Explicit pairs are written in one transaction (their number is bounded by the admission limit).
+ * A percentage adjustment is driven chunk by chunk by the caller: each {@link #adjustChunk} call
+ * selects the next {@code chunkSize} matching contracts in id order, locks the summary rows of their
+ * clients only, adjusts them and commits, so no transaction ever holds more than one chunk of locks.
+ * Both paths recompute the summaries of the affected clients from the live totals; the writes of
+ * the coalescing buffer ({@link #writeBuffered}) apply deltas instead. Every path records a
+ * {@code CONTRACT UPDATED} change event per contract.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContractCostBulkService {
+
+    private final ContractRepository contractRepo;
+    private final ContractSummaryService summaryService;
+    private final ChangeLog changeLog;
+
+    /** Upper bound of values bound in a single IN clause. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * One committed chunk of a percentage adjustment.
+     *
+     * @param lastId  highest contract id selected, where the next chunk starts (null when nothing was left)
+     * @param updated number of contracts adjusted
+     */
+    public record AdjustedChunk(Long lastId, int updated) { }
+
+    /** A cost once adjusted, rounded half-up to the cent like the {@code UPDATE} (the 0.01 floor aside). */
+    private static BigDecimal adjusted(BigDecimal cost, BigDecimal factor) {
+        return cost.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Rejects an adjustment that would push a cost over {@link Contract#MAX_COST_AMOUNT}.
+     *
+     * @param maxCost highest cost affected (null when no contract is)
+     */
+    static void checkOverflow(BigDecimal maxCost, BigDecimal factor) {
+        if (maxCost != null && adjusted(maxCost, factor).compareTo(Contract.MAX_COST_AMOUNT) > 0) {
+            throw new BadRequestException("Adjusted cost of " + maxCost + " would exceed "
+                    + Contract.MAX_COST_AMOUNT);
+        }
+    }
+
+    /**
+     * Applies explicit {@code (contractId, costAmount)} pairs in one transaction; unknown contracts
+     * (or contracts of deleted clients) are reported {@code NOT_FOUND}. A contract present several
+     * times ends up with the last cost of the payload and is counted once in {@code updated}.
+     */
+    @Transactional
+    public ContractCostBulkResultDto updateItems(List<ContractCostItemDto> items) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ContractCostBulkResultDto.ItemError> errors = new ArrayList<>();
+        List<ContractClientRef> refs = new ArrayList<>(items.size());
+        List<Long> ids = items.stream().map(ContractCostItemDto::contractId).distinct().toList();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            refs.addAll(contractRepo.findClientRefs(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()))));
+        }
+        Set<Long> known = refs.stream().map(ContractClientRef::contractId).collect(Collectors.toSet());
+        List<Integer> positions = new ArrayList<>(items.size());
+        List<ContractCostItemDto> applicable = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (known.contains(items.get(i).contractId())) {
+                positions.add(i);
+                applicable.add(items.get(i));
+            } else {
+                errors.add(new ContractCostBulkResultDto.ItemError(i, items.get(i).contractId(), "NOT_FOUND"));
+            }
+        }
+        LocalDate today = summaryService.lockAll(clientIds(refs), IN_CLAUSE_CHUNK);
+        // Un contrat présent plusieurs fois : la dernière occurrence l'emporte (ordre du batch)
+        int[] counts = contractRepo.updateCosts(applicable, now);
+        Set<Long> gone = new HashSet<>();
+        Set<Long> updated = new HashSet<>(); // contrats distincts, pas éléments du payload
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) { // supprimé entre la résolution et le verrouillage
+                gone.add(applicable.get(i).contractId());
+                errors.add(new ContractCostBulkResultDto.ItemError(positions.get(i), applicable.get(i).contractId(), "NOT_FOUND"));
+            } else {
+                updated.add(applicable.get(i).contractId());
+            }
+        }
+        errors.sort(Comparator.comparingInt(ContractCostBulkResultDto.ItemError::index));
+        summaryService.recompute(clientIds(refs), today, IN_CLAUSE_CHUNK);
+        record(refs.stream().filter(r -> !gone.contains(r.contractId())).toList());
+        return new ContractCostBulkResultDto(updated.size(), errors);
+    }
+
+    /**
+     * Writes buffered costs (one item per contract) in one transaction. Unlike {@link #updateItems},
+     * the summaries are not recomputed: the costs are read under the summary locks and the summed
+     * old-to-new deltas of the active contracts are applied to the locked rows. Contracts deleted
+     * since they were buffered are reported {@code NOT_FOUND}.
+     */
+    @Transactional
+    public ContractCostBulkResultDto writeBuffered(List<ContractCostItemDto> items) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = items.stream().map(ContractCostItemDto::contractId).toList();
+        Set<Long> clientIds = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            contractRepo.findClientRefs(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())))
+                    .forEach(r -> clientIds.add(r.clientId()));
+        }
+        LocalDate today = summaryService.lockAllLive(clientIds, IN_CLAUSE_CHUNK);
+        // Coûts relus sous verrou : aucun autre écrivain ne peut les changer avant le commit
+        Map<Long, ContractCostRef> current = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            contractRepo.findCostRefs(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())))
+                    .forEach(r -> current.put(r.contractId(), r));
+        }
+        List<ContractCostBulkResultDto.ItemError> errors = new ArrayList<>();
+        List<ContractCostItemDto> applicable = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (current.containsKey(items.get(i).contractId())) {
+                applicable.add(items.get(i));
+            } else {
+                errors.add(new ContractCostBulkResultDto.ItemError(i, items.get(i).contractId(), "NOT_FOUND"));
+            }
+        }
+        int[] counts = contractRepo.updateCosts(applicable, now);
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        List<ContractClientRef> written = new ArrayList<>(applicable.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue; // impossible sous verrou : ligne relue juste avant
+            var ref = current.get(applicable.get(i).contractId());
+            if (ContractSummaryService.isActive(ref.endDate(), today)) {
+                deltas.merge(ref.clientId(), applicable.get(i).costAmount().subtract(ref.costAmount()), BigDecimal::add);
+            }
+            written.add(new ContractClientRef(ref.contractId(), ref.clientId()));
+        }
+        deltas.forEach((clientId, delta) -> summaryService.apply(clientId, delta, 0));
+        record(written);
+        return new ContractCostBulkResultDto((int) written.stream().map(ContractClientRef::contractId).distinct().count(),
+                errors);
+    }
+
+    /**
+     * Adjusts the next {@code chunkSize} contracts matching {@code adjustment} after {@code afterId},
+     * in its own transaction. The matching selection has been checked against overflow beforehand;
+     * the chunk is checked again under lock (a cost raised since then rolls this chunk back, the
+     * earlier chunks stay committed).
+     *
+     * @return the chunk adjusted, {@code lastId} null when no matching contract is left
+     */
+    @Transactional
+    public AdjustedChunk adjustChunk(ContractCostAdjustmentDto adjustment, BigDecimal factor, long afterId,
+                                     int chunkSize) {
+        List<ContractClientRef> selected = contractRepo.findClientRefsMatching(adjustment.clientId(),
+                adjustment.clientType(), adjustment.activeOnly(), LocalDate.now(), afterId, Limit.of(chunkSize));
+        if (selected.isEmpty()) {
+            return new AdjustedChunk(null, 0);
+        }
+        LocalDate today = summaryService.lockAll(clientIds(selected), IN_CLAUSE_CHUNK);
+        List<Long> ids = selected.stream().map(ContractClientRef::contractId).toList();
+        int updated = 0;
+        List<ContractClientRef> locked = new ArrayList<>(selected.size());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            // Relecture sous verrou : écarte les contrats supprimés entre la sélection et le verrouillage
+            List<ContractClientRef> part = contractRepo.findClientRefs(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())));
+            if (part.isEmpty()) continue;
+            List<Long> partIds = part.stream().map(ContractClientRef::contractId).toList();
+            checkOverflow(contractRepo.maxCost(partIds), factor);
+            locked.addAll(part);
+            updated += contractRepo.adjustCosts(partIds, factor, LocalDateTime.now());
+        }
+        summaryService.recompute(clientIds(selected), today, IN_CLAUSE_CHUNK);
+        record(locked);
+        return new AdjustedChunk(ids.get(ids.size() - 1), updated);
+    }
+
+    private void record(List<ContractClientRef> refs) {
+        Set<Long> recorded = new HashSet<>();
+        for (var ref : refs) {
+            if (recorded.add(ref.contractId())) {
+                changeLog.record(ChangeEntityType.CONTRACT, ref.contractId(), ref.clientId(), ChangeOperation.UPDATED);
+            }
+        }
+    }
+
+    private static Set<Long> clientIds(List<ContractClientRef> refs) {
+        return refs.stream().map(ContractClientRef::clientId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,20 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the write-coalescing mode of unconditional cost updates ({@code app.contract-cost.coalescing.*}).
+ *
+ * @param enabled    buffers {@code PATCH /api/contracts/{id}/cost} without {@code If-Match} instead of writing it
+ * @param window     delay between two flushes of the buffer (only the last cost per contract is written)
+ * @param maxPending maximum number of contracts with a pending cost; beyond it updates are written directly
+ */
+@ConfigurationProperties(prefix = "app.contract-cost.coalescing")
+public record ContractCostCoalescingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("200ms") Duration window,
+        @DefaultValue("10000") int maxPending
+) { }
@@ -0,0 +1,46 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the cost updates buffered by {@link ContractCostBuffer} every {@code window}, and once
+ * more on shutdown.
+ * <p>
+ * The final flush runs when the bean is destroyed: the web server has stopped accepting requests
+ * by then, while the database is still open (it is destroyed after the beans that depend on it).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.contract-cost.coalescing", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ContractCostFlushJobs {
+
+    private final ContractService contractService;
+    private final ContractCostBuffer buffer;
+
+    @Scheduled(fixedDelayString = "${app.contract-cost.coalescing.window:200ms}")
+    public void flush() {
+        if (buffer.isEmpty()) return; // pas de transaction à vide
+        contractService.flushPendingCosts();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        buffer.close(); // les mises à jour encore en cours sont écrites directement
+        int total = 0;
+        while (!buffer.isEmpty()) {
+            try {
+                total += contractService.flushPendingCosts();
+            } catch (RuntimeException e) {
+                log.error("Final flush of buffered contract costs failed: {} update(s) lost", buffer.size(), e);
+                return;
+            }
+        }
+        log.info("Final flush of buffered contract costs: {} contract(s) written", total);
+    }
+}
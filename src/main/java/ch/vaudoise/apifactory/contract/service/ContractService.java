@@ -1,12 +1,17 @@
 package ch.vaudoise.apifactory.contract.service;
 
+import ch.vaudoise.apifactory.common.batch.BatchResultDto;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
 import ch.vaudoise.apifactory.contract.dto.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Application service for contract use-cases.
@@ -21,8 +26,44 @@ public interface ContractService {
     /** Batch-creates contracts in a single transaction and returns the created ids. */
     List<Long> createBatch(Long clientId, List<ContractCreateDto> items);
 
-    /** Updates the cost amount of a contract and returns the updated view. */
-    ContractResponseDto updateCost(Long contractId, BigDecimal newCost);
+    /**
+     * Validates every item of the batch in one pass, then creates the contracts.
+     * <p>
+     * When {@code atomic}, any error rejects the whole batch with a {@code BatchValidationException}
+     * listing all of them; otherwise the valid items are created and the others reported per item.
+     */
+    BatchResultDto createBatch(Long clientId, List<ContractCreateDto> items, boolean atomic);
+
+    /** Retrieves a contract by id or throws {@code NotFoundException} if absent. */
+    ContractResponseDto get(Long id);
+
+    /**
+     * Updates the cost amount of a contract and returns the updated view.
+     * <p>
+     * When {@code expectedVersion} is not null (conditional request, {@code If-Match}), throws
+     * {@code PreconditionFailedException} if the contract has been modified since that version.
+     */
+    ContractResponseDto updateCost(Long contractId, BigDecimal newCost, Long expectedVersion);
+    /**
+     * Buffers an unconditional cost update when write coalescing is enabled and returns the view
+     * with the pending cost; only the last cost per contract is written by the next flush.
+     * <p>
+     * Returns empty when the update must be applied with {@link #updateCost} instead (coalescing
+     * disabled, buffer full or shutting down). Throws {@code NotFoundException} if the contract is absent.
+     */
+    Optional<ContractResponseDto> coalesceCost(Long contractId, BigDecimal newCost);
+    /** Whether a buffered cost update of the contract has not been written yet. */
+    boolean hasPendingCost(Long contractId);
+    /** Writes the buffered cost updates in one transaction and returns the number of contracts updated. */
+    int flushPendingCosts();
+    /**
+     * Updates the cost of many contracts without loading them: either the explicit
+     * {@code (contractId, costAmount)} pairs in one transaction (unknown contracts are reported, the
+     * others applied) or a percentage adjustment of every contract matching a filter, one
+     * transaction per chunk. Throws {@code BadRequestException} if an adjusted cost would not fit
+     * the cost column.
+     */
+    ContractCostBulkResultDto updateCosts(ContractCostBulkUpdateDto request);
     /**
      * Lists contracts for a client with optional filters.
      * <p>
@@ -30,8 +71,43 @@ public interface ContractService {
      * If {@code updatedSince} is not null, returns contracts modified after that timestamp.
      */
     Page<ContractResponseDto> listForClient(Long clientId, boolean activeOnly, LocalDateTime updatedSince, Pageable p);
-    /** Computes the sum of {@code costAmount} over all active contracts for a client. */
-    BigDecimal sumActive(Long clientId);
+    /**
+     * Keyset variant of {@link #listForClient}: contracts ordered by {@code (lastUpdatedAt, id)}.
+     * <p>
+     * {@code cursor} is the token returned with the previous page (null for the first page).
+     * No count query is run, so the cost of a page does not depend on its depth.
+     */
+    CursorPage<ContractResponseDto> listForClientByCursor(Long clientId, boolean activeOnly, LocalDateTime updatedSince,
+                                                          String cursor, int size);
+    /**
+     * Returns the sum and count of {@code costAmount} over all active contracts for a client.
+     * <p>
+     * Served from the materialized per-client summary (primary-key read).
+     */
+    SumResponseDto sumActive(Long clientId);
+    /**
+     * Streams the active sum and count of every selected client, in client id order, from one
+     * grouped query (one per chunk of ids). Unknown or deleted client ids are omitted.
+     */
+    void exportSums(ContractSumsRequestDto selection, Consumer<SumResponseDto> sink);
+
+    /** Active totals of the selected clients per {@code ClientType}, plus the overall totals. */
+    SumRollupDto rollupSums(ContractSumsRequestDto selection);
+
+    /** Compares the materialized summary of a client with the live aggregate query. */
+    SummaryCheckDto checkSum(Long clientId);
+    /**
+     * Streams every contract (optionally active only / updated after {@code updatedSince}) to {@code sink},
+     * in id order, from a forward-only database cursor.
+     */
+    void exportAll(boolean activeOnly, LocalDateTime updatedSince, Consumer<ContractResponseDto> sink);
+    /**
+     * Marks {@code ENDED} up to {@code chunkSize} contracts still {@code ACTIVE} whose end date has
+     * passed on {@code today}, in one short transaction.
+     *
+     * @return the number of contracts marked (0 when none is left)
+     */
+    int expireStatuses(LocalDate today, int chunkSize);
     /** Deletes a contract by id. */
     void delete(Long id);
 
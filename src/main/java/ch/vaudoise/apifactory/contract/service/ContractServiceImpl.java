@@ -1,126 +1,465 @@
 package ch.vaudoise.apifactory.contract.service;
 
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import ch.vaudoise.apifactory.changefeed.service.ChangeLog;
 import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientType;
 import ch.vaudoise.apifactory.client.repository.ClientRepository;
+import ch.vaudoise.apifactory.common.batch.BatchResultDto;
+import ch.vaudoise.apifactory.common.batch.BatchValidation;
+import ch.vaudoise.apifactory.common.batch.BatchValidator;
+import ch.vaudoise.apifactory.common.config.BatchProperties;
 import ch.vaudoise.apifactory.common.exception.BadRequestException;
 import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import ch.vaudoise.apifactory.common.exception.PreconditionFailedException;
+import ch.vaudoise.apifactory.common.pagination.CursorCodec;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
 import ch.vaudoise.apifactory.contract.domain.Contract;
 import ch.vaudoise.apifactory.contract.dto.*;
 import ch.vaudoise.apifactory.contract.mapper.ContractMapper;
 import ch.vaudoise.apifactory.contract.repository.ContractRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 /**
  * Default implementation of {@link ContractService}.
  * <p>
  * Enforces business rules (e.g., start/end date consistency, positive cost),
  * maintains update timestamps, and delegates database access to repositories.
+ * Contracts are attached to their client by reference (no client read): the existence of the
+ * client is attested by its locked summary row.
+ * Batch creation relies on JDBC batching: contract ids come from a pooled sequence and the
+ * persistence context is flushed/cleared every {@link BatchProperties#flushSize()} items; all items
+ * are validated in one pass first, and a non-atomic batch creates the valid ones only.
+ * Every mutation also maintains the client's {@code ClientContractSummary} and appends to the
+ * {@link ChangeLog} in the same transaction.
+ * Cost updates honour an optional expected {@code version} (optimistic concurrency, 412 on mismatch).
+ * Contracts of soft-deleted clients (bulk deletion awaiting purge) are hidden from the reads.
+ * Bulk cost updates never load the contracts: they run set-based statements and recompute
+ * the summaries of the affected clients ({@link ContractCostBulkService}); a percentage adjustment
+ * commits chunk by chunk.
+ * With write coalescing, unconditional cost updates are buffered in {@link ContractCostBuffer} and
+ * written by the bulk path; the single-contract reads show the pending cost.
+ * Read-only methods run in {@code readOnly} transactions, routed to the read replica when one is configured.
+ * Methods are timed ({@code app.service}) and batch sizes recorded ({@code app.batch.size}).
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "app.service", description = "Service method latency")
 public class ContractServiceImpl implements ContractService {
 
     private final ClientRepository clientRepo;
     private final ContractRepository contractRepo;
     private final ContractMapper mapper;
+    private final EntityManager entityManager;
+    private final BatchProperties batchProperties;
+    private final ContractSummaryService summaryService;
+    private final ChangeLog changeLog;
+    private final MeterRegistry meterRegistry;
+    private final ContractCostBuffer costBuffer;
+    private final BatchValidator batchValidator;
+    private final ContractCostBulkService costBulkService;
+
+    /** Upper bound of values bound in a single IN clause. */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /** Upper bound of the page size of the cursor listing. */
+    static final int MAX_CURSOR_PAGE_SIZE = 1000;
 
     /** {@inheritDoc} */
     @Override
+    @Transactional
     public Long create(Long clientId, ContractCreateDto dto) {
-        Client client = clientRepo.findById(clientId)
+        LocalDate asOf = summaryService.lockLiveClient(clientId)
                 .orElseThrow(() -> new NotFoundException("Client "+clientId+" not found"));
 
         var c = new Contract();
-        c.setClient(client);
+        c.setClient(clientRepo.getReferenceById(clientId)); // référence : seule la clé étrangère est écrite
         c.setStartDate(dto.startDate() != null ? dto.startDate() : LocalDate.now());
         c.setEndDate(dto.endDate());
         c.setCostAmount(dto.costAmount());
-        return contractRepo.save(c).getId();
+        Long id = contractRepo.save(c).getId();
+
+        if (ContractSummaryService.isActive(c.getEndDate(), asOf)) {
+            summaryService.apply(clientId, c.getCostAmount(), 1);
+        }
+        changeLog.record(ChangeEntityType.CONTRACT, id, clientId, ChangeOperation.CREATED);
+        return id;
     }
     /** {@inheritDoc} */
     @Override
     @Transactional
     public List<Long> createBatch(Long clientId, List<ContractCreateDto> items) {
-        Client client = clientRepo.findById(clientId)
-                .orElseThrow(() -> new NotFoundException("Client " + clientId + " not found"));
+        return createBatch(clientId, items, true).createdIds();
+    }
 
-        List<Long> ids = new ArrayList<>();
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    public BatchResultDto createBatch(Long clientId, List<ContractCreateDto> items, boolean atomic) {
+        meterRegistry.summary("app.batch.size", "operation", "createBatch").record(items.size());
+        // Validation de tous les éléments en une passe, avant toute écriture
+        BatchValidation validation = batchValidator.validate(items);
+        LocalDate today = LocalDate.now();
         for (int i = 0; i < items.size(); i++) {
+            if (!validation.isValid(i)) continue;
             ContractCreateDto dto = items.get(i);
-
-            if (dto.costAmount() == null || dto.costAmount().signum() <= 0) {
-                throw new BadRequestException("[" + i + "] costAmount must be > 0");
-            }
-
-            LocalDate start = dto.startDate() != null ? dto.startDate() : LocalDate.now();
+            LocalDate start = dto.startDate() != null ? dto.startDate() : today;
             if (dto.endDate() != null && dto.endDate().isBefore(start)) {
-                throw new BadRequestException("[" + i + "] endDate must be >= startDate");
+                validation.reject(i, "endDate", "endDate must be >= startDate", dto.endDate());
             }
+        }
+        if (atomic && validation.hasErrors()) {
+            throw validation.toException();
+        }
+
+        LocalDate asOf = summaryService.lockLiveClient(clientId)
+                .orElseThrow(() -> new NotFoundException("Client " + clientId + " not found"));
+        Client client = clientRepo.getReferenceById(clientId); // référence : le client n'est pas chargé
+        BigDecimal activeTotal = BigDecimal.ZERO;
+        long activeCount = 0;
+
+        int flushSize = Math.max(1, batchProperties.flushSize());
+        List<Long> ids = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (!validation.isValid(i)) continue;
+            ContractCreateDto dto = items.get(i);
 
             Contract c = new Contract();
             c.setClient(client);
             c.setCostAmount(dto.costAmount());
-            c.setStartDate(start);
+            c.setStartDate(dto.startDate() != null ? dto.startDate() : today);
             c.setEndDate(dto.endDate());
 
-            contractRepo.save(c);
+            contractRepo.save(c); // id alloué par la séquence, l'INSERT part dans le lot JDBC
             ids.add(c.getId());
+            if (ContractSummaryService.isActive(c.getEndDate(), asOf)) {
+                activeTotal = activeTotal.add(c.getCostAmount());
+                activeCount++;
+            }
+
+            if (ids.size() % flushSize == 0) {
+                // Envoie les INSERT en attente et vide le contexte pour garder une mémoire constante
+                entityManager.flush();
+                entityManager.clear();
+                client = entityManager.getReference(Client.class, clientId);
+            }
         }
-        return ids;
+        // Le verrou sur la ligne de synthèse est tenu jusqu'au commit, même après clear()
+        summaryService.apply(clientId, activeTotal, activeCount);
+        changeLog.recordAll(ChangeEntityType.CONTRACT, ids, clientId, ChangeOperation.CREATED);
+        return validation.result(ids);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public ContractResponseDto get(Long id) {
+        return contractRepo.findViewById(id)
+                .map(costBuffer::overlay)
+                .orElseThrow(() -> new NotFoundException("Contract " + id + " not found"));
+    }
 
     /** {@inheritDoc} */
     @Override
-    public ContractResponseDto updateCost(Long contractId, BigDecimal newCost) {
+    @Transactional
+    public ContractResponseDto updateCost(Long contractId, BigDecimal newCost, Long expectedVersion) {
+        ContractResponseDto buffered = costBuffer.pending(contractId);
+        if (buffered != null) {
+            // Coût en attente écrit d'abord : la version comparée ensuite l'inclut
+            writePending(Map.of(contractId, buffered));
+        }
         var c = contractRepo.findById(contractId)
                 .orElseThrow(() -> new NotFoundException("Contract "+contractId+" not found"));
+        checkVersion(c, expectedVersion); // échec rapide, avant toute attente de verrou
+        Long clientId = c.getClient().getId();
+        // Client supprimé logiquement : ses contrats sont masqués, comme pour les lectures
+        LocalDate asOf = summaryService.lockLiveClient(clientId)
+                .orElseThrow(() -> new NotFoundException("Contract " + contractId + " not found"));
+        // Relu avec le verrou de ligne que l'UPDATE prendrait de toute façon : la version comparée
+        // est la dernière validée et ne peut plus changer jusqu'au commit (pas d'échec au flush)
+        entityManager.refresh(c, LockModeType.PESSIMISTIC_WRITE);
+        checkVersion(c, expectedVersion);
+        if (ContractSummaryService.isActive(c.getEndDate(), asOf)) {
+            summaryService.apply(clientId, newCost.subtract(c.getCostAmount()), 0);
+        }
         c.setCostAmount(newCost); // lastUpdatedAt sera mis à jour via @PreUpdate
-        return mapper.toDto(contractRepo.save(c));
+        changeLog.record(ChangeEntityType.CONTRACT, contractId, clientId, ChangeOperation.UPDATED);
+        return mapper.toDto(contractRepo.saveAndFlush(c)); // flush : version incrémentée avant le mapping
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Not transactional: the contract is read (outside any transaction, hence on the primary) only
+     * when it has no pending cost yet, so a burst of updates costs one read and one batched write.
+     */
+    @Override
+    public Optional<ContractResponseDto> coalesceCost(Long contractId, BigDecimal newCost) {
+        return Optional.ofNullable(costBuffer.offer(contractId, newCost, id -> contractRepo.findViewById(id)
+                .orElseThrow(() -> new NotFoundException("Contract " + id + " not found"))));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasPendingCost(Long contractId) {
+        return costBuffer.pending(contractId) != null;
     }
 
     /** {@inheritDoc} */
     @Override
+    @Transactional
+    public int flushPendingCosts() {
+        Map<Long, ContractResponseDto> views = costBuffer.snapshot();
+        return views.isEmpty() ? 0 : writePending(views);
+    }
+
+    /**
+     * Writes pending costs through {@link ContractCostBulkService#writeBuffered} (summary deltas, no
+     * recomputation) and drops them from the buffer after commit.
+     */
+    private int writePending(Map<Long, ContractResponseDto> views) {
+        List<ContractCostItemDto> items = views.values().stream()
+                .map(v -> new ContractCostItemDto(v.id(), v.costAmount()))
+                .toList();
+        var result = costBulkService.writeBuffered(items);
+        // Contrats supprimés entre-temps : la mise à jour en attente est abandonnée
+        result.errors().forEach(e -> log.warn("Buffered cost of contract {} dropped: {}", e.contractId(), e.error()));
+        costBuffer.removeAfterCommit(views, result.updated());
+        return result.updated();
+    }
+
+    private static void checkVersion(Contract c, Long expectedVersion) {
+        if (expectedVersion != null && c.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Contract " + c.getId() + " has been modified (version "
+                    + c.getVersion() + ")");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Pairs are applied by {@link ContractCostBulkService#updateItems} in one transaction. An
+     * adjustment is first checked against the {@code (14, 2)} cost column (the highest matching cost
+     * once adjusted, 400 otherwise, nothing written), then applied by chunks of
+     * {@link BatchProperties#adjustChunkSize()} contracts, each committed on its own: an interrupted
+     * adjustment leaves the earlier chunks adjusted.
+     */
+    @Override
+    public ContractCostBulkResultDto updateCosts(ContractCostBulkUpdateDto request) {
+        if (request.items() != null && !request.items().isEmpty()) {
+            meterRegistry.summary("app.batch.size", "operation", "updateCosts").record(request.items().size());
+            return costBulkService.updateItems(request.items());
+        }
+        var adj = request.adjustment();
+        if (adj.clientId() != null && !clientRepo.existsById(adj.clientId())) {
+            throw new NotFoundException("Client " + adj.clientId() + " not found");
+        }
+        BigDecimal factor = BigDecimal.ONE.add(adj.percent().movePointLeft(2));
+        ContractCostBulkService.checkOverflow(contractRepo.maxCostMatching(adj.clientId(), adj.clientType(),
+                adj.activeOnly(), LocalDate.now()), factor);
+        int chunkSize = Math.max(1, batchProperties.adjustChunkSize());
+        int updated = 0;
+        long afterId = Long.MIN_VALUE;
+        for (var chunk = costBulkService.adjustChunk(adj, factor, afterId, chunkSize); chunk.lastId() != null;
+             chunk = costBulkService.adjustChunk(adj, factor, afterId, chunkSize)) {
+            updated += chunk.updated();
+            afterId = chunk.lastId();
+        }
+        meterRegistry.summary("app.batch.size", "operation", "adjustCosts").record(updated);
+        return new ContractCostBulkResultDto(updated, List.of());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
     public Page<ContractResponseDto> listForClient(Long clientId, boolean activeOnly,
                                                    LocalDateTime updatedSince, Pageable p) {
-        Page<Contract> page;
+        if (!clientRepo.existsById(clientId)) {
+            return Page.empty(p); // client inconnu ou supprimé (en attente de purge)
+        }
+        // Projections DTO : pas d'entité gérée, pas de chargement du client de chaque contrat
+        Page<ContractResponseDto> page;
         if (activeOnly) {
             LocalDate today = LocalDate.now();
             page = (updatedSince != null)
-                    ? contractRepo.findActiveByClientUpdatedSince(clientId, today, updatedSince, p)
-                    : contractRepo.findActiveByClient(clientId, today, p);
+                    ? contractRepo.findActiveViewsByClientUpdatedSince(clientId, today, updatedSince, p)
+                    : contractRepo.findActiveViewsByClient(clientId, today, p);
         } else {
             // tout voir
             page = (updatedSince != null)
-                    ? contractRepo.findByClientIdAndLastUpdatedAtAfter(clientId, updatedSince, p)
-                    : contractRepo.findByClientId(clientId, p);
+                    ? contractRepo.findViewsByClientUpdatedSince(clientId, updatedSince, p)
+                    : contractRepo.findViewsByClient(clientId, p);
+        }
+        return costBuffer.isEmpty() ? page : page.map(costBuffer::overlay);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ContractResponseDto> listForClientByCursor(Long clientId, boolean activeOnly,
+                                                                 LocalDateTime updatedSince, String cursor, int size) {
+        if (!clientRepo.existsById(clientId)) {
+            return new CursorPage<>(List.of(), null);
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        Limit limit = Limit.of(pageSize + 1); // une ligne de plus pour savoir s'il reste une page
+
+        LocalDateTime afterUpdatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = CursorCodec.decode(cursor, 2);
+            try {
+                afterUpdatedAt = LocalDateTime.parse(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        } else if (updatedSince != null) {
+            // "lastUpdatedAt > updatedSince" == position juste après (updatedSince, +infini)
+            afterUpdatedAt = updatedSince;
+            afterId = Long.MAX_VALUE;
+        }
+
+        List<ContractKeysetView> rows;
+        LocalDate today = LocalDate.now();
+        if (afterUpdatedAt == null) {
+            rows = activeOnly
+                    ? contractRepo.findFirstActiveKeysetPage(clientId, today, limit)
+                    : contractRepo.findFirstKeysetPage(clientId, limit);
+        } else {
+            rows = activeOnly
+                    ? contractRepo.findActiveKeysetPageAfter(clientId, today, afterUpdatedAt, afterId, limit)
+                    : contractRepo.findKeysetPageAfter(clientId, afterUpdatedAt, afterId, limit);
+        }
+
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ContractKeysetView last = rows.get(pageSize - 1);
+            next = CursorCodec.encode(last.lastUpdatedAt(), last.id());
+        }
+        return new CursorPage<>(rows.stream().map(ContractKeysetView::toDto).map(costBuffer::overlay).toList(), next);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(boolean activeOnly, LocalDateTime updatedSince, Consumer<ContractResponseDto> sink) {
+        // Projection DTO : aucune entité gérée, le contexte de persistance reste vide
+        try (Stream<ContractResponseDto> rows = contractRepo.streamForExport(activeOnly, LocalDate.now(), updatedSince)) {
+            rows.forEach(sink);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public SumResponseDto sumActive(Long clientId) {
+        if (!clientRepo.existsById(clientId)) {
+            return new SumResponseDto(clientId, BigDecimal.ZERO, 0);
+        }
+        return summaryService.activeTotals(clientId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportSums(ContractSumsRequestDto selection, Consumer<SumResponseDto> sink) {
+        LocalDate today = LocalDate.now();
+        if (selection.all()) {
+            try (Stream<SumResponseDto> rows = contractRepo.streamActiveTotalsOfAllClients(today)) {
+                rows.forEach(sink);
+            }
+            return;
+        }
+        List<Long> ids = selection.clientIds().stream().distinct().sorted().toList();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            contractRepo.activeTotalsOfClients(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())), today)
+                    .forEach(sink);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public SumRollupDto rollupSums(ContractSumsRequestDto selection) {
+        LocalDate today = LocalDate.now();
+        List<ClientTypeTotalsDto> rows;
+        if (selection.all()) {
+            rows = contractRepo.activeTotalsByClientType(today);
+        } else {
+            // Tranches disjointes : les totaux (y compris le nombre de clients) s'additionnent
+            List<Long> ids = selection.clientIds().stream().distinct().toList();
+            rows = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+                rows.addAll(contractRepo.activeTotalsByClientType(
+                        ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())), today));
+            }
+        }
+        Map<ClientType, ClientTypeTotalsDto> byType = new EnumMap<>(ClientType.class);
+        for (ClientTypeTotalsDto r : rows) {
+            byType.merge(r.type(), r, (a, b) -> new ClientTypeTotalsDto(a.type(), a.activeSum().add(b.activeSum()),
+                    a.activeCount() + b.activeCount(), a.clientCount() + b.clientCount()));
         }
-        return page.map(mapper::toDto);
+        BigDecimal sum = BigDecimal.ZERO;
+        long count = 0;
+        long clients = 0;
+        for (ClientTypeTotalsDto t : byType.values()) {
+            sum = sum.add(t.activeSum());
+            count += t.activeCount();
+            clients += t.clientCount();
+        }
+        return new SumRollupDto(List.copyOf(byType.values()), sum, count, clients);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SummaryCheckDto checkSum(Long clientId) {
+        return summaryService.check(clientId);
     }
 
     /** {@inheritDoc} */
     @Override
-    public BigDecimal sumActive(Long clientId) {
-        return contractRepo.sumActiveByClient(clientId, LocalDate.now());
+    @Transactional
+    public int expireStatuses(LocalDate today, int chunkSize) {
+        // Ni version ni lastUpdatedAt : le contrat n'a pas changé, seul son statut rattrape la date
+        List<Long> ids = contractRepo.findExpiredActiveIds(today, Limit.of(chunkSize));
+        return ids.isEmpty() ? 0 : contractRepo.markEnded(ids);
     }
 
     /** {@inheritDoc} */
     @Override
     @Transactional
     public void delete(Long id) {
-        if (!contractRepo.existsById(id)) {
-            throw new NotFoundException("Contract " + id + " not found");
+        var c = contractRepo.findById(id)
+                .orElseThrow(() -> new NotFoundException("Contract " + id + " not found"));
+        Long clientId = c.getClient().getId();
+        LocalDate asOf = summaryService.lockLiveClient(clientId)
+                .orElseThrow(() -> new NotFoundException("Contract " + id + " not found"));
+        if (ContractSummaryService.isActive(c.getEndDate(), asOf)) {
+            summaryService.apply(clientId, c.getCostAmount().negate(), -1);
         }
-        contractRepo.deleteById(id);
+        contractRepo.delete(c);
+        changeLog.record(ChangeEntityType.CONTRACT, id, clientId, ChangeOperation.DELETED);
     }
 
 }
@@ -0,0 +1,64 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Scheduled maintenance of the materialized contract summaries and statuses.
+ * <ul>
+ *   <li>Expiry sweep, right after midnight: marks {@code ENDED} the contracts whose {@code endDate} has
+ *       just passed, then subtracts them from the summaries</li>
+ *   <li>Consistency check: compares every row with the live query, logs (and optionally repairs) drifts</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContractSummaryJobs {
+
+    private final ContractSummaryService summaryService;
+    private final ContractService contractService;
+    private final ContractSummaryProperties properties;
+
+    /**
+     * Expires the statuses then rolls every summary row forward to today, chunk by chunk (one short
+     * transaction per chunk).
+     */
+    @Scheduled(cron = "${app.contract-summary.sweep-cron:0 1 0 * * *}")
+    public void sweepExpired() {
+        LocalDate today = LocalDate.now();
+        int ended = 0;
+        int marked;
+        do {
+            marked = contractService.expireStatuses(today, properties.chunkSize());
+            ended += marked;
+        } while (marked > 0);
+        log.info("Contract status expiry for {}: {} contract(s) ended", today, ended);
+
+        int total = 0;
+        int processed;
+        do {
+            processed = summaryService.sweepExpired(today, properties.chunkSize());
+            total += processed;
+        } while (processed > 0);
+        log.info("Contract summary sweep for {}: {} client(s) rolled forward", today, total);
+    }
+
+    /** Full scan comparing materialized summaries with the live aggregate. */
+    @Scheduled(cron = "${app.contract-summary.check-cron:0 30 2 * * *}")
+    public void checkConsistency() {
+        long mismatches = 0;
+        Long after = 0L;
+        while (after != null) {
+            var chunk = summaryService.checkChunk(after, properties.chunkSize(), properties.repair());
+            chunk.mismatches().forEach(m -> log.warn("Inconsistent contract summary: {}", m));
+            mismatches += chunk.mismatches().size();
+            after = chunk.lastClientId();
+        }
+        log.info("Contract summary check: {} inconsistent row(s){}", mismatches, properties.repair() ? " repaired" : "");
+    }
+}
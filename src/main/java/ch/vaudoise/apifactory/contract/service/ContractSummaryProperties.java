@@ -0,0 +1,16 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the materialized contract summary jobs ({@code app.contract-summary.*}).
+ *
+ * @param chunkSize number of summary rows handled per transaction by the sweeper and the checker
+ * @param repair    whether the scheduled consistency check overwrites inconsistent rows with live values
+ */
+@ConfigurationProperties(prefix = "app.contract-summary")
+public record ContractSummaryProperties(
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("false") boolean repair
+) { }
@@ -0,0 +1,307 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.client.repository.ClientRepository;
+import ch.vaudoise.apifactory.contract.domain.ClientContractSummary;
+import ch.vaudoise.apifactory.contract.dto.ContractTotals;
+import ch.vaudoise.apifactory.contract.dto.SumResponseDto;
+import ch.vaudoise.apifactory.contract.dto.SummaryCheckDto;
+import ch.vaudoise.apifactory.contract.repository.ClientContractSummaryRepository;
+import ch.vaudoise.apifactory.contract.repository.ContractRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains {@link ClientContractSummary}, the materialized per-client active total.
+ * <p>
+ * Write paths call {@link #lockLiveClient(Long)} then {@link #apply(Long, BigDecimal, long)} inside their own
+ * transaction; reads go through {@link #activeTotals(Long)} and fall back to the live query when the
+ * row is missing or has not been rolled forward to today yet. The expiry sweeper
+ * ({@link #sweepExpired(LocalDate, int)}) subtracts contracts whose {@code endDate} has passed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContractSummaryService {
+
+    private final ClientContractSummaryRepository summaryRepo;
+    private final ContractRepository contractRepo;
+    private final ClientRepository clientRepo;
+    private final EntityManager entityManager;
+
+    /** Same rule as {@code ContractRepository}: active = endDate is null or strictly after {@code day}. */
+    public static boolean isActive(LocalDate endDate, LocalDate day) {
+        return endDate == null || day.isBefore(endDate);
+    }
+
+    /** Creates the (empty) summary row of a newly created client. Must run inside a transaction. */
+    public void initialize(Long clientId) {
+        var s = new ClientContractSummary();
+        s.setClientId(clientId);
+        s.setAsOf(LocalDate.now());
+        entityManager.persist(s);
+    }
+
+    /**
+     * Locks the summary row of a live client, building it from the live query if missing and rolling
+     * it forward to today. The summary row only exists for live clients (it is removed with the
+     * client, soft deletion included), so the client table is only read when the row is missing.
+     * Must run inside a transaction.
+     * <p>
+     * A contract loaded by id still references its soft-deleted client (the eager {@code ManyToOne}
+     * ignores {@code @SQLRestriction}): callers must go through this method, so that such a client
+     * gets no summary row rebuilt and the write is rejected.
+     *
+     * @return the day "active" must be evaluated at, empty when the client does not exist or is deleted
+     */
+    public Optional<LocalDate> lockLiveClient(Long clientId) {
+        var summary = summaryRepo.findForUpdate(clientId).orElse(null);
+        if (summary == null && !clientRepo.existsById(clientId)) {
+            return Optional.empty();
+        }
+        return Optional.of(lock(clientId, summary));
+    }
+
+    private LocalDate lock(Long clientId, ClientContractSummary summary) {
+        LocalDate today = LocalDate.now();
+        if (summary == null) {
+            // Client antérieur à la table de synthèse : reconstruction depuis la requête live
+            var live = liveTotals(clientId, today);
+            summary = new ClientContractSummary();
+            summary.setClientId(clientId);
+            summary.setActiveTotal(live.total());
+            summary.setActiveCount(live.count());
+            summary.setAsOf(today);
+            entityManager.persist(summary);
+            entityManager.flush();
+        } else if (summary.getAsOf().isBefore(today)) {
+            rollForward(List.of(summary), today);
+        }
+        return today;
+    }
+
+    /**
+     * Locks the summary rows of several clients, in client id order and by chunks of
+     * {@code chunkSize} ids, creating the missing ones. The rows are meant to be overwritten with
+     * {@link #recompute(Collection, LocalDate)} once the contracts have been changed with set-based
+     * statements. Must run inside a transaction; returns the day "active" must be evaluated at.
+     */
+    public LocalDate lockAll(Collection<Long> clientIds, int chunkSize) {
+        LocalDate today = LocalDate.now();
+        List<Long> ids = new ArrayList<>(new TreeSet<>(clientIds));
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Set<Long> locked = summaryRepo.findAllForUpdate(chunk).stream()
+                    .map(ClientContractSummary::getClientId)
+                    .collect(Collectors.toSet());
+            for (Long clientId : chunk) {
+                if (locked.contains(clientId)) continue;
+                var s = new ClientContractSummary();
+                s.setClientId(clientId);
+                s.setActiveTotal(BigDecimal.ZERO);
+                s.setActiveCount(0);
+                s.setAsOf(today);
+                entityManager.persist(s);
+            }
+        }
+        entityManager.flush();
+        return today;
+    }
+
+    /**
+     * Locks the summary rows of several clients, in client id order and by chunks of
+     * {@code chunkSize} ids, ready for {@link #apply(Long, BigDecimal, long)}: as
+     * {@link #lockLiveClient(Long)} does for one client, stale rows are rolled forward to today and
+     * missing rows are built from the live query, for live clients only. Must run inside a
+     * transaction; returns the day "active" must be evaluated at.
+     */
+    public LocalDate lockAllLive(Collection<Long> clientIds, int chunkSize) {
+        LocalDate today = LocalDate.now();
+        List<Long> ids = new ArrayList<>(new TreeSet<>(clientIds));
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<ClientContractSummary> rows = summaryRepo.findAllForUpdate(chunk);
+            rollForward(rows, today);
+            Set<Long> locked = rows.stream().map(ClientContractSummary::getClientId).collect(Collectors.toSet());
+            List<Long> missing = chunk.stream().filter(id -> !locked.contains(id)).toList();
+            if (missing.isEmpty()) continue;
+            // Client antérieur à la table de synthèse : reconstruction, jamais pour un client supprimé
+            List<Long> live = clientRepo.findLiveIds(missing);
+            Map<Long, ContractTotals> totals = live.isEmpty() ? Map.of() : byClient(contractRepo.totalsActiveByClients(live, today));
+            for (Long clientId : live) {
+                var t = totals.getOrDefault(clientId, zero(clientId));
+                var s = new ClientContractSummary();
+                s.setClientId(clientId);
+                s.setActiveTotal(t.total());
+                s.setActiveCount(t.count());
+                s.setAsOf(today);
+                entityManager.persist(s);
+            }
+        }
+        entityManager.flush();
+        return today;
+    }
+
+    /**
+     * Overwrites the (locked) summary rows of several clients with the live totals, one grouped
+     * query per chunk of {@code chunkSize} ids.
+     */
+    public void recompute(Collection<Long> clientIds, LocalDate today, int chunkSize) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(clientIds));
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Map<Long, ContractTotals> live = byClient(contractRepo.totalsActiveByClients(chunk, today));
+            for (Long clientId : chunk) {
+                var s = entityManager.find(ClientContractSummary.class, clientId);
+                var t = live.getOrDefault(clientId, zero(clientId));
+                s.setActiveTotal(t.total());
+                s.setActiveCount(t.count());
+                s.setAsOf(today);
+            }
+        }
+    }
+
+    /** Adds a delta to the (locked) summary row of a client. */
+    public void apply(Long clientId, BigDecimal deltaTotal, long deltaCount) {
+        if (deltaTotal.signum() == 0 && deltaCount == 0) return;
+        var summary = summaryRepo.findById(clientId)
+                .orElseThrow(() -> new IllegalStateException("summary of client " + clientId + " is not locked"));
+        summary.setActiveTotal(summary.getActiveTotal().add(deltaTotal));
+        summary.setActiveCount(summary.getActiveCount() + deltaCount);
+    }
+
+    /** Removes the summary row of a deleted client. */
+    public void remove(Long clientId) {
+        summaryRepo.deleteByClient(clientId);
+    }
+
+    /** Removes the summary rows of several deleted clients. */
+    public void removeAll(Collection<Long> clientIds) {
+        summaryRepo.deleteByClients(clientIds);
+    }
+
+    /** O(1) read of the active total, falling back to the live query when the row is not usable. */
+    public SumResponseDto activeTotals(Long clientId) {
+        LocalDate today = LocalDate.now();
+        return summaryRepo.findById(clientId)
+                .filter(s -> s.getAsOf().equals(today))
+                .map(s -> new SumResponseDto(clientId, s.getActiveTotal(), s.getActiveCount()))
+                .orElseGet(() -> {
+                    var live = liveTotals(clientId, today);
+                    return new SumResponseDto(clientId, live.total(), live.count());
+                });
+    }
+
+    /**
+     * Rolls forward up to {@code chunkSize} stale rows to {@code today}.
+     *
+     * @return the number of rows processed (0 when everything is up to date)
+     */
+    @Transactional
+    public int sweepExpired(LocalDate today, int chunkSize) {
+        List<Long> ids = summaryRepo.findStaleClientIds(today, Limit.of(chunkSize));
+        if (ids.isEmpty()) return 0;
+        rollForward(summaryRepo.findAllForUpdate(ids), today);
+        return ids.size();
+    }
+
+    /** Compares the summary of one client with the live query. */
+    @Transactional
+    public SummaryCheckDto check(Long clientId) {
+        LocalDate today = LocalDate.now();
+        var live = liveTotals(clientId, today);
+        var summary = summaryRepo.findById(clientId).orElse(null);
+        if (summary == null) {
+            return new SummaryCheckDto(clientId, null, null, live.total(), live.count(), live.count() == 0);
+        }
+        if (summary.getAsOf().isBefore(today)) {
+            lock(clientId, summaryRepo.findForUpdate(clientId).orElseThrow());
+        }
+        return toCheck(summary, live);
+    }
+
+    /**
+     * Compares up to {@code chunkSize} summary rows after {@code afterClientId} with the live query,
+     * optionally overwriting inconsistent rows with the live values.
+     *
+     * @return the checks of the inconsistent rows, and the last client id scanned (null at the end)
+     */
+    @Transactional
+    public CheckChunk checkChunk(Long afterClientId, int chunkSize, boolean repair) {
+        LocalDate today = LocalDate.now();
+        List<ClientContractSummary> page = summaryRepo.findPageAfter(afterClientId, Limit.of(chunkSize));
+        // Les lignes pas encore balayées sont ignorées : le sweeper les remettra à jour
+        List<ClientContractSummary> rows = page.stream().filter(s -> s.getAsOf().equals(today)).toList();
+        List<Long> ids = rows.stream().map(ClientContractSummary::getClientId).toList();
+        Map<Long, ContractTotals> live = ids.isEmpty() ? Map.of() : byClient(contractRepo.totalsActiveByClients(ids, today));
+
+        List<SummaryCheckDto> mismatches = new ArrayList<>();
+        for (var s : rows) {
+            var check = toCheck(s, live.getOrDefault(s.getClientId(), zero(s.getClientId())));
+            if (check.consistent()) continue;
+            mismatches.add(check);
+            if (repair) {
+                // Verrouille puis recalcule : une écriture concurrente a pu passer entre-temps
+                entityManager.refresh(s, LockModeType.PESSIMISTIC_WRITE);
+                var fresh = liveTotals(s.getClientId(), today);
+                s.setActiveTotal(fresh.total());
+                s.setActiveCount(fresh.count());
+                log.warn("Repaired contract summary of client {}: {}", s.getClientId(), check);
+            }
+        }
+        Long last = page.isEmpty() ? null : page.get(page.size() - 1).getClientId();
+        return new CheckChunk(mismatches, last);
+    }
+
+    /** One chunk of the full consistency check. */
+    public record CheckChunk(List<SummaryCheckDto> mismatches, Long lastClientId) { }
+
+    private void rollForward(List<ClientContractSummary> rows, LocalDate today) {
+        // Les lignes partagent en général la même date asOf : une requête groupée par date
+        Map<LocalDate, List<ClientContractSummary>> byAsOf = rows.stream()
+                .filter(s -> s.getAsOf().isBefore(today))
+                .collect(Collectors.groupingBy(ClientContractSummary::getAsOf));
+        byAsOf.forEach((asOf, group) -> {
+            List<Long> ids = group.stream().map(ClientContractSummary::getClientId).toList();
+            Map<Long, ContractTotals> expired = byClient(contractRepo.totalsExpiredByClients(ids, asOf, today));
+            for (var s : group) {
+                var e = expired.get(s.getClientId());
+                if (e != null) {
+                    s.setActiveTotal(s.getActiveTotal().subtract(e.total()));
+                    s.setActiveCount(s.getActiveCount() - e.count());
+                }
+                s.setAsOf(today);
+            }
+        });
+    }
+
+    private ContractTotals liveTotals(Long clientId, LocalDate today) {
+        return contractRepo.totalsActiveByClients(List.of(clientId), today).stream()
+                .findFirst()
+                .orElse(zero(clientId));
+    }
+
+    private static SummaryCheckDto toCheck(ClientContractSummary s, ContractTotals live) {
+        boolean consistent = s.getActiveTotal().compareTo(live.total()) == 0 && s.getActiveCount() == live.count();
+        return new SummaryCheckDto(s.getClientId(), s.getActiveTotal(), s.getActiveCount(),
+                live.total(), live.count(), consistent);
+    }
+
+    private static ContractTotals zero(Long clientId) {
+        return new ContractTotals(clientId, BigDecimal.ZERO, 0L);
+    }
+
+    private static Map<Long, ContractTotals> byClient(List<ContractTotals> totals) {
+        return totals.stream().collect(Collectors.toMap(ContractTotals::clientId, Function.identity()));
+    }
+}
@@ -0,0 +1,117 @@
+package ch.vaudoise.apifactory;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch endpoints report the errors of every item in one response; {@code atomic=false} creates the valid items.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchCreationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+
+    @Test
+    void atomicBatchReportsEveryInvalidItemAndCreatesNothing() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "Dan", "dan@example.com",
+                "+41 21 000 00 04", LocalDate.of(1970, 4, 4), null));
+
+        mvc.perform(post("/api/clients/{id}/contracts/batch", clientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"costAmount": 10},
+                                 {"costAmount": -1},
+                                 {"costAmount": 5, "startDate": "2025-01-02", "endDate": "2025-01-01"}]"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"))
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].field").value("costAmount"))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[1].field").value("endDate"));
+        assertEquals(0, contracts.sumActive(clientId).activeCount());
+    }
+
+    @Test
+    void partialBatchCreatesTheValidItems() throws Exception {
+        clients.create(new ClientCreateDto(ClientType.PERSON, "Eve", "eve@example.com",
+                "+41 21 000 00 05", LocalDate.of(1975, 5, 5), null));
+
+        String body = mvc.perform(post("/api/clients/batch").param("atomic", "false")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"type": "PERSON", "name": "Fay", "email": "fay@example.com", "phone": "+41 21 000 00 06", "birthdate": "1980-06-06"},
+                                 {"type": "PERSON", "name": "Eve bis", "email": "eve@example.com", "phone": "+41 21 000 00 07", "birthdate": "1980-07-07"},
+                                 {"type": "COMPANY", "name": "Gus SA", "email": "gus@example.com", "phone": "+41 21 000 00 08"}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.items[1].errors[0].field").value("email"))
+                .andExpect(jsonPath("$.items[2].status").value("INVALID"))
+                .andExpect(jsonPath("$.items[2].errors[0].field").value("companyIdentifier"))
+                .andReturn().getResponse().getContentAsString();
+
+        Long fayId = JsonPath.parse(body).read("$.items[0].id", Long.class);
+        assertEquals("fay@example.com", clients.get(fayId).email());
+    }
+
+    @Test
+    void partialContractBatchListsOnlyTheCreatedContracts() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "Hal", "hal@example.com",
+                "+41 21 000 00 09", LocalDate.of(1972, 2, 2), null));
+
+        mvc.perform(post("/api/clients/{id}/contracts/batch", clientId).param("atomic", "false")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"costAmount": 10},
+                                 {"costAmount": -1},
+                                 {"costAmount": 20}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.items[1].status").value("INVALID"));
+
+        // Forme historique de la page : métadonnées au premier niveau
+        mvc.perform(get("/api/clients/{id}/contracts", clientId).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.number").value(0))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.numberOfElements").value(1))
+                .andExpect(jsonPath("$.first").value(true))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.empty").value(false))
+                .andExpect(jsonPath("$.pageable.pageSize").value(1))
+                .andExpect(jsonPath("$.pageable.offset").value(0))
+                .andExpect(jsonPath("$.sort.sorted").value(false))
+                .andExpect(jsonPath("$.page").doesNotExist());
+    }
+}
@@ -0,0 +1,122 @@
+package ch.vaudoise.apifactory;
+
+import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.domain.CompanyClient;
+import ch.vaudoise.apifactory.client.domain.PersonClient;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code prod} profile starts with the second-level and query caches: the client hierarchy is
+ * served from its region, contracts are attached to their client without reading it, and the native
+ * soft delete only invalidates the client table space (contract query results stay cached).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod-cache;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@ActiveProfiles({"test", "prod"})
+class ProdCacheProfileTest {
+
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired EntityManagerFactory emf;
+
+    private SessionFactoryImplementor sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void clientIsServedFromTheSecondLevelCache() {
+        Long clientId = newClient("prod-cache-hit");
+        sessionFactory.getCache().evictAll();
+        statistics.clear();
+
+        assertNotNull(find(clientId));
+        assertTrue(sessionFactory.getCache().containsEntity(Client.class, clientId));
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals("prod-cache-hit", find(clientId).getName());
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("client").getHitCount());
+    }
+
+    @Test
+    void contractIsAttachedToItsClientByReference() {
+        Long clientId = newClient("prod-cache-reference");
+        sessionFactory.getCache().evictAll();
+        statistics.clear();
+
+        contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        contracts.createBatch(clientId, List.of(new ContractCreateDto(null, null, BigDecimal.ONE)));
+
+        // Ni lecture du client, ni chargement depuis le cache : seule la clé étrangère est écrite
+        assertEquals(0, Stream.of(Client.class, PersonClient.class, CompanyClient.class)
+                .mapToLong(type -> statistics.getEntityStatistics(type.getName()).getLoadCount())
+                .sum());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+        assertEquals(2, contracts.sumActive(clientId).activeCount());
+    }
+
+    @Test
+    void softDeleteOnlyInvalidatesTheClientTableSpace() {
+        Long clientId = newClient("prod-cache-delete");
+        contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        Object clientBefore = updateTimestamp("client");
+        Object contractBefore = updateTimestamp("contract");
+
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(clientId), null));
+
+        assertNotNull(updateTimestamp("client"));
+        assertNotEquals(clientBefore, updateTimestamp("client"));
+        assertEquals(contractBefore, updateTimestamp("contract"));
+    }
+
+    /** Last invalidation of a table space recorded in the update-timestamps region. */
+    private Object updateTimestamp(String space) {
+        try (var session = sessionFactory.openSession()) {
+            return sessionFactory.getCache().getTimestampsCache().getRegion()
+                    .getFromCache(space, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    private Client find(Long clientId) {
+        var em = emf.createEntityManager();
+        try {
+            return em.find(Client.class, clientId);
+        } finally {
+            em.close();
+        }
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 21",
+                LocalDate.of(1970, 1, 1), null));
+    }
+}
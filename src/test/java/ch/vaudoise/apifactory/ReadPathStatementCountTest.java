@@ -0,0 +1,127 @@
+package ch.vaudoise.apifactory;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Number of SQL statements and hydrated entities per read request, from Hibernate statistics.
+ * <p>
+ * The client cache is disabled so that every GET reaches the database; background jobs are
+ * pushed out so that they cannot run statements during a measurement.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-count;DB_CLOSE_DELAY=-1",
+        "app.client-cache.enabled=false",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadPathStatementCountTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void getClientIsOneProjectionQuery() throws Exception {
+        Long person = clients.create(new ClientCreateDto(ClientType.PERSON, "Alice", "alice@example.com",
+                "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null));
+        Long company = clients.create(new ClientCreateDto(ClientType.COMPANY, "Acme SA", "acme@example.com",
+                "+41 21 000 00 01", null, "ACM-001"));
+
+        statistics.clear();
+        mvc.perform(get("/api/clients/{id}", person))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.birthdate").value("1990-01-01"))
+                .andExpect(jsonPath("$.companyIdentifier").doesNotExist());
+        mvc.perform(get("/api/clients/{id}", company))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.companyIdentifier").value("ACM-001"));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void listContractsIsExistenceCheckPlusProjectionQuery() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "Bob", "bob@example.com",
+                "+41 21 000 00 02", LocalDate.of(1985, 5, 5), null));
+        contracts.createBatch(clientId, List.of(
+                new ContractCreateDto(null, null, BigDecimal.TEN),
+                new ContractCreateDto(null, LocalDate.now().plusYears(1), BigDecimal.ONE),
+                new ContractCreateDto(LocalDate.now().minusYears(1), LocalDate.now().minusDays(1), BigDecimal.ONE)));
+
+        statistics.clear();
+        mvc.perform(get("/api/clients/{id}/contracts", clientId).param("active", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3));
+        // Page partielle : Spring Data se passe du COUNT
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        mvc.perform(get("/api/clients/{id}/contracts", clientId).param("active", "true").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.totalPages").value(2));
+        // Page pleine : existence du client, page, COUNT
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void cursorListingIsExistenceCheckPlusProjectionQuery() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "Carla", "carla@example.com",
+                "+41 21 000 00 03", LocalDate.of(1982, 2, 2), null));
+        contracts.createBatch(clientId, List.of(
+                new ContractCreateDto(null, null, BigDecimal.TEN),
+                new ContractCreateDto(null, null, BigDecimal.ONE),
+                new ContractCreateDto(null, LocalDate.now().plusYears(1), BigDecimal.ONE)));
+
+        statistics.clear();
+        String cursor = JsonPath.read(mvc.perform(get("/api/clients/{id}/contracts/cursor", clientId).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString(), "$.nextCursor");
+        mvc.perform(get("/api/clients/{id}/contracts/cursor", clientId).param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].clientId").value(clientId))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        // Par page : existence du client, page keyset ; aucun contrat ni client hydraté
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
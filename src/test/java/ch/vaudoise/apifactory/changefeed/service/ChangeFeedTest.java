@@ -0,0 +1,267 @@
+package ch.vaudoise.apifactory.changefeed.service;
+
+import ch.vaudoise.apifactory.changefeed.domain.ChangeEntityType;
+import ch.vaudoise.apifactory.changefeed.domain.ChangeOperation;
+import ch.vaudoise.apifactory.changefeed.dto.ChangeBatchDto;
+import ch.vaudoise.apifactory.changefeed.dto.ChangeEventDto;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.dto.ClientUpdateDto;
+import ch.vaudoise.apifactory.client.service.ClientPurgeJobs;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Change feed: sequence order and visibility while lower sequences are in flight, long poll and
+ * SSE wake-ups, retention and compaction, and the events recorded for a client deletion.
+ * <p>
+ * Events recorded directly through {@link ChangeLog} use entity ids above {@code 900 000},
+ * which no other test creates.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeFeedTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ChangeFeedService feed;
+    @Autowired ChangeFeedJobs feedJobs;
+    @Autowired ChangeLog changeLog;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired ClientPurgeJobs purgeJobs;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void laterCommitStaysInvisibleWhileALowerSequenceIsInFlight() throws Exception {
+        long head = changeLog.visibleUpTo();
+        var allocated = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var slow = CompletableFuture.runAsync(() -> recordBlockingBeforeCommit(900_001L, allocated, release, false));
+        assertTrue(allocated.await(10, TimeUnit.SECONDS));
+
+        record(900_002L);
+
+        // seq head+2 est commitée, mais head+1 peut encore l'être : rien n'est lisible
+        assertEquals(head, changeLog.visibleUpTo());
+        assertTrue(feed.read(head, 10).events().isEmpty());
+
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        List<ChangeEventDto> events = feed.read(head, 10).events();
+        assertEquals(List.of(head + 1, head + 2), events.stream().map(ChangeEventDto::seq).toList());
+        assertEquals(List.of(900_001L, 900_002L), events.stream().map(ChangeEventDto::entityId).toList());
+    }
+
+    @Test
+    void rolledBackSequenceLeavesAGapThatDoesNotBlockTheFeed() throws Exception {
+        long head = changeLog.visibleUpTo();
+        var allocated = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var failing = CompletableFuture.runAsync(() -> recordBlockingBeforeCommit(900_003L, allocated, release, true));
+        assertTrue(allocated.await(10, TimeUnit.SECONDS));
+        record(900_004L);
+
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+
+        assertEquals(head + 2, changeLog.visibleUpTo());
+        List<ChangeEventDto> events = feed.read(head, 10).events();
+        assertEquals(List.of(900_004L), events.stream().map(ChangeEventDto::entityId).toList());
+        assertEquals(head + 2, events.get(0).seq());
+    }
+
+    @Test
+    void longPollCompletesWhenAnEventIsCommitted() {
+        long head = changeLog.visibleUpTo();
+        var result = feed.poll(head, 10, Duration.ofSeconds(20));
+        assertFalse(result.hasResult());
+
+        record(900_005L);
+
+        await(result::hasResult);
+        var batch = (ChangeBatchDto) result.getResult();
+        assertEquals(List.of(900_005L), batch.events().stream().map(ChangeEventDto::entityId).toList());
+        assertEquals(head + 1, batch.nextSince());
+    }
+
+    @Test
+    void sseStreamPushesCommittedEventsWithTheirSequenceAsId() throws Exception {
+        long head = changeLog.visibleUpTo();
+        MvcResult stream = mvc.perform(get("/api/changes/stream").header("Last-Event-ID", head))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        record(900_006L);
+
+        await(() -> content(stream).contains("\"entityId\":900006"));
+        assertTrue(content(stream).startsWith("id:" + (head + 1) + "\nevent:change\ndata:"), content(stream));
+
+        stream.getRequest().getAsyncContext().complete(); // déconnexion : l'abonné est retiré
+    }
+
+    @Test
+    void cleanupRemovesExpiredEventsAndSupersededUpdates() {
+        Long expired = newClient("feed-expired");
+        Long updated = newClient("feed-updated");
+        clients.update(updated, new ClientUpdateDto("feed-updated-1", "feed-updated@example.com", "+41 21 000 00 14"), null);
+        clients.update(updated, new ClientUpdateDto("feed-updated-2", "feed-updated@example.com", "+41 21 000 00 14"), null);
+        List<ChangeEventDto> updates = events(0, updated).stream()
+                .filter(e -> e.operation() == ChangeOperation.UPDATED).toList();
+        assertEquals(2, updates.size());
+        LocalDateTime now = LocalDateTime.now();
+        age(expired, now.minusDays(30));  // au-delà de la rétention (7 j)
+        age(updated, now.minusDays(2));   // au-delà de compact-after (1 j) seulement
+
+        feedJobs.cleanup();
+
+        assertTrue(events(0, expired).isEmpty());
+        assertTrue(feed.read(0, 1).truncated());
+        // Création conservée, première mise à jour remplacée par la seconde
+        assertEquals(List.of(ChangeOperation.CREATED, ChangeOperation.UPDATED),
+                events(0, updated).stream().map(ChangeEventDto::operation).toList());
+        assertEquals(updates.get(1).seq(), events(0, updated).get(1).seq());
+    }
+
+    @Test
+    void deletingAClientRecordsItsContractsFirst() {
+        long head = changeLog.visibleUpTo();
+        Long clientId = newClient("feed-delete");
+        Long first = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        Long second = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.ONE));
+
+        clients.delete(clientId);
+
+        List<ChangeEventDto> events = events(head, clientId);
+        assertEquals(List.of(
+                "CLIENT CREATED " + clientId, "CONTRACT CREATED " + first, "CONTRACT CREATED " + second,
+                "CONTRACT DELETED " + first, "CONTRACT DELETED " + second, "CLIENT DELETED " + clientId),
+                events.stream().map(e -> e.entityType() + " " + e.operation() + " " + e.entityId()).toList());
+        assertEquals(events.stream().map(ChangeEventDto::seq).sorted().toList(), events.stream().map(ChangeEventDto::seq).toList());
+    }
+
+    @Test
+    void bulkDeletionRecordsContractDeletionsAsThePurgeProgresses() {
+        Long clientId = newClient("feed-bulk");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        long head = changeLog.visibleUpTo();
+
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(clientId), null));
+        assertEquals(List.of("CLIENT DELETED " + clientId), describe(events(head, clientId)));
+
+        purgeJobs.purge();
+
+        assertEquals(List.of("CLIENT DELETED " + clientId, "CONTRACT DELETED " + contractId),
+                describe(events(head, clientId)));
+    }
+
+    /**
+     * Records one event in a transaction whose commit waits for {@code release} once the
+     * sequence has been allocated, then fails if {@code fail} is set.
+     */
+    private void recordBlockingBeforeCommit(Long entityId, CountDownLatch allocated, CountDownLatch release,
+                                            boolean fail) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeLog.record(ChangeEntityType.CLIENT, entityId, entityId, ChangeOperation.UPDATED);
+            // Enregistrée après celle du ChangeLog : s'exécute une fois la séquence allouée et insérée
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    allocated.countDown();
+                    try {
+                        assertTrue(release.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    if (fail) throw new IllegalStateException("commit refused by the test");
+                }
+            });
+        });
+    }
+
+    private void record(Long entityId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                changeLog.record(ChangeEntityType.CLIENT, entityId, entityId, ChangeOperation.UPDATED));
+    }
+
+    /** Every visible event of one client after {@code since}. */
+    private List<ChangeEventDto> events(long since, Long clientId) {
+        List<ChangeEventDto> events = new ArrayList<>();
+        ChangeBatchDto batch;
+        do {
+            batch = feed.read(since, 500);
+            batch.events().stream().filter(e -> e.clientId().equals(clientId)).forEach(events::add);
+            since = batch.nextSince();
+        } while (!batch.events().isEmpty());
+        return events;
+    }
+
+    private void age(Long clientId, LocalDateTime occurredAt) {
+        jdbcTemplate.update("UPDATE change_event SET occurred_at = ? WHERE client_id = ?",
+                Timestamp.valueOf(occurredAt), clientId);
+    }
+
+    private static List<String> describe(List<ChangeEventDto> events) {
+        return events.stream().map(e -> e.entityType() + " " + e.operation() + " " + e.entityId()).toList();
+    }
+
+    private static String content(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 s");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com",
+                "+41 21 000 00 14", LocalDate.of(1965, 5, 5), null));
+    }
+}
@@ -0,0 +1,111 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.common.batch.BatchItemError;
+import ch.vaudoise.apifactory.common.exception.BatchValidationException;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Set-based batch import of {@link ClientService#createMany}: uniqueness checked set-wise, rows
+ * inserted in JDBC batches, and nothing written when an atomic batch has an invalid item.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ClientBatchImportTest {
+
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    void importedClientsAreReadableWithAnEmptySummaryAndACreatedEvent() {
+        List<Long> ids = clients.createMany(List.of(
+                person("imp-anna"),
+                company("imp-corp", "IMP-001"),
+                person("imp-ben")));
+
+        assertEquals(3, ids.size());
+        assertEquals("imp-anna@example.com", clients.get(ids.get(0)).email());
+        assertEquals("IMP-001", clients.get(ids.get(1)).companyIdentifier());
+        assertEquals(ClientType.PERSON, clients.get(ids.get(2)).type());
+        for (Long id : ids) {
+            var sum = contracts.sumActive(id);
+            assertEquals(0, sum.activeSum().signum());
+            assertEquals(0, sum.activeCount());
+        }
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM client_contract_summary WHERE client_id IN (?, ?, ?)", Integer.class, ids.toArray()));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM change_event WHERE entity_type = 'CLIENT' AND operation = 'CREATED'"
+                        + " AND entity_id IN (?, ?, ?)", Integer.class, ids.toArray()));
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheBatch() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        clients.createMany(people("warm", 50)); // sequences déjà initialisées pour les deux mesures
+
+        statistics.clear();
+        clients.createMany(people("small", 3));
+        long small = statistics.getPrepareStatementCount();
+        statistics.clear();
+        clients.createMany(people("large", 40));
+        long large = statistics.getPrepareStatementCount();
+
+        // Lookups IN et INSERT groupés : au plus un appel de séquence de plus pour le grand lot
+        assertTrue(large <= small + 2, "3 items: " + small + " statements, 40 items: " + large);
+    }
+
+    @Test
+    void atomicBatchWithDuplicatesCreatesNothing() {
+        clients.create(person("dup-existing"));
+
+        var rejected = assertThrows(BatchValidationException.class, () -> clients.createMany(List.of(
+                person("dup-new"),
+                person("dup-existing"),  // déjà en base
+                person("dup-new"))));    // doublon dans le lot
+
+        assertTrue(rejected.isConflict());
+        assertEquals(List.of(1, 2), rejected.getErrors().stream().map(BatchItemError::index).toList());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM client WHERE email = 'dup-new@example.com'", Integer.class));
+    }
+
+    private static List<ClientCreateDto> people(String prefix, int count) {
+        List<ClientCreateDto> dtos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) dtos.add(person(prefix + "-" + i));
+        return dtos;
+    }
+
+    private static ClientCreateDto person(String name) {
+        return new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 10",
+                LocalDate.of(1980, 1, 1), null);
+    }
+
+    private static ClientCreateDto company(String name, String companyIdentifier) {
+        return new ClientCreateDto(ClientType.COMPANY, name, name + "@example.com", "+41 21 000 00 11",
+                null, companyIdentifier);
+    }
+}
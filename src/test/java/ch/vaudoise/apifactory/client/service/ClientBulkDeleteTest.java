@@ -0,0 +1,132 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientPurgeStatus;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.dto.ClientDeleteFilterDto;
+import ch.vaudoise.apifactory.client.dto.ClientPurgeJobDto;
+import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk deletion: set-based soft delete over several IN-clause chunks, the purge job and its
+ * progress counters, and the reads that must no longer see a soft-deleted client.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ClientBulkDeleteTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired ClientPurgeService purgeService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void filterMatchingMoreThanOneChunkSoftDeletesEveryClient() {
+        // 1001 clients : deux blocs de la clause IN (1000 + 1)
+        clients.createMany(IntStream.range(0, 1001)
+                .mapToObj(i -> person("bulk-chunk-" + i, "bulk-chunk-" + i + "@chunk.example"))
+                .toList());
+
+        ClientPurgeJobDto job = clients.deleteMany(new ClientBulkDeleteDto(null,
+                new ClientDeleteFilterDto(null, "chunk.example", null)));
+
+        assertEquals(1001, job.clientCount());
+        assertEquals(ClientPurgeStatus.PENDING, job.status());
+        assertEquals(1001, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM client WHERE email LIKE '%@chunk.example' AND deleted_at IS NOT NULL"
+                        + " AND purge_job_id = ?", Integer.class, job.id()));
+        // Déjà supprimés : un second appel ne sélectionne plus rien
+        var again = clients.deleteMany(new ClientBulkDeleteDto(null, new ClientDeleteFilterDto(null, "chunk.example", null)));
+        assertEquals(0, again.clientCount());
+        assertEquals(ClientPurgeStatus.DONE, again.status());
+    }
+
+    @Test
+    void purgeJobReportsItsProgressChunkByChunk() throws Exception {
+        Long clientId = newClient("bulk-progress");
+        for (int i = 0; i < 5; i++) {
+            contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        }
+        Long jobId = clients.deleteMany(new ClientBulkDeleteDto(List.of(clientId, Long.MAX_VALUE), null)).id();
+        assertEquals(1, clients.purgeJob(jobId).clientCount()); // l'id inconnu est ignoré
+
+        purgeService.start(jobId);
+        assertEquals(ClientPurgeStatus.RUNNING, clients.purgeJob(jobId).status());
+        List<Long> purgedContracts = new ArrayList<>();
+        while (purgeService.purgeContracts(jobId, 2) > 0) {
+            purgedContracts.add(clients.purgeJob(jobId).purgedContracts());
+        }
+        assertEquals(List.of(2L, 4L, 5L), purgedContracts);
+        assertEquals(0, clients.purgeJob(jobId).purgedClients());
+        assertEquals(1, purgeService.purgeClients(jobId, 2));
+        assertEquals(0, purgeService.purgeClients(jobId, 2));
+        purgeService.finish(jobId);
+
+        mvc.perform(get("/api/clients/bulk-delete/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.clientCount").value(1))
+                .andExpect(jsonPath("$.purgedClients").value(1))
+                .andExpect(jsonPath("$.purgedContracts").value(5));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM client WHERE id = ?", Integer.class, clientId));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contract WHERE client_id = ?", Integer.class, clientId));
+    }
+
+    @Test
+    void softDeletedClientIsHiddenFromReadsBeforeThePurge() throws Exception {
+        Long clientId = newClient("bulk-hidden");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        clients.get(clientId); // entrée en cache, évincée par la suppression
+
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(clientId), null));
+
+        assertThrows(NotFoundException.class, () -> clients.get(clientId));
+        mvc.perform(get("/api/clients/{id}", clientId)).andExpect(status().isNotFound());
+        mvc.perform(get("/api/clients/{id}/contracts", clientId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+        mvc.perform(get("/api/clients/{id}/contracts/sum", clientId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeCount").value(0));
+        mvc.perform(get("/api/contracts/{id}", contractId)).andExpect(status().isNotFound());
+        mvc.perform(get("/api/clients").param("name", "bulk-hidden"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+        // Lignes toujours présentes jusqu'à la purge
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contract WHERE id = ?", Integer.class, contractId));
+    }
+
+    private Long newClient(String name) {
+        return clients.create(person(name, name + "@example.com"));
+    }
+
+    private static ClientCreateDto person(String name, String email) {
+        return new ClientCreateDto(ClientType.PERSON, name, email, "+41 21 000 00 16", LocalDate.of(1982, 2, 2), null);
+    }
+}
@@ -0,0 +1,162 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.common.datasource.ReplicaDataSourceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hits, after-commit invalidation and counters of {@link ClientCache}. Transactions are simulated
+ * with {@link TransactionSynchronizationManager}.
+ */
+class ClientCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, ClientResponseDto> loader = id -> view(id, "v" + loads.incrementAndGet());
+    private final Function<Long, ClientResponseDto> primary = id -> view(id, "primary-v" + loads.incrementAndGet());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void hitDoesNotCallTheLoader() {
+        var cache = cache(true);
+
+        assertEquals("v1", cache.get(1L, loader, primary).name());
+        assertEquals("v1", cache.get(1L, loader, primary).name());
+        assertEquals(1, loads.get());
+        var stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void evictionWaitsForTheCommit() {
+        var cache = cache(true);
+        cache.get(1L, loader, primary);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(1L);
+        assertEquals("v1", cache.get(1L, loader, primary).name()); // transaction en cours : entrée conservée
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals("v2", cache.get(1L, loader, primary).name());
+    }
+
+    @Test
+    void rollbackKeepsTheEntry() {
+        var cache = cache(true);
+        cache.get(1L, loader, primary);
+        cache.get(2L, loader, primary);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAllAfterCommit(List.of(1L, 2L));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals("v1", cache.get(1L, loader, primary).name());
+        assertEquals("v2", cache.get(2L, loader, primary).name());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictionOutsideATransactionIsImmediate() {
+        var cache = cache(true);
+        cache.get(1L, loader, primary);
+        cache.get(2L, loader, primary);
+
+        cache.evictAllAfterCommit(List.of(1L, 2L));
+
+        assertEquals("v3", cache.get(1L, loader, primary).name());
+        assertEquals("v4", cache.get(2L, loader, primary).name());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        var cache = cache(false);
+
+        cache.get(1L, loader, primary);
+        cache.get(1L, loader, primary);
+
+        assertEquals(2, loads.get());
+        assertFalse(cache.stats().enabled());
+    }
+
+    @Test
+    void missAfterAWriteReadsThePrimaryWhileTheReplicaMayLag() throws InterruptedException {
+        var cache = new ClientCache(new ClientCacheProperties(true, 100, Duration.ofMinutes(5)),
+                replica(true, Duration.ofMillis(100)));
+        cache.get(1L, loader, primary);
+        cache.get(2L, loader, primary);
+
+        cache.evictAfterCommit(1L);
+        assertEquals("primary-v3", cache.get(1L, loader, primary).name());
+        assertEquals("v2", cache.get(2L, loader, primary).name()); // non écrit : toujours en cache
+
+        Thread.sleep(300); // fenêtre de retard écoulée
+        cache.evictAfterCommit(1L);
+        assertEquals("primary-v4", cache.get(1L, loader, primary).name());
+        cache.evictAllAfterCommit(List.of(2L));
+        Thread.sleep(300); // miss tardif : le réplica a rattrapé l'écriture
+        assertEquals("v5", cache.get(2L, loader, primary).name());
+    }
+
+    @Test
+    void tooManyWritesToTrackSendEveryMissToThePrimary() {
+        var cache = new ClientCache(new ClientCacheProperties(true, 2, Duration.ofMinutes(5)),
+                replica(true, Duration.ofMinutes(1)));
+
+        cache.evictAllAfterCommit(List.of(1L, 2L, 3L));
+
+        assertEquals("primary-v1", cache.get(9L, loader, primary).name()); // jamais écrit, mais suivi saturé
+    }
+
+    @Test
+    void withoutReplicaMissesUseTheDefaultLoader() {
+        var cache = cache(true);
+        cache.get(1L, loader, primary);
+
+        cache.evictAfterCommit(1L);
+
+        assertEquals("v2", cache.get(1L, loader, primary).name());
+    }
+
+    private static ClientCache cache(boolean enabled) {
+        return new ClientCache(new ClientCacheProperties(enabled, 100, Duration.ofMinutes(5)),
+                replica(false, Duration.ofSeconds(5)));
+    }
+
+    private static ReplicaDataSourceProperties replica(boolean enabled, Duration maxLag) {
+        return new ReplicaDataSourceProperties(enabled, "jdbc:h2:mem:unused", "sa", "", 1,
+                Duration.ofSeconds(1), maxLag, maxLag);
+    }
+
+    /** Runs the registered synchronizations as the transaction manager would on completion. */
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    private static ClientResponseDto view(Long id, String name) {
+        return new ClientResponseDto(id, ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 00",
+                null, null, null, null, 0L);
+    }
+}
@@ -0,0 +1,107 @@
+package ch.vaudoise.apifactory.client.service;
+
+import ch.vaudoise.apifactory.client.domain.Client;
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.dto.ClientResponseDto;
+import ch.vaudoise.apifactory.client.dto.ClientSearchDto;
+import ch.vaudoise.apifactory.common.pagination.CursorPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Client search: full-text matches beyond one IN-clause chunk, combined with the other criteria
+ * and walked page by page in {@code (nameKey, id)} order, and company identifiers normalized on
+ * write and on search.
+ * <p>
+ * The full-text word {@code quillon} is only used here; its 1205 clients are created once.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClientSearchTest {
+
+    private static final int PERSONS = 1200;
+    private static final int COMPANIES = 5;
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+
+    @BeforeAll
+    void createMatchingClients() {
+        List<ClientCreateDto> batch = new ArrayList<>(IntStream.range(0, PERSONS)
+                .mapToObj(i -> new ClientCreateDto(ClientType.PERSON, "Quillon P" + (PERSONS - i),
+                        "quillon-p" + i + "@example.com", "+41 21 000 00 17", LocalDate.of(1990, 1, 1), null))
+                .toList());
+        // Sociétés en fin d'ordre alphabétique, identifiants saisis en minuscules
+        for (int i = 1; i <= COMPANIES; i++) {
+            batch.add(new ClientCreateDto(ClientType.COMPANY, "Quillon Zeta " + i, "quillon-c" + i + "@example.com",
+                    "+41 21 000 00 17", null, "qln-00" + i));
+        }
+        clients.createMany(batch);
+    }
+
+    @Test
+    void fullTextPagingReturnsEveryMatchInNameOrder() {
+        List<ClientResponseDto> all = walk(new ClientSearchDto(null, null, null, null, null, "quillon"), 100);
+
+        assertEquals(PERSONS + COMPANIES, all.size());
+        assertEquals(all.size(), all.stream().map(ClientResponseDto::id).distinct().count());
+        assertEquals(all.stream().sorted(Comparator.comparing((ClientResponseDto c) -> Client.searchKey(c.name()))
+                .thenComparing(ClientResponseDto::id)).toList(), all);
+    }
+
+    @Test
+    void otherCriteriaApplyToEveryFullTextMatch() {
+        List<ClientResponseDto> companies = walk(new ClientSearchDto(null, null, null, ClientType.COMPANY, null, "quillon"), 2);
+
+        assertEquals(IntStream.rangeClosed(1, COMPANIES).mapToObj(i -> "Quillon Zeta " + i).toList(),
+                companies.stream().map(ClientResponseDto::name).toList());
+        // P12, P120 à P129, P1200
+        assertEquals(12, walk(new ClientSearchDto("quillon p12", null, null, null, null, "quillon"), 5).size());
+    }
+
+    @Test
+    void companyIdentifierIsStoredAndSearchedInUpperCase() throws Exception {
+        List<ClientResponseDto> found = walk(new ClientSearchDto(null, null, null, null, " qln-003 ", null), 10);
+
+        assertEquals(List.of("QLN-003"), found.stream().map(ClientResponseDto::companyIdentifier).toList());
+        mvc.perform(get("/api/clients").param("companyIdentifier", "Qln-004"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].companyIdentifier").value("QLN-004"));
+    }
+
+    /** Every page of a search, following the cursors. */
+    private List<ClientResponseDto> walk(ClientSearchDto criteria, int size) {
+        List<ClientResponseDto> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ClientResponseDto> page = clients.search(criteria, cursor, size);
+            assertTrue(page.items().size() <= size);
+            rows.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return rows;
+    }
+}
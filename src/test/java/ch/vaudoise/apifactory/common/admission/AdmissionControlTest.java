@@ -0,0 +1,69 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import ch.vaudoise.apifactory.common.admission.AdmissionProperties.EndpointLimits;
+import ch.vaudoise.apifactory.common.admission.AdmissionProperties.RateLimit;
+import ch.vaudoise.apifactory.common.exception.PayloadTooLargeException;
+import ch.vaudoise.apifactory.common.exception.ServiceUnavailableException;
+import ch.vaudoise.apifactory.common.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token buckets, concurrency caps and size limits of {@link AdmissionControl}.
+ */
+class AdmissionControlTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void callerAndClientBucketsAreIndependent() {
+        var admission = admission(new RateLimit(2, 0.5), new RateLimit(2, 0.5), Map.of());
+
+        admission.admit(EndpointClass.LIST, "a", 1L).close();
+        admission.admit(EndpointClass.LIST, "a", 2L).close();
+        var rejected = assertThrows(TooManyRequestsException.class, () -> admission.admit(EndpointClass.LIST, "a", 3L));
+        assertEquals(2, rejected.getRetryAfterSeconds());
+
+        admission.admit(EndpointClass.LIST, "b", 1L).close(); // client 1 : second et dernier jeton
+        assertThrows(TooManyRequestsException.class, () -> admission.admit(EndpointClass.LIST, "c", 1L));
+        assertEquals(1, registry.counter("app.admission.rejected", "endpoint", "list", "reason", "caller_rate").count());
+        assertEquals(1, registry.counter("app.admission.rejected", "endpoint", "list", "reason", "client_rate").count());
+    }
+
+    @Test
+    void saturatedEndpointClassIsShedUntilAPermitIsReleased() {
+        var admission = admission(new RateLimit(0, 0), new RateLimit(0, 0),
+                Map.of(EndpointClass.BATCH, new EndpointLimits(1, 0, 1)));
+
+        var first = admission.admit(EndpointClass.BATCH, "a", null);
+        assertEquals(1, registry.get("app.admission.in.flight").tag("endpoint", "batch").gauge().value());
+        var shed = assertThrows(ServiceUnavailableException.class, () -> admission.admit(EndpointClass.BATCH, "b", null));
+        assertEquals(1, shed.getRetryAfterSeconds());
+        admission.admit(EndpointClass.SUM, "b", null).close(); // autre classe : pas de plafond
+
+        first.close();
+        admission.admit(EndpointClass.BATCH, "b", null).close();
+        assertEquals(1, registry.counter("app.admission.rejected", "endpoint", "batch", "reason", "queue_full").count());
+    }
+
+    @Test
+    void oversizedBodiesAndBatchesAreRejected() {
+        var admission = admission(new RateLimit(0, 0), new RateLimit(0, 0), Map.of());
+
+        admission.checkBodySize(EndpointClass.BATCH, -1); // longueur inconnue
+        admission.checkBatchSize(3);
+        assertThrows(PayloadTooLargeException.class, () -> admission.checkBodySize(EndpointClass.BATCH, 1025));
+        assertThrows(PayloadTooLargeException.class, () -> admission.checkBatchSize(4));
+    }
+
+    private AdmissionControl admission(RateLimit perCaller, RateLimit perClient, Map<EndpointClass, EndpointLimits> endpoints) {
+        return new AdmissionControl(new AdmissionProperties(true, "X-Caller-Id", perCaller, perClient, 1000,
+                Duration.ofMillis(50), DataSize.ofKilobytes(1), 3, endpoints), registry);
+    }
+}
@@ -0,0 +1,113 @@
+package ch.vaudoise.apifactory.common.admission;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.admission.AdmissionProperties.RateLimit;
+import ch.vaudoise.apifactory.common.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link AdmissionInterceptor} over HTTP: the permit of a streamed response and the page size cap;
+ * the per-caller bucket keyed on the remote address, not on the free-form caller header.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdmissionInterceptorTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void streamedExportHoldsItsPermitUntilWritten() throws Exception {
+        MvcResult started = mvc.perform(get("/api/contracts/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1, inFlight("export")); // première dispatch terminée, réponse pas encore écrite
+
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertEquals(0, inFlight("export"));
+    }
+
+    @Test
+    void pageSizeOverTheCapIsRejected() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "page-cap", "page-cap@example.com",
+                "+41 21 000 00 20", LocalDate.of(1984, 4, 4), null));
+
+        mvc.perform(get("/api/clients/{id}/contracts", clientId).param("size", "501"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page size must not exceed 500"));
+        mvc.perform(get("/api/clients/{id}/contracts", clientId).param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(500));
+    }
+
+    @Test
+    void changingTheCallerHeaderDoesNotResetTheCallerLimit() throws Exception {
+        var properties = new AdmissionProperties(true, "X-Caller-Id", new RateLimit(2, 0.5), new RateLimit(0, 0), 1000,
+                Duration.ofMillis(50), DataSize.ofMegabytes(1), 10, Map.of());
+        var interceptor = new AdmissionInterceptor(new AdmissionControl(properties, new SimpleMeterRegistry()),
+                new CallerResolver(properties), new SpringDataWebProperties());
+        var handler = new HandlerMethod(new Listing(), Listing.class.getMethod("list"));
+
+        // Même adresse, nouvelle valeur d'en-tête à chaque requête : toujours le même seau
+        for (int i = 0; i < 2; i++) {
+            var request = caller("10.0.0.1", "rotating-" + i);
+            var response = new MockHttpServletResponse();
+            interceptor.preHandle(request, response, handler);
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(caller("10.0.0.1", "rotating-2"), new MockHttpServletResponse(), handler));
+        // Autre adresse, en-tête déjà vu : autre seau
+        interceptor.preHandle(caller("10.0.0.2", "rotating-0"), new MockHttpServletResponse(), handler);
+    }
+
+    private static MockHttpServletRequest caller(String address, String header) {
+        var request = new MockHttpServletRequest("GET", "/api/clients");
+        request.setRemoteAddr(address);
+        request.addHeader("X-Caller-Id", header);
+        return request;
+    }
+
+    /** Handler of an admitted listing. */
+    static class Listing {
+
+        @Admission(EndpointClass.LIST)
+        public void list() { }
+    }
+
+    private double inFlight(String endpoint) {
+        return meterRegistry.get("app.admission.in.flight").tag("endpoint", endpoint).gauge().value();
+    }
+}
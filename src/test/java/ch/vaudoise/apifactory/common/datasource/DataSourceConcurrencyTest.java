@@ -0,0 +1,111 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import ch.vaudoise.apifactory.common.error.GlobalExceptionHandler;
+import ch.vaudoise.apifactory.common.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.exception.JDBCConnectionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DataSource limiter: timeout and release, order of the wrappers around the pool, meters bound
+ * once, and the 503 reserved to the limiter's own timeout.
+ */
+class DataSourceConcurrencyTest {
+
+    private final JdbcDataSource pool = h2("limiter");
+    private ReadReplica replica;
+
+    @AfterEach
+    void closeReplica() {
+        if (replica != null) replica.close();
+    }
+
+    @Test
+    void callerWithoutAPermitTimesOutUntilAConnectionIsClosed() throws SQLException {
+        var limited = new ConcurrencyLimitingDataSource(pool, 1, Duration.ofMillis(50));
+        var registry = new SimpleMeterRegistry();
+        limited.bindMetrics(registry);
+
+        Connection held = limited.getConnection();
+        var busy = assertThrows(DatabaseBusyException.class, limited::getConnection);
+        assertEquals(ConcurrencyLimitingDataSource.RETRY_AFTER_SECONDS, busy.getRetryAfterSeconds());
+        assertEquals(1, registry.get("app.datasource.rejected").counter().count());
+        assertEquals(1, registry.get("app.datasource.permits.in.use").gauge().value());
+
+        held.close();
+        held.close(); // un second close ne rend pas un second permis
+        try (Connection next = limited.getConnection()) {
+            assertTrue(next.isValid(1));
+        }
+        assertEquals(0, registry.get("app.datasource.permits.in.use").gauge().value());
+    }
+
+    @Test
+    void limiterIsOptIn() {
+        var wrapper = DataSourceWrappingConfig.dataSourceWrapper(new MockEnvironment(), new DefaultListableBeanFactory()
+                .getBeanProvider(ReadReplica.class));
+
+        assertSame(pool, wrapper.postProcessAfterInitialization(pool, "dataSource"));
+    }
+
+    @Test
+    void routerWrapsTheLimiterOnceAndItsMetersAreBoundOnce() throws SQLException {
+        var environment = new MockEnvironment()
+                .withProperty("app.datasource.concurrency.enabled", "true")
+                .withProperty("app.datasource.replica.enabled", "true")
+                .withProperty("app.datasource.replica.url", "jdbc:h2:mem:limiter-replica");
+        var beans = new DefaultListableBeanFactory();
+        replica = new ReadReplica(new ReplicaDataSourceProperties(true, "jdbc:h2:mem:limiter-replica", "sa", "", 1,
+                Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(5)));
+        beans.registerSingleton("readReplica", replica);
+        var wrapper = DataSourceWrappingConfig.dataSourceWrapper(environment, beans.getBeanProvider(ReadReplica.class));
+
+        Object wrapped = wrapper.postProcessAfterInitialization(pool, "dataSource");
+
+        var router = assertInstanceOf(LazyConnectionDataSourceProxy.class, wrapped);
+        assertInstanceOf(ConcurrencyLimitingDataSource.class, router.getTargetDataSource());
+        assertSame(wrapped, wrapper.postProcessAfterInitialization(wrapped, "dataSource"));
+        assertFalse(wrapped instanceof MeterBinder); // sinon Spring Boot le lierait une seconde fois
+
+        var registry = new SimpleMeterRegistry();
+        new DataSourceConcurrencyConfig().dataSourceConcurrencyMetrics((DataSource) wrapped).bindTo(registry);
+        assertEquals(1, registry.find("app.datasource.queue.waiting").gauges().size());
+    }
+
+    @Test
+    void onlyTheLimiterTimeoutIsAnswered503() {
+        var handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        var busy = new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                new JDBCConnectionException("Unable to acquire JDBC Connection", new DatabaseBusyException("busy", 1)));
+
+        var response = handler.databaseUnavailable(busy);
+
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        var failure = new DataAccessResourceFailureException("Connection refused", new SQLException("Connection refused", "08001"));
+        assertSame(failure, assertThrows(DataAccessResourceFailureException.class, () -> handler.databaseUnavailable(failure)));
+    }
+
+    private static JdbcDataSource h2(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
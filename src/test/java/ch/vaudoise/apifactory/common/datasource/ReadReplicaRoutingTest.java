@@ -0,0 +1,122 @@
+package ch.vaudoise.apifactory.common.datasource;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.dto.ClientUpdateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read-only transactions go to the replica while it is in sync, and back to the primary once it lags.
+ * <p>
+ * The replica is a second in-memory H2 database, "replicated" with a {@code SCRIPT} / {@code RUNSCRIPT}
+ * snapshot of the primary; its heartbeat row is set by the test. The scheduled lag check is pushed
+ * out and run explicitly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.heartbeat-interval=1h",
+        "app.client-purge.poll-interval=1h"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired ClientService clientService;
+    @Autowired ContractService contractService;
+    @Autowired JdbcTemplate primary;
+    @Autowired ReadReplica replica;
+    @Autowired ReplicaLagMonitor monitor;
+    @Autowired MeterRegistry meterRegistry;
+
+    @TempDir Path snapshotDir;
+
+    private final JdbcTemplate replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaUntilItLags() {
+        Long clientId = clientService.create(new ClientCreateDto(ClientType.PERSON, "Replica Test",
+                "replica@example.com", "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null));
+        Long contractId = contractService.create(clientId, new ContractCreateDto(LocalDate.now(), null, new BigDecimal("10.00")));
+        replicate();
+
+        // Écriture postérieure au snapshot : visible sur le primaire seulement
+        contractService.create(clientId, new ContractCreateDto(LocalDate.now(), null, new BigDecimal("20.00")));
+
+        setReplicaHeartbeat(LocalDateTime.now());
+        monitor.check();
+        assertTrue(replica.isInSync());
+        assertEquals(1, contractService.listForClient(clientId, false, null, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(0, new BigDecimal("10.00").compareTo(contractService.sumActive(clientId).activeSum()));
+
+        // Les écritures restent sur le primaire, même quand le réplica est utilisé
+        assertEquals(0, new BigDecimal("15.00").compareTo(
+                contractService.updateCost(contractId, new BigDecimal("15.00"), null).costAmount()));
+
+        setReplicaHeartbeat(LocalDateTime.now().minusMinutes(1));
+        monitor.check();
+        assertFalse(replica.isInSync());
+        assertEquals(2, contractService.listForClient(clientId, false, null, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(0, new BigDecimal("35.00").compareTo(contractService.sumActive(clientId).activeSum()));
+    }
+
+    @Test
+    void cachedClientIsReloadedFromThePrimaryAfterAnUpdate() {
+        Long clientId = clientService.create(new ClientCreateDto(ClientType.PERSON, "Cached Before",
+                "cached@example.com", "+41 21 000 00 00", LocalDate.of(1990, 1, 1), null));
+        replicate();
+        setReplicaHeartbeat(LocalDateTime.now());
+        monitor.check();
+        assertTrue(replica.isInSync());
+
+        double replicaReads = replicaConnections();
+        assertEquals("Cached Before", clientService.get(clientId).name()); // miss : réplica
+        assertEquals("Cached Before", clientService.get(clientId).name()); // hit : aucune connexion
+        assertEquals(replicaReads + 1, replicaConnections());
+
+        // Le réplica garde l'ancienne ligne : le miss qui suit l'écriture lit le primaire
+        clientService.update(clientId, new ClientUpdateDto("Cached After", "cached@example.com", "+41 21 000 00 00"), null);
+        assertEquals("Cached After", clientService.get(clientId).name());
+        assertEquals("Cached After", clientService.get(clientId).name());
+        assertEquals(replicaReads + 1, replicaConnections());
+    }
+
+    private double replicaConnections() {
+        return meterRegistry.get("app.datasource.replica.connections").tag("target", "replica").counter().count();
+    }
+
+    /** Copies the whole primary database to the replica. */
+    private void replicate() {
+        String file = snapshotDir.resolve("snapshot.sql").toString();
+        primary.execute("SCRIPT DROP TO '" + file + "'");
+        replicaJdbc.execute("RUNSCRIPT FROM '" + file + "'");
+    }
+
+    private void setReplicaHeartbeat(LocalDateTime beatAt) {
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", Timestamp.valueOf(beatAt));
+    }
+}
@@ -0,0 +1,121 @@
+package ch.vaudoise.apifactory.common.export;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.dto.ContractResponseDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streaming exports: content type, file name, row encoding per format, and the filters of the
+ * contract export. Rows of other tests share the database, so assertions only look at the rows
+ * of the clients created here.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StreamingExportTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Test
+    void contractExportStreamsActiveContractsOfLiveClientsAsNdjson() throws Exception {
+        Long clientId = newClient("exp-live");
+        Long open = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("10.00")));
+        contracts.create(clientId, new ContractCreateDto(LocalDate.now().minusYears(1), LocalDate.now().minusDays(1), BigDecimal.ONE));
+        Long deletedClient = newClient("exp-deleted");
+        contracts.create(deletedClient, new ContractCreateDto(null, null, BigDecimal.TEN));
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(deletedClient), null)); // en attente de purge
+
+        var response = stream(get("/api/contracts/export").param("active", "true"));
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("contracts.ndjson"));
+        List<ContractResponseDto> rows = new ArrayList<>();
+        for (String line : response.getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readValue(line, ContractResponseDto.class));
+        }
+        assertEquals(List.of(open), rows.stream().filter(r -> r.clientId().equals(clientId)).map(ContractResponseDto::id).toList());
+        assertTrue(rows.stream().noneMatch(r -> r.clientId().equals(deletedClient)));
+        // Curseur ordonné par id
+        assertEquals(rows.stream().map(ContractResponseDto::id).sorted().toList(), rows.stream().map(ContractResponseDto::id).toList());
+    }
+
+    @Test
+    void clientExportAsCsvHasAHeaderAndQuotesSpecialValues() throws Exception {
+        newClient("exp-csv, \"quoted\"");
+
+        var response = stream(get("/api/clients/export").param("format", "CSV"));
+
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("id,type,name,email,phone,birthdate,companyIdentifier,createdAt,updatedAt,version", lines[0]);
+        assertTrue(Arrays.stream(lines).anyMatch(l -> l.contains(",PERSON,\"exp-csv, \"\"quoted\"\"\",")), String.join("\n", lines));
+    }
+
+    @Test
+    void cborExportIsASequenceOfRows() throws Exception {
+        Long clientId = newClient("exp-cbor");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("42.50")));
+
+        var response = stream(get("/api/contracts/export").param("format", "cbor"));
+
+        assertEquals("application/cbor-seq", response.getContentType());
+        List<ContractResponseDto> rows = cborConverter.getObjectMapper().readerFor(ContractResponseDto.class)
+                .<ContractResponseDto>readValues(response.getContentAsByteArray()).readAll();
+        var row = rows.stream().filter(r -> r.id().equals(contractId)).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("42.50").compareTo(row.costAmount()));
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        mvc.perform(get("/api/contracts/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /** Runs the request and the async dispatch that writes the streamed body. */
+    private MockHttpServletResponse stream(RequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn().getResponse();
+    }
+
+    private Long newClient(String name) {
+        String email = name.replaceAll("[^a-z-]", "") + "@example.com";
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, email, "+41 21 000 00 13",
+                LocalDate.of(1970, 7, 7), null));
+    }
+}
@@ -0,0 +1,194 @@
+package ch.vaudoise.apifactory.common.idempotency;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.admission.CallerResolver;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Retries with the same {@code Idempotency-Key} replay the first response instead of creating twice;
+ * keys are scoped by caller and a key in progress is never evicted.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h",
+        "app.idempotency.persistent=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyKeyTest {
+
+    private static final String ITEMS = """
+            [{"costAmount": 10}, {"costAmount": 7}]""";
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired IdempotencyStore store;
+    @Autowired IdempotencyProperties properties;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired CallerResolver callers;
+
+    @Test
+    void retriedBatchIsReplayedAndReusedKeyIsRejected() throws Exception {
+        Long clientId = newClient("retry");
+        String first = mvc.perform(batch(clientId, "batch-1", ITEMS).header("X-Caller-Id", "integrator-a"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        mvc.perform(batch(clientId, "batch-1", ITEMS).header("X-Caller-Id", "integrator-a"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first, JsonCompareMode.STRICT));
+        mvc.perform(batch(clientId, "batch-1", "[{\"costAmount\": 99}]").header("X-Caller-Id", "integrator-a"))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(2, contracts.sumActive(clientId).activeCount());
+
+        // Après un redémarrage, la réponse est relue depuis la table (même appelant)
+        var restarted = new IdempotencyStore(properties, objectMapper, jdbcTemplate, new SimpleMeterRegistry(), callers);
+        MockHttpServletRequest caller = new MockHttpServletRequest();
+        caller.addHeader("X-Caller-Id", "integrator-a");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(caller));
+        try {
+            ResponseEntity<?> replayed = restarted.execute("batch-1",
+                    "POST /api/clients/" + clientId + "/contracts/batch?atomic=true",
+                    List.of(new ContractCreateDto(null, null, BigDecimal.TEN), new ContractCreateDto(null, null, BigDecimal.valueOf(7))),
+                    () -> { throw new AssertionError("executed twice"); });
+            assertEquals(201, replayed.getStatusCode().value());
+            assertEquals(objectMapper.readTree(first), replayed.getBody());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void sameKeyFromAnotherCallerExecutesSeparately() throws Exception {
+        Long clientId = newClient("scoped");
+        mvc.perform(batch(clientId, "shared-1", ITEMS).header("X-Caller-Id", "integrator-a"))
+                .andExpect(status().isCreated());
+
+        // Autre appelant, autre charge utile : ni rejouée ni rejetée en 422
+        mvc.perform(batch(clientId, "shared-1", "[{\"costAmount\": 99}]").header("X-Caller-Id", "integrator-b"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+        mvc.perform(batch(clientId, "shared-1", ITEMS).header("X-Caller-Id", "integrator-a"))
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"));
+        assertEquals(3, contracts.sumActive(clientId).activeCount());
+    }
+
+    @Test
+    void keyInProgressSurvivesEvictionOfTheCompletedOnes() throws Exception {
+        var small = new IdempotencyStore(new IdempotencyProperties(true, 1, Duration.ofHours(1), Duration.ofSeconds(5),
+                false, Duration.ofHours(1)), objectMapper, jdbcTemplate, new SimpleMeterRegistry(), callers);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<ResponseEntity<?>> call = () -> small.execute("pinned-1", "POST /test", List.of(1), () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return ResponseEntity.status(201).body(List.of(42));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = pool.submit(call);
+            started.await();
+            // Trois clés terminées pour une borne de 1 : seules celles-ci sont évincées
+            for (int i = 0; i < 3; i++) {
+                small.execute("filler-" + i, "POST /test", List.of(i), () -> ResponseEntity.status(201).build());
+            }
+            small.cleanUp();
+            Future<ResponseEntity<?>> duplicate = pool.submit(call);
+            Thread.sleep(100); // le doublon est en attente
+            release.countDown();
+
+            assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatusCode().value());
+            assertEquals("true", duplicate.get(5, TimeUnit.SECONDS).getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheRequestInProgress() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<ResponseEntity<?>> call = () -> store.execute("concurrent-1", "POST /test", List.of(1), () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return ResponseEntity.status(201).body(List.of(42));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = pool.submit(call);
+            started.await();
+            Future<ResponseEntity<?>> duplicate = pool.submit(call);
+            Thread.sleep(100); // le doublon est en attente
+            release.countDown();
+
+            assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatusCode().value());
+            ResponseEntity<?> replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals("true", replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+            assertEquals(objectMapper.valueToTree(List.of(42)), replayed.getBody());
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private MockHttpServletRequestBuilder batch(Long clientId, String key, String items) {
+        return post("/api/clients/{id}/contracts/batch", clientId)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(items);
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com",
+                "+41 21 000 00 09", LocalDate.of(1980, 1, 1), null));
+    }
+}
@@ -0,0 +1,99 @@
+package ch.vaudoise.apifactory.common.metrics;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.repository.ClientRepository;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.client.service.ClientServiceImpl;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Application meters: rows per repository query ({@link RepositoryRowsAspect}), service
+ * latency, batch sizes and mapped errors. Meters are shared with the other tests of the
+ * context, so assertions compare counts before and after.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ApplicationMetricsTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired ClientService clients;
+    @Autowired ClientRepository clientRepo;
+
+    @Test
+    void rowsAreRecordedForRowSetsOnly() {
+        List<Long> ids = clients.createMany(List.of(person("rows-a"), person("rows-b")));
+        DistributionSummary before = rows("findLiveIds");
+        long count = before == null ? 0 : before.count();
+        double total = before == null ? 0 : before.totalAmount();
+
+        clientRepo.findLiveIds(List.of(ids.get(0), ids.get(1), -1L));
+        clientRepo.existsByEmail("rows-a@example.com");
+
+        DistributionSummary after = rows("findLiveIds");
+        assertEquals(count + 1, after.count());
+        assertEquals(total + 2, after.totalAmount());
+        assertNull(rows("existsByEmail")); // résultat scalaire : pas de nombre de lignes
+        assertNull(rows("save"));
+    }
+
+    @Test
+    void serviceCallsAndBatchSizesAreMeasured() {
+        long calls = serviceCalls("createMany");
+        long batches = batchSizes().count();
+
+        clients.createMany(List.of(person("svc-a"), person("svc-b"), person("svc-c")));
+
+        assertEquals(calls + 1, serviceCalls("createMany"));
+        assertEquals(batches + 1, batchSizes().count());
+        assertEquals(3, batchSizes().max());
+    }
+
+    @Test
+    void mappedErrorsAreCountedByStatus() throws Exception {
+        double before = meterRegistry.counter("app.errors", "status", "404", "error", "NOT_FOUND").count();
+
+        mvc.perform(get("/api/clients/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+
+        assertEquals(before + 1, meterRegistry.counter("app.errors", "status", "404", "error", "NOT_FOUND").count());
+    }
+
+    private DistributionSummary rows(String method) {
+        return meterRegistry.find("app.repository.rows")
+                .tags("repository", "ClientRepository", "method", method).summary();
+    }
+
+    private long serviceCalls(String method) {
+        var timer = meterRegistry.find("app.service")
+                .tags("class", ClientServiceImpl.class.getName(), "method", method).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private DistributionSummary batchSizes() {
+        return meterRegistry.summary("app.batch.size", "operation", "createMany");
+    }
+
+    private static ClientCreateDto person(String name) {
+        return new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 15",
+                LocalDate.of(1988, 8, 8), null);
+    }
+}
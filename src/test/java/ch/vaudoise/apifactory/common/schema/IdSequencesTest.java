@@ -0,0 +1,102 @@
+package ch.vaudoise.apifactory.common.schema;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batches written after an upgrade from IDENTITY ids: {@code client_seq} and {@code contract_seq}
+ * are moved past the existing rows instead of handing out their ids again.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdSequencesTest {
+
+    private static final int IDENTITY_ROWS = 120;
+
+    @Autowired IdSequences idSequences;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void contractBatchAfterIdentityRowsDoesNotReuseTheirIds() {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "seq-contracts", "seq-contracts@example.com",
+                "+41 21 000 00 21", LocalDate.of(1981, 1, 1), null));
+        long first = nextBlockStart("CONTRACT_SEQ");
+        // Lignes de l'ancienne colonne IDENTITY sur les ids des prochains blocs (terminées : hors synthèse)
+        for (long id = first; id < first + IDENTITY_ROWS; id++) {
+            jdbcTemplate.update("""
+                    INSERT INTO contract (id, client_id, start_date, end_date, cost_amount, last_updated_at, version, status)
+                    VALUES (?, ?, DATE '2020-01-01', DATE '2020-12-31', 1, LOCALTIMESTAMP, 0, 'ENDED')""", id, clientId);
+        }
+
+        assertTrue(idSequences.align("CONTRACT_SEQ", "contract"));
+        List<Long> ids = contracts.createBatch(clientId,
+                Collections.nCopies(60, new ContractCreateDto(null, null, BigDecimal.ONE)));
+
+        assertEquals(60, ids.stream().distinct().count());
+        assertTrue(ids.stream().noneMatch(id -> id >= first && id < first + IDENTITY_ROWS), ids::toString);
+        assertFalse(idSequences.align("CONTRACT_SEQ", "contract")); // déjà au-delà : inchangée
+        assertEquals(0, new BigDecimal("60").compareTo(contracts.sumActive(clientId).activeSum()));
+    }
+
+    @Test
+    void clientBatchAfterIdentityRowsDoesNotReuseTheirIds() {
+        long first = nextBlockStart("CLIENT_SEQ");
+        // Clients de l'ancienne colonne IDENTITY (supprimés logiquement : invisibles des lectures)
+        for (long id = first; id < first + IDENTITY_ROWS; id++) {
+            jdbcTemplate.update("""
+                    INSERT INTO client (id, type, name, name_key, email, phone, created_at, updated_at, version, deleted_at)
+                    VALUES (?, 'PERSON', 'seq-old', 'seq-old', ?, '+41 21 000 00 22', LOCALTIMESTAMP, LOCALTIMESTAMP, 0,
+                            LOCALTIMESTAMP)""", id, "seq-old-" + id + "@example.com");
+            jdbcTemplate.update("INSERT INTO person_client (id, birthdate) VALUES (?, DATE '1970-01-01')", id);
+        }
+
+        assertTrue(idSequences.align("CLIENT_SEQ", "client"));
+        // Bloc déjà réservé en mémoire avant l'alignement : épuisé par des créations unitaires
+        int created = 0;
+        long single;
+        do {
+            single = clients.create(person("seq-single-" + created++));
+            assertFalse(single >= first && single < first + IDENTITY_ROWS, "reused id " + single);
+        } while (single < first);
+        List<Long> ids = clients.createMany(IntStream.range(0, 3).mapToObj(i -> person("seq-new-" + i)).toList());
+
+        assertEquals(3, ids.stream().distinct().count());
+        assertTrue(ids.stream().allMatch(id -> id >= first + IDENTITY_ROWS), ids::toString);
+        assertFalse(idSequences.align("CLIENT_SEQ", "client")); // déjà au-delà : inchangée
+    }
+
+    private static ClientCreateDto person(String name) {
+        return new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 22",
+                LocalDate.of(1982, 2, 2), null);
+    }
+
+    /** First id of the next block the pooled optimizer will take from {@code sequence}. */
+    private long nextBlockStart(String sequence) {
+        var row = jdbcTemplate.queryForMap("SELECT BASE_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+                + " WHERE SEQUENCE_NAME = ?", sequence);
+        return ((Number) row.get("BASE_VALUE")).longValue() - ((Number) row.get("INCREMENT")).longValue() + 1;
+    }
+}
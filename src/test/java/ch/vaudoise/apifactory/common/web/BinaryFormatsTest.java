@@ -0,0 +1,134 @@
+package ch.vaudoise.apifactory.common.web;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CBOR and Smile bodies negotiated like JSON: listings, batch payloads and error responses, with
+ * JSON as the default.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BinaryFormatsTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired MappingJackson2CborHttpMessageConverter cborConverter;
+    @Autowired MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    void listingIsWrittenInCborAndSmile() throws Exception {
+        Long clientId = newClient("fmt-list");
+        contracts.createBatch(clientId, List.of(new ContractCreateDto(null, null, new BigDecimal("12.50")),
+                new ContractCreateDto(null, null, BigDecimal.ONE)));
+
+        for (var format : List.of(CBOR, SMILE)) {
+            ObjectMapper mapper = format == CBOR ? cborConverter.getObjectMapper() : smileConverter.getObjectMapper();
+            JsonNode page = read(mapper, get("/api/clients/{id}/contracts", clientId).param("size", "1")
+                    .accept(format), format, 200);
+
+            assertEquals(1, page.get("content").size());
+            assertEquals(clientId.longValue(), page.get("content").get(0).get("clientId").asLong());
+            assertEquals(2, page.get("totalElements").asLong());
+            assertEquals(1, page.get("pageable").get("pageSize").asInt());
+        }
+    }
+
+    @Test
+    void batchBodyIsReadFromCbor() throws Exception {
+        Long clientId = newClient("fmt-batch");
+        byte[] body = cborConverter.getObjectMapper().writeValueAsBytes(List.of(
+                new ContractCreateDto(LocalDate.of(2024, 1, 1), null, new BigDecimal("40.00")),
+                new ContractCreateDto(null, null, new BigDecimal("2.00"))));
+
+        mvc.perform(post("/api/clients/{id}/contracts/batch", clientId).contentType(CBOR).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        assertEquals(2, contracts.sumActive(clientId).activeCount());
+        assertEquals(0, new BigDecimal("42.00").compareTo(contracts.sumActive(clientId).activeSum()));
+    }
+
+    @Test
+    void errorsAreWrittenInTheNegotiatedFormat() throws Exception {
+        Long clientId = newClient("fmt-errors");
+        ObjectMapper cbor = cborConverter.getObjectMapper();
+
+        JsonNode notFound = read(cbor, get("/api/clients/{id}", Long.MAX_VALUE).accept(CBOR), CBOR, 404);
+        assertEquals("NOT_FOUND", notFound.get("error").asText());
+        assertEquals(404, notFound.get("status").asInt());
+
+        byte[] invalid = cbor.writeValueAsBytes(List.of(new ContractCreateDto(null, null, new BigDecimal("-1"))));
+        JsonNode badRequest = read(cbor, post("/api/clients/{id}/contracts/batch", clientId)
+                .contentType(CBOR).accept(CBOR).content(invalid), CBOR, 400);
+        assertEquals("VALIDATION_ERROR", badRequest.get("error").asText());
+        assertEquals("costAmount", badRequest.get("errors").get(0).get("field").asText());
+        assertEquals(0, contracts.sumActive(clientId).activeCount());
+    }
+
+    @Test
+    void jsonIsTheDefault() throws Exception {
+        Long clientId = newClient("fmt-default");
+
+        mvc.perform(get("/api/clients/{id}", clientId).header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id").value(clientId));
+        mvc.perform(get("/api/clients/{id}/contracts", clientId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/api/clients/{id}", Long.MAX_VALUE).header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("NOT_FOUND"));
+    }
+
+    private JsonNode read(ObjectMapper mapper, MockHttpServletRequestBuilder request, MediaType format,
+                          int expectedStatus) throws Exception {
+        var response = mvc.perform(request)
+                .andExpect(status().is(expectedStatus))
+                .andExpect(content().contentTypeCompatibleWith(format))
+                .andReturn().getResponse();
+        return mapper.readTree(response.getContentAsByteArray());
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com",
+                "+41 21 000 00 23", LocalDate.of(1983, 3, 3), null));
+    }
+}
@@ -0,0 +1,114 @@
+package ch.vaudoise.apifactory.common.web;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.service.ContractService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag / {@code If-Match} / {@code If-None-Match} on the single-resource endpoints: the version is
+ * the ETag, an outdated or weak {@code If-Match} is answered {@code 412} without writing, a
+ * malformed one {@code 400}, and a matching {@code If-None-Match} {@code 304}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+
+    @Test
+    void contractCostUpdateHonoursIfMatch() throws Exception {
+        Long contractId = contracts.create(newClient("etag-contract"), new ContractCreateDto(null, null, BigDecimal.TEN));
+        mvc.perform(get("/api/contracts/{id}", contractId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mvc.perform(get("/api/contracts/{id}", contractId).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+
+        updateCost(contractId, "\"0\"", 20)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+        // Écriture fondée sur la version 0, dépassée : rien n'est écrit
+        updateCost(contractId, "\"0\"", 30).andExpect(status().isPreconditionFailed());
+        updateCost(contractId, "W/\"1\"", 30).andExpect(status().isPreconditionFailed());
+        updateCost(contractId, "\"abc\"", 30).andExpect(status().isPreconditionFailed());
+        updateCost(contractId, "\"0\", \"1\"", 30).andExpect(status().isBadRequest());
+        updateCost(contractId, "1", 30).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/contracts/{id}", contractId))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.costAmount").value(20));
+        mvc.perform(get("/api/contracts/{id}", contractId).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+
+        // "*" et absence d'en-tête : mise à jour inconditionnelle
+        updateCost(contractId, "*", 40).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+        updateCost(contractId, null, 50).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        updateCost(Long.MAX_VALUE, "\"0\"", 50).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void clientUpdateHonoursIfMatch() throws Exception {
+        Long clientId = newClient("etag-client");
+        String etag = mvc.perform(get("/api/clients/{id}", clientId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/api/clients/{id}", clientId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        String next = updateClient(clientId, etag, "etag-client-renamed")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("etag-client-renamed"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        updateClient(clientId, etag, "etag-client-lost").andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get("/api/clients/{id}", clientId))
+                .andExpect(header().string(HttpHeaders.ETAG, next))
+                .andExpect(jsonPath("$.name").value("etag-client-renamed"));
+    }
+
+    private ResultActions updateCost(Long contractId, String ifMatch, int cost) throws Exception {
+        var request = patch("/api/contracts/{id}/cost", contractId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"costAmount\": " + cost + "}");
+        return mvc.perform(ifMatch == null ? request : request.header(HttpHeaders.IF_MATCH, ifMatch));
+    }
+
+    private ResultActions updateClient(Long clientId, String ifMatch, String name) throws Exception {
+        return mvc.perform(put("/api/clients/{id}", clientId)
+                .header(HttpHeaders.IF_MATCH, ifMatch)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"" + name + "\", \"email\": \"etag-client@example.com\", \"phone\": \"+41 21 000 00 20\"}"));
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 20",
+                LocalDate.of(1975, 7, 7), null));
+    }
+}
@@ -0,0 +1,172 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.exception.BadRequestException;
+import ch.vaudoise.apifactory.contract.dto.ContractCostAdjustmentDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostBulkResultDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostBulkUpdateDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCostItemDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk cost updates: explicit pairs with unknown contracts, the percentage adjustment (rounding,
+ * floor, one transaction per chunk) and the adjustments that would overflow the cost column.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContractCostBulkTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired ContractCostBulkService costBulkService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pairsAreAppliedAndUnknownContractsReported() {
+        Long clientId = newClient("bulk-cost-pairs");
+        Long first = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("10.00")));
+        Long second = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("20.00")));
+
+        ContractCostBulkResultDto result = contracts.updateCosts(new ContractCostBulkUpdateDto(List.of(
+                new ContractCostItemDto(first, new BigDecimal("11.00")),
+                new ContractCostItemDto(Long.MAX_VALUE, BigDecimal.ONE),
+                new ContractCostItemDto(second, new BigDecimal("21.00")),
+                new ContractCostItemDto(first, new BigDecimal("12.00"))), null));
+
+        assertEquals(2, result.updated()); // contrats distincts : first compté une fois
+        assertEquals(List.of(new ContractCostBulkResultDto.ItemError(1, Long.MAX_VALUE, "NOT_FOUND")), result.errors());
+        assertCost(first, "12.00"); // dernière occurrence
+        assertCost(second, "21.00");
+        assertEquals(2, contracts.get(first).version());
+        assertTrue(contracts.checkSum(clientId).consistent());
+        assertEquals(0, new BigDecimal("33.00").compareTo(contracts.checkSum(clientId).materializedSum()));
+    }
+
+    @Test
+    void contractRepeatedInThePayloadIsCountedOnce() throws Exception {
+        Long clientId = newClient("bulk-cost-repeated");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("5.00")));
+
+        mvc.perform(patch("/api/contracts/cost").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ContractCostBulkUpdateDto(List.of(
+                                new ContractCostItemDto(contractId, new BigDecimal("6.00")),
+                                new ContractCostItemDto(contractId, new BigDecimal("7.00")),
+                                new ContractCostItemDto(contractId, new BigDecimal("8.00"))), null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.errors").isEmpty());
+
+        assertCost(contractId, "8.00");
+        assertTrue(contracts.checkSum(clientId).consistent());
+    }
+
+    @Test
+    void percentageIsRoundedToTheCentWithAFloor() throws Exception {
+        Long clientId = newClient("bulk-cost-percent");
+        LocalDate today = LocalDate.now();
+        Long large = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("33.33")));
+        Long small = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("0.40")));
+        Long ended = contracts.create(clientId, new ContractCreateDto(today.minusYears(1), today.minusDays(1), new BigDecimal("50.00")));
+
+        adjust(new ContractCostAdjustmentDto(new BigDecimal("-99"), clientId, null, true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.errors").isEmpty());
+
+        assertCost(large, "0.33");
+        assertCost(small, "0.01"); // 0.004 arrondi à 0.00, relevé au plancher
+        assertCost(ended, "50.00"); // activeOnly : contrat terminé inchangé
+        assertEquals(0, new BigDecimal("0.34").compareTo(contracts.checkSum(clientId).materializedSum()));
+        assertTrue(contracts.checkSum(clientId).consistent());
+    }
+
+    @Test
+    void adjustmentCommitsChunkByChunkInIdOrder() {
+        Long clientId = newClient("bulk-cost-chunks");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("100.00"))));
+        }
+        var adjustment = new ContractCostAdjustmentDto(BigDecimal.TEN, clientId, null, false);
+        BigDecimal factor = new BigDecimal("1.10");
+
+        var chunk = costBulkService.adjustChunk(adjustment, factor, Long.MIN_VALUE, 2);
+
+        assertEquals(new ContractCostBulkService.AdjustedChunk(ids.get(1), 2), chunk);
+        assertCost(ids.get(1), "110.00");
+        assertCost(ids.get(2), "100.00"); // tranche suivante pas encore traitée
+        assertTrue(contracts.checkSum(clientId).consistent()); // synthèse à jour après chaque tranche
+        List<Integer> sizes = new ArrayList<>();
+        while (chunk.lastId() != null) {
+            sizes.add(chunk.updated());
+            chunk = costBulkService.adjustChunk(adjustment, factor, chunk.lastId(), 2);
+        }
+        assertEquals(List.of(2, 2, 1), sizes);
+        for (Long id : ids) assertCost(id, "110.00");
+        assertEquals(0, new BigDecimal("550.00").compareTo(contracts.checkSum(clientId).materializedSum()));
+    }
+
+    @Test
+    void adjustmentOverflowingTheCostColumnIsRejectedBeforeAnyWrite() throws Exception {
+        Long clientId = newClient("bulk-cost-overflow");
+        Long modest = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("10.00")));
+        Long huge = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("100000000000.00")));
+
+        adjust(new ContractCostAdjustmentDto(new BigDecimal("1000"), clientId, null, false))
+                .andExpect(status().isBadRequest());
+
+        assertCost(modest, "10.00");
+        assertCost(huge, "100000000000.00");
+        // 899 999 999 999.99 × 1.1112 dépasse aussi la colonne ; la borne exacte passe
+        assertThrows(BadRequestException.class,
+                () -> ContractCostBulkService.checkOverflow(new BigDecimal("899999999999.99"), new BigDecimal("1.1112")));
+        ContractCostBulkService.checkOverflow(new BigDecimal("999999999999.99"), BigDecimal.ONE);
+        adjust(new ContractCostAdjustmentDto(new BigDecimal("899.99"), clientId, null, false))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+        assertCost(huge, "999990000000.00");
+    }
+
+    private ResultActions adjust(ContractCostAdjustmentDto adjustment) throws Exception {
+        return mvc.perform(patch("/api/contracts/cost").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ContractCostBulkUpdateDto(null, adjustment))));
+    }
+
+    private void assertCost(Long contractId, String expected) {
+        BigDecimal cost = jdbcTemplate.queryForObject("SELECT cost_amount FROM contract WHERE id = ?", BigDecimal.class, contractId);
+        assertEquals(0, new BigDecimal(expected).compareTo(cost), "cost of " + contractId + ": " + cost);
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com", "+41 21 000 00 19",
+                LocalDate.of(1979, 9, 9), null));
+    }
+}
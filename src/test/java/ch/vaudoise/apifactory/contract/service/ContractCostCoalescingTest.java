@@ -0,0 +1,205 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Write coalescing of unconditional cost updates: a burst on one contract is written once, with
+ * the last value, and reads show the pending value in between; a flush applies cost deltas to the
+ * summaries, the buffer holds at most {@code max-pending} contracts and is drained on shutdown.
+ * The scheduled flush is pushed out and run explicitly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cost-coalescing;DB_CLOSE_DELAY=-1",
+        "app.contract-cost.coalescing.enabled=true",
+        "app.contract-cost.coalescing.window=1h",
+        "app.contract-cost.coalescing.max-pending=4",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContractCostCoalescingTest {
+
+    private static final int BURST = 50;
+
+    @Autowired MockMvc mvc;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired ContractCostFlushJobs flushJobs;
+
+    @Test
+    void burstIsWrittenOnceWithTheLastValue() throws Exception {
+        Long clientId = clients.create(new ClientCreateDto(ClientType.PERSON, "Carol", "carol@example.com",
+                "+41 21 000 00 03", LocalDate.of(1980, 3, 3), null));
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("100.00")));
+        double submitted = counter("submitted");
+        double written = counter("written");
+
+        for (int i = 1; i <= BURST; i++) {
+            mvc.perform(patch("/api/contracts/{id}/cost", contractId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"costAmount\": " + (100 + i) + "}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                    .andExpect(jsonPath("$.costAmount").value(100 + i));
+        }
+        // Valeur en attente visible en lecture, pas encore écrite
+        mvc.perform(get("/api/contracts/{id}", contractId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.costAmount").value(100 + BURST))
+                .andExpect(jsonPath("$.version").value(0));
+        assertEquals(0, new BigDecimal("100.00").compareTo(contracts.sumActive(clientId).activeSum()));
+
+        assertEquals(1, contracts.flushPendingCosts());
+        assertEquals(0, contracts.flushPendingCosts());
+        mvc.perform(get("/api/contracts/{id}", contractId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.costAmount").value(100 + BURST));
+        assertEquals(0, BigDecimal.valueOf(100 + BURST).compareTo(contracts.sumActive(clientId).activeSum()));
+        assertEquals(BURST, counter("submitted") - submitted, 0.0);
+        assertEquals(1, counter("written") - written, 0.0);
+        assertEquals(counter("submitted") / counter("written"),
+                meterRegistry.get("app.contract.cost.coalescing.ratio").gauge().value(), 0.0);
+
+        // Mise à jour conditionnelle : le coût en attente est écrit d'abord, la version "1" est dépassée
+        mvc.perform(patch("/api/contracts/{id}/cost", contractId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"costAmount\": 300}"))
+                .andExpect(status().isAccepted());
+        mvc.perform(patch("/api/contracts/{id}/cost", contractId)
+                        .header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"costAmount\": 400}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals(1, contracts.flushPendingCosts());
+        mvc.perform(patch("/api/contracts/{id}/cost", contractId)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"costAmount\": 400}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void flushAppliesCostDeltasToTheSummaries() throws Exception {
+        LocalDate today = LocalDate.now();
+        Long first = newClient("dave");
+        Long open = contracts.create(first, new ContractCreateDto(null, null, new BigDecimal("100.00")));
+        Long ended = contracts.create(first, new ContractCreateDto(today.minusYears(1), today.minusDays(1), new BigDecimal("50.00")));
+        Long second = newClient("erin");
+        Long other = contracts.create(second, new ContractCreateDto(null, today.plusDays(30), new BigDecimal("10.00")));
+        Long deleted = contracts.create(second, new ContractCreateDto(null, null, new BigDecimal("5.00")));
+
+        coalesce(open, "80.00");
+        coalesce(ended, "70.00"); // contrat terminé : coût écrit, aucun delta
+        coalesce(other, "25.50");
+        coalesce(deleted, "9.00");
+        contracts.delete(deleted); // la mise à jour en attente est abandonnée au flush
+
+        assertEquals(3, contracts.flushPendingCosts());
+
+        assertFalse(contracts.hasPendingCost(deleted));
+        assertEquals(0, new BigDecimal("80.00").compareTo(contracts.sumActive(first).activeSum()));
+        assertEquals(0, new BigDecimal("25.50").compareTo(contracts.sumActive(second).activeSum()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(contracts.get(ended).costAmount()));
+        assertTrue(contracts.checkSum(first).consistent());
+        assertTrue(contracts.checkSum(second).consistent());
+        assertEquals(1, contracts.get(open).version());
+    }
+
+    @Test
+    void bufferHoldsAtMostMaxPendingContracts() throws Exception {
+        Long clientId = newClient("frank");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN)));
+        }
+        double overflow = counter("overflow");
+        for (int i = 0; i < 4; i++) coalesce(ids.get(i), "11.00");
+
+        // Tampon plein : écriture directe, avec ETag ; un contrat déjà en attente reste regroupé
+        patchCost(ids.get(4), "12.00")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        coalesce(ids.get(0), "13.00");
+        assertEquals(1, counter("overflow") - overflow, 0.0);
+
+        assertEquals(4, contracts.flushPendingCosts());
+        assertEquals(0, new BigDecimal("58.00").compareTo(contracts.sumActive(clientId).activeSum()));
+        coalesce(ids.get(4), "14.00"); // place libérée par le flush
+        assertEquals(1, contracts.flushPendingCosts());
+    }
+
+    @Test
+    @DirtiesContext // tampon fermé : contexte non réutilisable
+    void shutdownDrainsTheBufferThenWritesDirectly() throws Exception {
+        Long clientId = newClient("grace");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        coalesce(contractId, "15.00");
+
+        flushJobs.flushOnShutdown();
+
+        assertFalse(contracts.hasPendingCost(contractId));
+        assertEquals(0, new BigDecimal("15.00").compareTo(contracts.sumActive(clientId).activeSum()));
+        patchCost(contractId, "16.00")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    void unknownContractIsNotBuffered() throws Exception {
+        mvc.perform(patch("/api/contracts/{id}/cost", 999_999)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"costAmount\": 10}"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void coalesce(Long contractId, String cost) throws Exception {
+        patchCost(contractId, cost)
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.costAmount").value(Double.parseDouble(cost)));
+    }
+
+    private ResultActions patchCost(Long contractId, String cost) throws Exception {
+        return mvc.perform(patch("/api/contracts/{id}/cost", contractId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"costAmount\": " + cost + "}"));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get("app.contract.cost.coalescing." + name).functionCounter().count();
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com",
+                "+41 21 000 00 22", LocalDate.of(1981, 4, 4), null));
+    }
+}
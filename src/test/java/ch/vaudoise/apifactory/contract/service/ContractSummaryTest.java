@@ -0,0 +1,156 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.common.exception.NotFoundException;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.dto.SumResponseDto;
+import ch.vaudoise.apifactory.contract.dto.SummaryCheckDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The materialized per-client summary follows every contract write, is rolled forward by the
+ * nightly sweep, is repaired by the checker, and is never rebuilt for a deleted client. The
+ * materialized contract status is set on every write and caught up by the expiry job.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContractSummaryTest {
+
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+    @Autowired ContractSummaryService summaryService;
+    @Autowired ContractSummaryJobs summaryJobs;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deltasFollowCreateUpdateAndDelete() {
+        Long clientId = newClient("sum-deltas");
+        LocalDate today = LocalDate.now();
+        Long open = contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("100.00")));
+        Long ended = contracts.create(clientId, new ContractCreateDto(today.minusYears(1), today.minusDays(1), new BigDecimal("50.00")));
+        Long ending = contracts.create(clientId, new ContractCreateDto(null, today.plusMonths(1), new BigDecimal("30.00")));
+        assertSummary(clientId, "130.00", 2);
+
+        contracts.updateCost(open, new BigDecimal("120.00"), null);
+        contracts.updateCost(ended, new BigDecimal("500.00"), null); // inactif : aucun delta
+        assertSummary(clientId, "150.00", 2);
+
+        contracts.delete(ending);
+        assertSummary(clientId, "120.00", 1);
+        assertTrue(contracts.checkSum(clientId).consistent());
+    }
+
+    @Test
+    void nightlySweepEndsExpiredContractsAndRollsTheSummaryForward() {
+        Long clientId = newClient("sum-sweep");
+        LocalDate today = LocalDate.now();
+        contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("40.00")));
+        Long expiring = contracts.create(clientId, new ContractCreateDto(null, today.plusDays(10), new BigDecimal("60.00")));
+        assertSummary(clientId, "100.00", 2);
+
+        // Passage de minuit simulé : le contrat se termine aujourd'hui, la synthèse date d'hier
+        jdbcTemplate.update("UPDATE contract SET end_date = ? WHERE id = ?", today, expiring);
+        jdbcTemplate.update("UPDATE client_contract_summary SET as_of = ? WHERE client_id = ?", today.minusDays(1), clientId);
+        assertSummary(clientId, "40.00", 1); // ligne périmée : lecture live
+
+        summaryJobs.sweepExpired();
+
+        assertEquals("ENDED", jdbcTemplate.queryForObject("SELECT status FROM contract WHERE id = ?", String.class, expiring));
+        assertEquals(today, jdbcTemplate.queryForObject(
+                "SELECT as_of FROM client_contract_summary WHERE client_id = ?", LocalDate.class, clientId));
+        assertEquals(0, new BigDecimal("40.00").compareTo(jdbcTemplate.queryForObject(
+                "SELECT active_total FROM client_contract_summary WHERE client_id = ?", BigDecimal.class, clientId)));
+        assertSummary(clientId, "40.00", 1);
+    }
+
+    @Test
+    void statusIsSetOnWriteAndCaughtUpByTheExpiryJob() {
+        Long clientId = newClient("sum-status");
+        LocalDate today = LocalDate.now();
+        Long open = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        Long ended = contracts.create(clientId, new ContractCreateDto(today.minusYears(1), today.minusDays(1), BigDecimal.TEN));
+        Long endingToday = contracts.create(clientId, new ContractCreateDto(null, today, BigDecimal.TEN));
+        Long endingTomorrow = contracts.create(clientId, new ContractCreateDto(null, today.plusDays(1), BigDecimal.TEN));
+        assertStatus(open, "ACTIVE");
+        assertStatus(ended, "ENDED");
+        assertStatus(endingToday, "ENDED"); // terminé le jour même de sa date de fin
+        assertStatus(endingTomorrow, "ACTIVE");
+
+        // Dates de fin passées hors JPA : statut périmé jusqu'à la prochaine écriture ou au job
+        jdbcTemplate.update("UPDATE contract SET end_date = ? WHERE id IN (?, ?)", today.minusDays(1), open, endingTomorrow);
+        contracts.updateCost(open, new BigDecimal("11.00"), null);
+        assertStatus(open, "ENDED"); // @PreUpdate
+        assertStatus(endingTomorrow, "ACTIVE");
+        var before = jdbcTemplate.queryForMap("SELECT version, last_updated_at FROM contract WHERE id = ?", endingTomorrow);
+
+        while (contracts.expireStatuses(today, 2) > 0) { }
+
+        assertStatus(endingTomorrow, "ENDED");
+        assertEquals(before, jdbcTemplate.queryForMap( // ni version ni lastUpdatedAt
+                "SELECT version, last_updated_at FROM contract WHERE id = ?", endingTomorrow));
+        summaryService.checkChunk(clientId - 1, 1, true); // synthèse réalignée sur les dates modifiées
+        assertSummary(clientId, "0", 0);
+    }
+
+    @Test
+    void checkerRepairsACorruptedRow() {
+        Long clientId = newClient("sum-repair");
+        contracts.create(clientId, new ContractCreateDto(null, null, new BigDecimal("25.00")));
+        jdbcTemplate.update("UPDATE client_contract_summary SET active_total = 999, active_count = 7 WHERE client_id = ?", clientId);
+        assertFalse(contracts.checkSum(clientId).consistent());
+
+        var chunk = summaryService.checkChunk(clientId - 1, 1, true);
+
+        assertEquals(List.of(clientId), chunk.mismatches().stream().map(SummaryCheckDto::clientId).toList());
+        assertTrue(contracts.checkSum(clientId).consistent());
+        assertSummary(clientId, "25.00", 1);
+    }
+
+    @Test
+    void writesOnContractsOfASoftDeletedClientAreRejected() {
+        Long clientId = newClient("sum-deleted");
+        Long contractId = contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.TEN));
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(clientId), null));
+
+        assertThrows(NotFoundException.class, () -> contracts.updateCost(contractId, BigDecimal.ONE, null));
+        assertThrows(NotFoundException.class, () -> contracts.delete(contractId));
+        assertThrows(NotFoundException.class, () -> contracts.create(clientId, new ContractCreateDto(null, null, BigDecimal.ONE)));
+        // Aucune ligne de synthèse orpheline recréée
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM client_contract_summary WHERE client_id = ?", Integer.class, clientId));
+    }
+
+    private void assertStatus(Long contractId, String expected) {
+        assertEquals(expected, jdbcTemplate.queryForObject("SELECT status FROM contract WHERE id = ?", String.class, contractId),
+                "status of " + contractId);
+    }
+
+    private void assertSummary(Long clientId, String total, long count) {
+        SumResponseDto sum = contracts.sumActive(clientId);
+        assertEquals(0, new BigDecimal(total).compareTo(sum.activeSum()), "active sum " + sum.activeSum());
+        assertEquals(count, sum.activeCount());
+    }
+
+    private Long newClient(String name) {
+        return clients.create(new ClientCreateDto(ClientType.PERSON, name, name + "@example.com",
+                "+41 21 000 00 12", LocalDate.of(1975, 3, 3), null));
+    }
+}
@@ -0,0 +1,162 @@
+package ch.vaudoise.apifactory.contract.service;
+
+import ch.vaudoise.apifactory.client.domain.ClientType;
+import ch.vaudoise.apifactory.client.dto.ClientBulkDeleteDto;
+import ch.vaudoise.apifactory.client.dto.ClientCreateDto;
+import ch.vaudoise.apifactory.client.service.ClientService;
+import ch.vaudoise.apifactory.contract.dto.ClientTypeTotalsDto;
+import ch.vaudoise.apifactory.contract.dto.ContractCreateDto;
+import ch.vaudoise.apifactory.contract.dto.ContractSumsRequestDto;
+import ch.vaudoise.apifactory.contract.dto.SumResponseDto;
+import ch.vaudoise.apifactory.contract.dto.SumRollupDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Multi-client and portfolio-wide active sums: the streamed per-client rows, their rollup per
+ * client type, id lists spanning several IN-clause chunks, and the clients left out.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-creation;DB_CLOSE_DELAY=-1",
+        "app.client-purge.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContractSumsTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired ClientService clients;
+    @Autowired ContractService contracts;
+
+    @Test
+    void sumsOfAnIdListSpanningTwoChunksKeepLiveClientsInIdOrder() throws Exception {
+        LocalDate today = LocalDate.now();
+        Long person = newClient("sums-person", ClientType.PERSON);
+        contracts.create(person, new ContractCreateDto(null, null, new BigDecimal("100.00")));
+        contracts.create(person, new ContractCreateDto(null, today.plusDays(1), new BigDecimal("50.00")));
+        contracts.create(person, new ContractCreateDto(today.minusYears(1), today.minusDays(1), new BigDecimal("30.00")));
+        Long idle = newClient("sums-idle", ClientType.PERSON);
+        Long deleted = newClient("sums-deleted", ClientType.PERSON);
+        contracts.create(deleted, new ContractCreateDto(null, null, BigDecimal.TEN));
+        clients.deleteMany(new ClientBulkDeleteDto(List.of(deleted), null));
+        // 999 ids inconnus avant eux : person tombe dans la première tranche, idle dans la seconde
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 999).map(i -> -i).boxed().toList());
+        ids.addAll(List.of(idle, person, deleted, person));
+
+        List<SumResponseDto> rows = sums(new ContractSumsRequestDto(ids, false));
+
+        assertEquals(List.of(person, idle), rows.stream().map(SumResponseDto::clientId).toList());
+        assertSum(rows.get(0), "150.00", 2);
+        assertSum(rows.get(1), "0", 0);
+    }
+
+    @Test
+    void portfolioSumsMatchTheirRollup() throws Exception {
+        Long company = newClient("sums-company", ClientType.COMPANY);
+        contracts.create(company, new ContractCreateDto(null, null, new BigDecimal("20.00")));
+
+        List<SumResponseDto> rows = sums(new ContractSumsRequestDto(null, true));
+        SumRollupDto rollup = rollup(new ContractSumsRequestDto(null, true));
+
+        assertEquals(rows.stream().map(SumResponseDto::clientId).sorted().toList(),
+                rows.stream().map(SumResponseDto::clientId).toList());
+        assertSum(rows.stream().filter(r -> r.clientId().equals(company)).findFirst().orElseThrow(), "20.00", 1);
+        assertEquals(0, rows.stream().map(SumResponseDto::activeSum).reduce(BigDecimal.ZERO, BigDecimal::add)
+                .compareTo(rollup.activeSum()));
+        assertEquals(rows.stream().mapToLong(SumResponseDto::activeCount).sum(), rollup.activeCount());
+        assertEquals(rows.size(), rollup.clientCount());
+        assertEquals(rollup.clientCount(), rollup.byType().stream().mapToLong(ClientTypeTotalsDto::clientCount).sum());
+    }
+
+    @Test
+    void rollupOfAnIdListGroupsByClientType() throws Exception {
+        Long person = newClient("rollup-person", ClientType.PERSON);
+        contracts.create(person, new ContractCreateDto(null, null, new BigDecimal("70.00")));
+        contracts.create(person, new ContractCreateDto(null, null, new BigDecimal("5.50")));
+        Long idle = newClient("rollup-idle", ClientType.PERSON);
+        Long company = newClient("rollup-company", ClientType.COMPANY);
+        contracts.create(company, new ContractCreateDto(null, null, new BigDecimal("12.00")));
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 999).map(i -> -i).boxed().toList());
+        ids.addAll(List.of(person, idle, company));
+
+        SumRollupDto rollup = rollup(new ContractSumsRequestDto(ids, false));
+
+        Map<ClientType, ClientTypeTotalsDto> byType = rollup.byType().stream()
+                .collect(Collectors.toMap(ClientTypeTotalsDto::type, Function.identity()));
+        assertEquals(0, new BigDecimal("75.50").compareTo(byType.get(ClientType.PERSON).activeSum()));
+        assertEquals(2, byType.get(ClientType.PERSON).activeCount());
+        assertEquals(2, byType.get(ClientType.PERSON).clientCount());
+        assertEquals(0, new BigDecimal("12.00").compareTo(byType.get(ClientType.COMPANY).activeSum()));
+        assertEquals(1, byType.get(ClientType.COMPANY).clientCount());
+        assertEquals(0, new BigDecimal("87.50").compareTo(rollup.activeSum()));
+        assertEquals(3, rollup.activeCount());
+        assertEquals(3, rollup.clientCount());
+    }
+
+    @Test
+    void selectionMustBeEitherIdsOrAll() throws Exception {
+        mvc.perform(post("/api/contracts/sums/rollup").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"clientIds\":[1],\"all\":true}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/contracts/sums").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<SumResponseDto> sums(ContractSumsRequestDto selection) throws Exception {
+        MvcResult started = mvc.perform(post("/api/contracts/sums").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(selection)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<SumResponseDto> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) rows.add(objectMapper.readValue(line, SumResponseDto.class));
+        }
+        return rows;
+    }
+
+    private SumRollupDto rollup(ContractSumsRequestDto selection) throws Exception {
+        String body = mvc.perform(post("/api/contracts/sums/rollup").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(selection)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(body, SumRollupDto.class);
+    }
+
+    private static void assertSum(SumResponseDto row, String sum, long count) {
+        assertEquals(0, new BigDecimal(sum).compareTo(row.activeSum()), "active sum " + row.activeSum());
+        assertEquals(count, row.activeCount());
+    }
+
+    private Long newClient(String name, ClientType type) {
+        boolean company = type == ClientType.COMPANY;
+        return clients.create(new ClientCreateDto(type, name, name + "@example.com", "+41 21 000 00 18",
+                company ? null : LocalDate.of(1985, 5, 5),
+                company ? (name.startsWith("rollup") ? "RLP-001" : "SMS-001") : null));
+    }
+}